@@ -0,0 +1,74 @@
+package az.marketplace.benchmark;
+
+import az.marketplace.util.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cart/checkout total: the old BigDecimal code (Optional per line, multiply + add)
+ * against {@link Money}. Run with {@code ./gradlew jmh}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MoneyBenchmark {
+
+    @Param({"5", "50"})
+    int lines;
+
+    BigDecimal[] prices;
+    Money[] moneyPrices;
+    Integer[] counts;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        prices = new BigDecimal[lines];
+        moneyPrices = new Money[lines];
+        counts = new Integer[lines];
+        for (int i = 0; i < lines; i++) {
+            prices[i] = BigDecimal.valueOf(100 + random.nextInt(1_000_000), 2);
+            moneyPrices[i] = Money.of(prices[i]);
+            counts[i] = 1 + random.nextInt(5);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalTotal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            BigDecimal price = Optional.ofNullable(prices[i]).orElse(BigDecimal.ZERO);
+            int count = Optional.ofNullable(counts[i]).orElse(0);
+            total = total.add(price.multiply(BigDecimal.valueOf(count)));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public Money moneyTotal() {
+        Money total = Money.ZERO;
+        for (int i = 0; i < lines; i++) {
+            Integer count = counts[i];
+            total = total.plus(moneyPrices[i].times(count == null ? 0 : count));
+        }
+        return total;
+    }
+
+    // checkout sərhədi: məhsul qiyməti hələ BigDecimal-dır, Money.of çevirməsi də ölçülür
+    @Benchmark
+    public Money moneyTotalFromBigDecimalPrices() {
+        Money total = Money.ZERO;
+        for (int i = 0; i < lines; i++) {
+            Integer count = counts[i];
+            total = total.plus(Money.ofNullable(prices[i]).times(count == null ? 0 : count));
+        }
+        return total;
+    }
+}
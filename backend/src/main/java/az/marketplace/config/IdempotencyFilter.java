@@ -0,0 +1,210 @@
+package az.marketplace.config;
+
+import az.marketplace.entity.User;
+import az.marketplace.exception.IdempotencyConflictException;
+import az.marketplace.exception.IdempotencyKeyReuseException;
+import az.marketplace.service.IdempotencyService;
+import az.marketplace.service.IdempotencyService.StoredResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Makes checkout and order state changes safe to retry: a request carrying an
+ * {@code Idempotency-Key} header runs once per user and path, later requests with the same
+ * key get the stored response back (marked with {@code Idempotent-Replayed: true}).
+ * Reusing a key with a different request body is rejected with 422.
+ * Requests without the header behave as before.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final RequestMatcher IDEMPOTENT_ENDPOINTS = new OrRequestMatcher(
+            new AntPathRequestMatcher("/orders", HttpMethod.POST.name()),
+            new AntPathRequestMatcher("/orders/*/cancel", HttpMethod.POST.name()),
+            new AntPathRequestMatcher("/orders/*/cancel", HttpMethod.PATCH.name()),
+            new AntPathRequestMatcher("/merchant/orders/*/status", HttpMethod.POST.name()),
+            new AntPathRequestMatcher("/merchant/orders/*/status", HttpMethod.PATCH.name())
+    );
+
+    private final IdempotencyService idempotencyService;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return request.getHeader(HEADER) == null || !IDEMPOTENT_ENDPOINTS.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !(auth.getPrincipal() instanceof User user)) {
+            // login olmayıb → security 401/403 qaytaracaq, açar saxlanmır
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String key = request.getHeader(HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST,
+                    HEADER + " must be 1-" + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+
+        // PATCH və POST eyni əməliyyatdır → metod açara daxil deyil
+        String keyHash = sha256(user.getId() + "|" + request.getRequestURI() + "|" + key);
+
+        // body əvvəlcədən oxunur: hash açarla birlikdə saxlanır, controller isə eyni byte-ları oxuyur
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        String requestHash = sha256(cachedRequest.body);
+
+        Optional<StoredResponse> stored;
+        try {
+            stored = idempotencyService.acquire(keyHash, requestHash);
+        } catch (IdempotencyConflictException e) {
+            writeError(response, HttpStatus.CONFLICT, e.getMessage());
+            return;
+        } catch (IdempotencyKeyReuseException e) {
+            writeError(response, HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage());
+            return;
+        }
+        if (stored.isPresent()) {
+            replay(response, stored.get());
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(cachedRequest, wrapper);
+        } catch (IOException | ServletException | RuntimeException e) {
+            idempotencyService.abandon(keyHash);
+            throw e;
+        }
+
+        // 5xx müvəqqəti ola bilər → saxlanmır, təkrar sorğu yenidən icra olunur
+        if (wrapper.getStatus() >= 500) {
+            idempotencyService.abandon(keyHash);
+        } else {
+            idempotencyService.complete(keyHash, requestHash, new StoredResponse(wrapper.getStatus(),
+                    wrapper.getContentType(), new String(wrapper.getContentAsByteArray(), StandardCharsets.UTF_8)));
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private static void replay(HttpServletResponse response, StoredResponse stored) throws IOException {
+        response.setStatus(stored.status());
+        response.setHeader("Idempotent-Replayed", "true");
+        if (stored.contentType() != null) response.setContentType(stored.contentType());
+        if (stored.body() != null) {
+            byte[] body = stored.body().getBytes(StandardCharsets.UTF_8);
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+
+    private static void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("{\"message\":\"" + message.replace("\"", "\\\"") + "\"}");
+    }
+
+    private static String sha256(String value) {
+        return sha256(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String sha256(byte[] value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Body bir dəfə oxunur və filter zəncirinin qalanı üçün yaddaşdan yenidən verilir
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = StreamUtils.copyToByteArray(request.getInputStream());
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
@@ -19,6 +19,7 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
 
     private final JwtAuthFilter jwtAuthFilter;
+    private final IdempotencyFilter idempotencyFilter;
 
     @Bean
     public WebMvcConfigurer corsConfigurer() {
@@ -70,9 +71,12 @@ public class SecurityConfig {
                         // Məhsullar:
                         // GET /products -> açıq
                         .requestMatchers(HttpMethod.GET, "/products/**").permitAll()
+                        // POST /products/lookup -> açıq (yalnız oxuma, id siyahısı body-də)
+                        .requestMatchers(HttpMethod.POST, "/products/lookup").permitAll()
                         // Yarat / dəyiş / sil -> yalnız MERCHANT
                         .requestMatchers(HttpMethod.POST, "/products/**").hasRole("MERCHANT")
                         .requestMatchers(HttpMethod.PUT, "/products/**").hasRole("MERCHANT")
+                        .requestMatchers(HttpMethod.PATCH, "/products/**").hasRole("MERCHANT")
                         .requestMatchers(HttpMethod.DELETE, "/products/**").hasRole("MERCHANT")
 
                         // /merchant/** -> yalnız MERCHANT
@@ -88,6 +92,8 @@ public class SecurityConfig {
                 );
 
         http.addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+        // istifadəçi məlum olduqdan sonra; Idempotency-Key olan sifariş sorğuları
+        http.addFilterAfter(idempotencyFilter, JwtAuthFilter.class);
 
         return http.build();
     }
@@ -1,7 +1,9 @@
 package az.marketplace.controller;
 
 import az.marketplace.dto.cart.AddToCartRequest;
+import az.marketplace.dto.cart.CartBulkUpdateRequest;
 import az.marketplace.dto.cart.CartItemResponse;
+import az.marketplace.dto.cart.CartViewResponse;
 import az.marketplace.entity.Customer;
 import az.marketplace.service.CartService;
 import az.marketplace.service.CurrentUserService;
@@ -27,6 +29,13 @@ public class CartController {
         return ResponseEntity.ok(cartService.getCartItems(customer));
     }
 
+    // GET /cart/view → sətirlər + cəmlər (itemCount, grandTotal, stokdan artıq sətirlər)
+    @GetMapping("/view")
+    public ResponseEntity<CartViewResponse> getCartView() {
+        Customer customer = currentUserService.getCurrentCustomerOrThrow();
+        return ResponseEntity.ok(cartService.getCartView(customer));
+    }
+
     // POST /cart/items
     @PostMapping("/items")
     public ResponseEntity<CartItemResponse> addItem(
@@ -36,6 +45,15 @@ public class CartController {
         return ResponseEntity.ok(cartService.addToCart(customer, req));
     }
 
+    // PATCH /cart → bir neçə sətir birdən (SET / INCREMENT / REMOVE), atomik; cavab yenilənmiş səbətdir
+    @PatchMapping
+    public ResponseEntity<CartViewResponse> updateCart(
+            @Valid @RequestBody CartBulkUpdateRequest req
+    ) {
+        Customer customer = currentUserService.getCurrentCustomerOrThrow();
+        return ResponseEntity.ok(cartService.updateCart(customer, req));
+    }
+
     // DELETE /cart/items/{itemId}
     @DeleteMapping("/items/{itemId}")
     public ResponseEntity<Void> deleteItem(@PathVariable Long itemId) {
@@ -2,12 +2,15 @@ package az.marketplace.controller;
 
 import az.marketplace.dto.product.CategoryRequest;
 import az.marketplace.dto.product.CategoryResponse;
+import az.marketplace.service.CatalogVersions;
 import az.marketplace.service.CategoryService;
 import az.marketplace.service.CurrentUserService;
 import jakarta.validation.Valid;
+import az.marketplace.util.ConditionalGet;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.List;
 
@@ -18,10 +21,12 @@ public class CategoryController {
 
     private final CategoryService categoryService;
     private final CurrentUserService currentUserService;
+    private final CatalogVersions catalogVersions;
 
-    // hamıya açıq
+    // hamıya açıq; If-None-Match uyğun gəlsə 304
     @GetMapping
-    public ResponseEntity<List<CategoryResponse>> getAll() {
+    public ResponseEntity<List<CategoryResponse>> getAll(ServletWebRequest request) {
+        if (ConditionalGet.notModified(request, catalogVersions.categories())) return null;
         return ResponseEntity.ok(categoryService.getAllCategories());
     }
 
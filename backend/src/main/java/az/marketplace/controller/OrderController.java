@@ -1,6 +1,11 @@
 package az.marketplace.controller;
 
 import az.marketplace.dto.order.CancelOrderRequest;
+import az.marketplace.dto.order.CustomerOrderPageRequest;
+import az.marketplace.dto.order.MerchantOrderPageRequest;
+import az.marketplace.dto.order.OrderBulkStatusRequest;
+import az.marketplace.dto.order.OrderBulkStatusResponse;
+import az.marketplace.dto.order.OrderPageResponse;
 import az.marketplace.dto.order.OrderResponse;
 import az.marketplace.dto.order.UpdateOrderStatusRequest;
 import az.marketplace.entity.Customer;
@@ -33,12 +38,36 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getOrdersForCustomer(customer));
     }
 
+    // Səhifələnmiş tarixçə: /orders?limit=20&status=...&cursor=...
+    @GetMapping(value = "/orders", params = "limit")
+    public ResponseEntity<OrderPageResponse> getCustomerOrderPage(@Valid @ModelAttribute CustomerOrderPageRequest req) {
+        Customer customer = currentUserService.getCurrentCustomerOrThrow();
+        return ResponseEntity.ok(orderService.getCustomerOrderPage(customer, req));
+    }
+
     @GetMapping("/merchant/orders")
     public ResponseEntity<List<OrderResponse>> getMerchantOrders() {
         Merchant merchant = currentUserService.getCurrentMerchantOrThrow();
         return ResponseEntity.ok(orderService.getOrdersForMerchant(merchant));
     }
 
+    // Səhifələnmiş inbox: /merchant/orders?limit=20&status=...&from=...&to=...&cursor=...
+    @GetMapping(value = "/merchant/orders", params = "limit")
+    public ResponseEntity<OrderPageResponse> getMerchantOrderPage(@Valid @ModelAttribute MerchantOrderPageRequest req) {
+        Merchant merchant = currentUserService.getCurrentMerchantOrThrow();
+        return ResponseEntity.ok(orderService.getMerchantOrderPage(merchant, req));
+    }
+
+    // Bulk status dəyişikliyi (max 500 sifariş); PATCH və POST, tək endpoint kimi
+    @RequestMapping(
+            path = "/merchant/orders/bulk/status",
+            method = { RequestMethod.PATCH, RequestMethod.POST }
+    )
+    public ResponseEntity<OrderBulkStatusResponse> updateStatuses(@Valid @RequestBody OrderBulkStatusRequest req) {
+        Merchant merchant = currentUserService.getCurrentMerchantOrThrow();
+        return ResponseEntity.ok(orderService.updateOrderStatuses(merchant, req));
+    }
+
     // Merchant status update: allow both PATCH and POST (PATCH can be blocked in some setups)
     @RequestMapping(
             path = "/merchant/orders/{orderId}/status",
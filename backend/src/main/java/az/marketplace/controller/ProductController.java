@@ -1,21 +1,41 @@
 package az.marketplace.controller;
 
+import az.marketplace.dto.product.ProductBulkUpdateRequest;
+import az.marketplace.dto.product.ProductBulkUpdateResponse;
+import az.marketplace.dto.product.ProductFacetResponse;
+import az.marketplace.dto.product.ProductImportResponse;
+import az.marketplace.dto.product.ProductLookupRequest;
+import az.marketplace.dto.product.ProductPageRequest;
+import az.marketplace.dto.product.ProductPageResponse;
 import az.marketplace.dto.product.ProductRequest;
 import az.marketplace.dto.product.ProductResponse;
+import az.marketplace.dto.product.ProductSummaryPageResponse;
+import az.marketplace.dto.product.ProductSummaryResponse;
 import az.marketplace.dto.product.ProductPhotoResponse;
+import az.marketplace.dto.product.StockShardsRequest;
 import az.marketplace.entity.Merchant;
+import az.marketplace.service.CatalogVersions;
 import az.marketplace.service.CurrentUserService;
+import az.marketplace.service.ProductExportService;
+import az.marketplace.service.ProductImportService;
 import az.marketplace.service.ProductService;
 import az.marketplace.service.ProductPhotoService;
+import az.marketplace.service.ProductSummaryService;
+import az.marketplace.util.ConditionalGet;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.util.List;
 
@@ -27,16 +47,101 @@ public class ProductController {
     private final ProductService productService;
     private final CurrentUserService currentUserService;
     private final ProductPhotoService productPhotoService;
+    private final ProductExportService productExportService;
+    private final ProductImportService productImportService;
+    private final ProductSummaryService productSummaryService;
+    private final CatalogVersions catalogVersions;
 
-    // GET /products  → public
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String CSV = "text/csv";
+
+    // GET uç nöqtələri ETag / Last-Modified qaytarır; If-None-Match uyğun gəlsə 304 (body-siz)
+
+    // GET /products?categoryId=&merchantId= → public, listing səhifələri üçün product_summary sətirləri (ən yenilər əvvəl)
     @GetMapping
-    public ResponseEntity<List<ProductResponse>> getAll() {
-        return ResponseEntity.ok(productService.getAllProducts());
+    public ResponseEntity<List<ProductSummaryResponse>> getAll(
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Long merchantId,
+            ServletWebRequest request
+    ) {
+        if (ConditionalGet.notModified(request, catalogVersions.products())) return null;
+        return ResponseEntity.ok(productSummaryService.getAll(categoryId, merchantId));
+    }
+
+    // GET /products?limit=20&cursor=...&categoryId=&merchantId=&minPrice=&maxPrice=&sort=price&direction=asc
+    // → public, keyset səhifələmə (limit verildikdə aktivdir)
+    @GetMapping(params = {"limit", "!ids"})
+    public ResponseEntity<ProductPageResponse> getPage(@Valid @ModelAttribute ProductPageRequest req,
+                                                       ServletWebRequest request) {
+        if (ConditionalGet.notModified(request, catalogVersions.products())) return null;
+        return ResponseEntity.ok(productService.getProductPage(req));
+    }
+
+    // GET /products?ids=3,1,2 → public, bir sorğu ilə bir neçə məhsul (sorğu sırası ilə)
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<ProductResponse>> getByIds(@RequestParam List<Long> ids, ServletWebRequest request) {
+        if (ConditionalGet.notModified(request, catalogVersions.products())) return null;
+        return ResponseEntity.ok(productService.getByIds(ids));
+    }
+
+    // POST /products/lookup → public, uzun id siyahıları üçün eyni əməliyyat
+    @PostMapping("/lookup")
+    public ResponseEntity<List<ProductResponse>> lookup(@Valid @RequestBody ProductLookupRequest req) {
+        return ResponseEntity.ok(productService.getByIds(req.getIds()));
+    }
+
+    // GET /products/export → public, bütün kataloq NDJSON axını kimi (hər sətir bir məhsul)
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> export() {
+        StreamingResponseBody body = productExportService::exportNdjson;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+
+    // GET /products/search?q=...&limit=20 → public, relevance sırası ilə
+    @GetMapping("/search")
+    public ResponseEntity<List<ProductResponse>> search(
+            @RequestParam("q") String query,
+            @RequestParam(value = "limit", defaultValue = "20") int limit,
+            ServletWebRequest request
+    ) {
+        if (ConditionalGet.notModified(request, catalogVersions.products())) return null;
+        return ResponseEntity.ok(productService.search(query, limit));
+    }
+
+    // GET /products/facets?categoryId=&merchantId=&priceBucket=100-500&inStock=true&limit=50 → public
+    @GetMapping("/facets")
+    public ResponseEntity<ProductFacetResponse> facets(
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Long merchantId,
+            @RequestParam(required = false) String priceBucket,
+            @RequestParam(value = "inStock", defaultValue = "false") boolean inStock,
+            @RequestParam(required = false) Integer limit,
+            ServletWebRequest request
+    ) {
+        if (ConditionalGet.notModified(request, catalogVersions.products())) return null;
+        return ResponseEntity.ok(productService.getFacets(categoryId, merchantId, priceBucket, inStock, limit));
+    }
+
+    // GET /products/summaries?categoryId=&merchantId=&cursor=&limit=20 → public, yüngül siyahı (ən yenilər əvvəl)
+    @GetMapping("/summaries")
+    public ResponseEntity<ProductSummaryPageResponse> summaries(
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Long merchantId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            ServletWebRequest request
+    ) {
+        if (ConditionalGet.notModified(request, catalogVersions.products())) return null;
+        return ResponseEntity.ok(productSummaryService.getPage(categoryId, merchantId, cursor, limit));
     }
 
     // GET /products/{id} → public
     @GetMapping("/{id}")
-    public ResponseEntity<ProductResponse> getOne(@PathVariable Long id) {
+    public ResponseEntity<ProductResponse> getOne(@PathVariable Long id, ServletWebRequest request) {
+        // 304 halında məhsul nə yüklənir, nə serializasiya olunur
+        if (ConditionalGet.notModified(request, productService.getVersion(id))) return null;
         return ResponseEntity.ok(productService.getById(id));
     }
 
@@ -51,6 +156,30 @@ public class ProductController {
         return ResponseEntity.ok(productService.createProduct(req, images, merchant));
     }
 
+    // POST /products/import (body: CSV başlıqlı fayl və ya NDJSON) → only MERCHANT
+    // Hər sətir ayrıca yoxlanır; cavabda sətir nömrəsi ilə xəta hesabatı qaytarılır
+    @PostMapping(value = "/import", consumes = {CSV, NDJSON})
+    @PreAuthorize("hasRole('MERCHANT')")
+    public ResponseEntity<ProductImportResponse> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body
+    ) throws IOException {
+        Merchant merchant = currentUserService.getCurrentMerchantOrThrow();
+        ProductImportService.Format format = MediaType.parseMediaType(contentType)
+                .isCompatibleWith(MediaType.parseMediaType(CSV))
+                ? ProductImportService.Format.CSV
+                : ProductImportService.Format.NDJSON;
+        return ResponseEntity.ok(productImportService.importProducts(body, format, merchant));
+    }
+
+    // PATCH /products/bulk → only MERCHANT; qiymət və/və ya stok (mütləq dəyər və ya delta), max 1000 məhsul
+    @PatchMapping("/bulk")
+    @PreAuthorize("hasRole('MERCHANT')")
+    public ResponseEntity<ProductBulkUpdateResponse> bulkUpdate(@Valid @RequestBody ProductBulkUpdateRequest req) {
+        Merchant merchant = currentUserService.getCurrentMerchantOrThrow();
+        return ResponseEntity.ok(productService.bulkUpdate(req, merchant));
+    }
+
     // PUT /products/{id} → only MERCHANT
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('MERCHANT')")
@@ -62,6 +191,17 @@ public class ProductController {
         return ResponseEntity.ok(productService.updateProduct(id, req, merchant));
     }
 
+    // PUT /products/{id}/stock-shards → only MERCHANT; flash-sale üçün stoku N sətrə bölür (0/1 → adi rejim)
+    @PutMapping("/{id}/stock-shards")
+    @PreAuthorize("hasRole('MERCHANT')")
+    public ResponseEntity<ProductResponse> setStockShards(
+            @PathVariable Long id,
+            @Valid @RequestBody StockShardsRequest req
+    ) {
+        Merchant merchant = currentUserService.getCurrentMerchantOrThrow();
+        return ResponseEntity.ok(productService.setStockShards(id, req, merchant));
+    }
+
     // DELETE /products/{id} → only MERCHANT
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('MERCHANT')")
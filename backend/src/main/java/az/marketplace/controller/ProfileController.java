@@ -4,7 +4,9 @@ import az.marketplace.dto.customer.CustomerProfileResponse;
 import az.marketplace.dto.merchant.MerchantProfileResponse;
 import az.marketplace.entity.Customer;
 import az.marketplace.entity.Merchant;
+import az.marketplace.service.BalanceService;
 import az.marketplace.service.CurrentUserService;
+import az.marketplace.util.Money;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -15,11 +17,13 @@ import org.springframework.web.bind.annotation.RestController;
 public class ProfileController {
 
     private final CurrentUserService currentUserService;
+    private final BalanceService balanceService;
 
     @GetMapping("/me")
     public ResponseEntity<CustomerProfileResponse> getCurrentCustomer() {
         Customer customer = currentUserService.getCurrentCustomerOrThrow();
-        return ResponseEntity.ok(CustomerProfileResponse.from(customer));
+        Money balance = balanceService.currentBalance(customer.getId());
+        return ResponseEntity.ok(CustomerProfileResponse.from(customer, balance));
     }
 
     @GetMapping("/merchant/me")
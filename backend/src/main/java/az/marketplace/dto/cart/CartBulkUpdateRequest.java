@@ -0,0 +1,45 @@
+package az.marketplace.dto.cart;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartBulkUpdateRequest {
+
+    @NotEmpty
+    @Size(max = 100)
+    private List<@Valid @NotNull Item> items;
+
+    // SET - yeni say (0 → sətir silinir), INCREMENT - cari saya əlavə (mənfi ola bilər), REMOVE - sətri sil
+    public enum Op {
+        SET, INCREMENT, REMOVE
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+
+        @NotNull
+        private Long productId;
+
+        @NotNull
+        private Op op;
+
+        // SET və INCREMENT üçün məcburi
+        @Min(-10000)
+        @Max(10000)
+        private Integer count;
+    }
+}
@@ -1,7 +1,7 @@
 package az.marketplace.dto.cart;
 
+import az.marketplace.util.Money;
 import lombok.*;
-import java.math.BigDecimal;
 
 @Data
 @Builder
@@ -16,6 +16,10 @@ public class CartItemResponse {
 
     private Integer count;
 
-    private BigDecimal pricePerUnit;
-    private BigDecimal totalPrice;
+    private Money pricePerUnit;
+    private Money totalPrice;
+
+    // məhsulun hazırki stoku; count bundan çoxdursa checkout bu sətirdə uğursuz olacaq
+    private Integer stockCount;
+    private boolean exceedsStock;
 }
@@ -0,0 +1,5 @@
+package az.marketplace.dto.cart;
+
+// Səbət sətri: məhsul məlumatı olmadan (in-memory səbət üçün)
+public record CartLineRow(Long itemId, Long productId, Integer count) {
+}
@@ -0,0 +1,23 @@
+package az.marketplace.dto.cart;
+
+import az.marketplace.util.Money;
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartViewResponse {
+
+    private List<CartItemResponse> items;
+
+    // bütün sətirlərdəki ədədlərin cəmi
+    private int itemCount;
+
+    private Money grandTotal;
+
+    // count > stockCount olan sətirlər
+    private List<Long> overStockItemIds;
+}
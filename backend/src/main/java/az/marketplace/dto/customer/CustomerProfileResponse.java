@@ -1,12 +1,12 @@
 package az.marketplace.dto.customer;
 
 import az.marketplace.entity.Customer;
+import az.marketplace.util.Money;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
@@ -19,16 +19,17 @@ public class CustomerProfileResponse {
     private String name;
     private String surname;
     private String email;
-    private BigDecimal balance;
+    private Money balance;
     private LocalDateTime createdAt;
 
-    public static CustomerProfileResponse from(Customer customer) {
+    // balance: BalanceService.currentBalance (customers.balance yalnız snapshot-dur)
+    public static CustomerProfileResponse from(Customer customer, Money balance) {
         return CustomerProfileResponse.builder()
                 .id(customer.getId())
                 .name(customer.getUser().getName())
                 .surname(customer.getUser().getSurname())
                 .email(customer.getUser().getEmail())
-                .balance(customer.getBalance())
+                .balance(balance)
                 .createdAt(customer.getCreatedAt())
                 .build();
     }
@@ -0,0 +1,22 @@
+package az.marketplace.dto.order;
+
+import az.marketplace.entity.enums.OrderStatus;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerOrderPageRequest {
+
+    private OrderStatus status;
+
+    // əvvəlki cavabdakı nextCursor
+    private String cursor;
+
+    @Min(1)
+    @Max(100)
+    private Integer limit;
+}
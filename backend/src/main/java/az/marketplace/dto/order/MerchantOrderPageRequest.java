@@ -0,0 +1,32 @@
+package az.marketplace.dto.order;
+
+import az.marketplace.entity.enums.OrderStatus;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.*;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MerchantOrderPageRequest {
+
+    private OrderStatus status;
+
+    // [from, to) - ISO, məs. 2024-05-01T00:00:00
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+
+    // əvvəlki cavabdakı nextCursor
+    private String cursor;
+
+    @Min(1)
+    @Max(100)
+    private Integer limit;
+}
@@ -0,0 +1,26 @@
+package az.marketplace.dto.order;
+
+import az.marketplace.entity.enums.OrderStatus;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderBulkStatusRequest {
+
+    @NotEmpty
+    @Size(max = 500)
+    private List<@NotNull Long> orderIds;
+
+    @NotNull
+    private OrderStatus status;
+
+    // optional, yalnız REJECT_BY_MERCHANT üçün
+    private String rejectReason;
+}
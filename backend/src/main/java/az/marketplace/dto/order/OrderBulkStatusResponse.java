@@ -0,0 +1,15 @@
+package az.marketplace.dto.order;
+
+import lombok.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderBulkStatusResponse {
+
+    private int updated;
+
+    // balansı geri qaytarılan müştərilərin sayı
+    private int refundedCustomers;
+}
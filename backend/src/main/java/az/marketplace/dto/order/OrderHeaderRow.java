@@ -0,0 +1,16 @@
+package az.marketplace.dto.order;
+
+import az.marketplace.entity.enums.OrderStatus;
+import az.marketplace.util.Money;
+
+import java.time.LocalDateTime;
+
+// Sifariş siyahıları üçün projection (entity yüklənmir)
+public record OrderHeaderRow(
+        Long orderId,
+        Long merchantId,
+        String merchantCompanyName,
+        Money totalAmount,
+        OrderStatus status,
+        LocalDateTime createdAt
+) {}
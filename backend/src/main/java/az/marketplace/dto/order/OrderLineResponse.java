@@ -0,0 +1,19 @@
+package az.marketplace.dto.order;
+
+import az.marketplace.util.Money;
+import lombok.*;
+
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderLineResponse {
+
+    private Long productId;
+    private String productName;
+
+    private Integer count;
+    private Money unitPrice;
+    private Money lineTotal;
+}
@@ -0,0 +1,13 @@
+package az.marketplace.dto.order;
+
+import az.marketplace.util.Money;
+
+// Səhifədəki bütün sifarişlərin sətirləri məhsul adı ilə bir sorğuda
+public record OrderLineRow(
+        Long orderId,
+        Long productId,
+        String productName,
+        Integer count,
+        Money unitPrice,
+        Money lineTotal
+) {}
@@ -0,0 +1,19 @@
+package az.marketplace.dto.order;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPageResponse {
+
+    private List<OrderResponse> items;
+
+    // növbəti səhifə üçün; son səhifədə null
+    private String nextCursor;
+
+    private boolean hasMore;
+}
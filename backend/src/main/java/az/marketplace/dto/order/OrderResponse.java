@@ -1,10 +1,11 @@
 package az.marketplace.dto.order;
 
 import az.marketplace.entity.enums.OrderStatus;
+import az.marketplace.util.Money;
 import lombok.*;
 
 import java.time.LocalDateTime;
-import java.math.BigDecimal;
+import java.util.List;
 
 @Data
 @Builder
@@ -14,11 +15,14 @@ public class OrderResponse {
 
     private Long orderId;
 
-    private Long productId;
-    private String productName;
+    private Long merchantId;
+    private String merchantCompanyName;
 
-    private Integer count;
-    private BigDecimal totalAmount;
+    private List<OrderLineResponse> lines;
+
+    // bütün sətirlərdəki ədədlərin cəmi
+    private Integer itemCount;
+    private Money totalAmount;
 
     private OrderStatus status;
 
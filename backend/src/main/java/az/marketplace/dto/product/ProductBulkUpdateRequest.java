@@ -0,0 +1,47 @@
+package az.marketplace.dto.product;
+
+import az.marketplace.util.Money;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBulkUpdateRequest {
+
+    @NotEmpty
+    @Size(max = 1000)
+    private List<@Valid @NotNull Item> items;
+
+    // price / stockCount - yeni dəyər; stockDelta - cari stoka əlavə (mənfi ola bilər)
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+
+        @NotNull
+        private Long productId;
+
+        @DecimalMin(value = "0.00")
+        @DecimalMax(value = Money.MAX)
+        @Digits(integer = 17, fraction = 2)
+        private BigDecimal price;
+
+        @Min(0)
+        private Integer stockCount;
+
+        private Integer stockDelta;
+    }
+}
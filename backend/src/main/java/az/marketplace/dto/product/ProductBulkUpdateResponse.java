@@ -0,0 +1,12 @@
+package az.marketplace.dto.product;
+
+import lombok.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBulkUpdateResponse {
+
+    private int updated;
+}
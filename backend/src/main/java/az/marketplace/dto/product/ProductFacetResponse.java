@@ -0,0 +1,25 @@
+package az.marketplace.dto.product;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFacetResponse {
+
+    // filterə uyğun məhsul sayı
+    private int total;
+
+    // hər facet öz filtri nəzərə alınmadan sayılır (digər filtrlər tətbiq olunur)
+    private Map<Long, Integer> categories;
+    private Map<Long, Integer> merchants;
+    private Map<String, Integer> priceBuckets;
+    private int inStock;
+
+    // uyğun məhsulların ilk id-ləri (artan sıra ilə)
+    private List<Long> productIds;
+}
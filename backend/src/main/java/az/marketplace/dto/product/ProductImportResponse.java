@@ -0,0 +1,24 @@
+package az.marketplace.dto.product;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportResponse {
+
+    private int totalRows;
+    private int imported;
+    private int failed;
+
+    // ilk MAX_REPORTED_ERRORS xəta; qalanları yalnız failed sayına düşür
+    private List<RowError> errors;
+    private boolean errorsTruncated;
+
+    // row: 1-dən başlayan data sətri nömrəsi (CSV başlığı sayılmır)
+    public record RowError(int row, String message) {
+    }
+}
@@ -0,0 +1,22 @@
+package az.marketplace.dto.product;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+// Import faylının bir sətri (CSV sütunları və ya NDJSON sahələri eyni adlarla)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportRow {
+
+    private String name;
+    private String details;
+    private BigDecimal price;
+    private Integer stockCount;
+
+    // categoryId və ya categoryName - biri kifayətdir
+    private Long categoryId;
+    private String categoryName;
+}
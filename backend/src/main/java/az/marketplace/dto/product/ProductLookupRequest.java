@@ -0,0 +1,19 @@
+package az.marketplace.dto.product;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+// POST /products/lookup - query string-ə sığmayan uzun id siyahıları üçün
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductLookupRequest {
+
+    @NotNull
+    @Size(max = 1000)
+    private List<@NotNull Long> ids;
+}
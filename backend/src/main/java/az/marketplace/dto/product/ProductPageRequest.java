@@ -0,0 +1,37 @@
+package az.marketplace.dto.product;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPageRequest {
+
+    private Long categoryId;
+    private Long merchantId;
+
+    @DecimalMin(value = "0.00")
+    private BigDecimal minPrice;
+
+    @DecimalMin(value = "0.00")
+    private BigDecimal maxPrice;
+
+    // createdAt | price | id
+    private String sort;
+
+    // asc | desc
+    private String direction;
+
+    // əvvəlki cavabdakı nextCursor
+    private String cursor;
+
+    @Min(1)
+    @Max(100)
+    private Integer limit;
+}
@@ -0,0 +1,19 @@
+package az.marketplace.dto.product;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPageResponse {
+
+    private List<ProductResponse> items;
+
+    // növbəti səhifə üçün; son səhifədə null
+    private String nextCursor;
+
+    private boolean hasMore;
+}
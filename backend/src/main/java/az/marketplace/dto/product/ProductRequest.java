@@ -1,7 +1,10 @@
 package az.marketplace.dto.product;
 
+import az.marketplace.util.Money;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.DecimalMax;
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
@@ -24,6 +27,8 @@ public class ProductRequest {
 
     @NotNull
     @DecimalMin(value = "0.00")
+    @DecimalMax(value = Money.MAX)
+    @Digits(integer = 17, fraction = 2)
     private BigDecimal price;
 
     @NotNull
@@ -1,9 +1,9 @@
 package az.marketplace.dto.product;
 
+import az.marketplace.util.Money;
 import lombok.*;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.math.BigDecimal;
 
 @Data
 @Builder
@@ -14,7 +14,7 @@ public class ProductResponse {
     private Long id;
     private String name;
     private String details;
-    private BigDecimal price;
+    private Money price;
     private Integer stockCount;
 
     private Long merchantId;
@@ -27,4 +27,7 @@ public class ProductResponse {
 
     // NEW badge üçün
     private LocalDateTime createdAt;
+
+    // ETag / Last-Modified mənbəyi
+    private LocalDateTime updatedAt;
 }
@@ -0,0 +1,34 @@
+package az.marketplace.dto.product;
+
+import java.util.Locale;
+
+// Keyset səhifələmə üçün icazə verilən sıralama sahələri
+public enum ProductSortField {
+    CREATED_AT("createdAt", false),
+    PRICE("price", true),
+    ID("id", true);
+
+    private final String param;
+    private final boolean ascendingByDefault;
+
+    ProductSortField(String param, boolean ascendingByDefault) {
+        this.param = param;
+        this.ascendingByDefault = ascendingByDefault;
+    }
+
+    public boolean isAscendingByDefault() {
+        return ascendingByDefault;
+    }
+
+    public static ProductSortField from(String value) {
+        if (value == null || value.isBlank()) {
+            return CREATED_AT;
+        }
+        for (ProductSortField field : values()) {
+            if (field.param.equalsIgnoreCase(value) || field.name().equalsIgnoreCase(value)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported sort field: " + value.toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,6 @@
+package az.marketplace.dto.product;
+
+public record ProductStockLevel(
+        Long productId,
+        Integer stockCount
+) {}
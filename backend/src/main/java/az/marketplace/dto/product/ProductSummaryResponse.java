@@ -0,0 +1,19 @@
+package az.marketplace.dto.product;
+
+import az.marketplace.util.Money;
+
+import java.time.LocalDateTime;
+
+public record ProductSummaryResponse(
+        Long id,
+        String name,
+        Money price,
+        Integer stockCount,
+        Long merchantId,
+        String merchantCompanyName,
+        Long categoryId,
+        String categoryName,
+        String firstPhotoUrl,
+        Integer photoCount,
+        LocalDateTime createdAt
+) {}
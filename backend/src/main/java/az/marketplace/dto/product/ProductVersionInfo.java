@@ -0,0 +1,8 @@
+package az.marketplace.dto.product;
+
+import java.time.LocalDateTime;
+
+public record ProductVersionInfo(
+        LocalDateTime updatedAt,
+        Integer stockCount
+) {}
@@ -0,0 +1,19 @@
+package az.marketplace.dto.product;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+// PUT /products/{id}/stock-shards - 0 və ya 1 → adi rejim
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockShardsRequest {
+
+    @NotNull
+    @Min(0)
+    @Max(64)
+    private Integer shards;
+}
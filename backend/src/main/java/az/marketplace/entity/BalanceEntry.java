@@ -0,0 +1,43 @@
+package az.marketplace.entity;
+
+import az.marketplace.entity.enums.BalanceEntryType;
+import az.marketplace.util.Money;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Balans jurnalının dəyişməz sətri; yalnız BalanceEntryRepository.append ilə yazılır
+@Entity
+@Table(name = "balance_entries")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "customer_id", nullable = false, updatable = false)
+    private Long customerId;
+
+    // müştəri daxilində ardıcıllıq nömrəsi
+    @Column(nullable = false, updatable = false)
+    private Long seq;
+
+    // + mədaxil (refund), - məxaric (sifariş)
+    @Column(nullable = false, precision = 19, scale = 2, updatable = false)
+    private Money amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false, length = 30, updatable = false)
+    private BalanceEntryType entryType;
+
+    @Column(length = 64, updatable = false)
+    private String reference;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,41 @@
+package az.marketplace.entity;
+
+import az.marketplace.entity.enums.BalanceHoldStatus;
+import az.marketplace.util.Money;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Sifariş üçün balans hold-u; pul jurnalda HOLD sətri ilə artıq çıxılıb, burada yalnız həyat dövrü saxlanılır
+@Entity
+@Table(name = "balance_holds")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceHold {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    @Column(name = "order_id", nullable = false, unique = true)
+    private Long orderId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private Money amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private BalanceHoldStatus status;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "settled_at")
+    private LocalDateTime settledAt;
+}
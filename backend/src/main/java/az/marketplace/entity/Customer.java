@@ -24,9 +24,14 @@ public class Customer {
     @JoinColumn(name = "user_id", nullable = false, unique = true)
     private User user;
 
-    @Column(nullable = false, precision = 19, scale = 2)
+    // balance_seq-ə qədər jurnal sətirlərinin snapshot-u; cari balans üçün BalanceService.currentBalance.
+    // Yalnız compaction (native UPDATE) dəyişir → entity save onu əzə bilməz
+    @Column(nullable = false, precision = 19, scale = 2, updatable = false)
     private BigDecimal balance;
 
+    @Column(name = "balance_seq", nullable = false, updatable = false)
+    private Long balanceSeq;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
@@ -50,5 +55,8 @@ public class Customer {
         if (this.balance == null) {
             this.balance = BigDecimal.ZERO;
         }
+        if (this.balanceSeq == null) {
+            this.balanceSeq = 0L;
+        }
     }
 }
@@ -0,0 +1,39 @@
+package az.marketplace.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Idempotency-Key ilə icra olunmuş sorğunun saxlanmış cavabı; statusCode null → hələ icra olunur
+@Entity
+@Table(name = "idempotency_keys")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyKey {
+
+    @Id
+    @Column(name = "key_hash", length = 64)
+    private String keyHash;
+
+    // body-nin sha256-sı: eyni açar fərqli body ilə gəlsə cavab replay olunmur
+    @Column(name = "request_hash", length = 64)
+    private String requestHash;
+
+    @Column(name = "status_code")
+    private Integer statusCode;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -1,11 +1,15 @@
 package az.marketplace.entity;
 
 import az.marketplace.entity.enums.OrderStatus;
+import az.marketplace.util.Money;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import java.time.LocalDateTime;
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 
+// Sifariş başlığı: bir checkout-da hər merchant üçün bir sifariş, məhsullar lines-da
 @Entity
 @Table(name = "orders")
 @Data
@@ -25,18 +29,24 @@ public class Order {
     @EqualsAndHashCode.Exclude
     private Customer customer;
 
-    // hansı məhsulu sifariş edib
+    // hansı merchant-ın məhsullarıdır (status dəyişikliyi bütün sifariş üçündür)
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
-    @JoinColumn(name = "product_id", nullable = false)
-    private Product product;
+    @JoinColumn(name = "merchant_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Merchant merchant;
 
-    // neçə ədəd
-    @Column(nullable = false)
-    private Integer count;
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
+    @OrderBy("id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Builder.Default
+    private List<OrderLine> lines = new ArrayList<>();
 
-    // ümumi məbləğ = price * count (order yaradılan anda hesablanır)
+    // ümumi məbləğ = sətirlərin cəmi (order yaradılan anda bir dəfə hesablanır)
     @Column(name = "total_amount", nullable = false, precision = 19, scale = 2)
-    private BigDecimal totalAmount;
+    private Money totalAmount;
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
@@ -45,6 +55,11 @@ public class Order {
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
+    public void addLine(OrderLine line) {
+        line.setOrder(this);
+        lines.add(line);
+    }
+
     @PrePersist
     private void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,41 @@
+package az.marketplace.entity;
+
+import az.marketplace.util.Money;
+import jakarta.persistence.*;
+import lombok.*;
+
+
+@Entity
+@Table(name = "order_lines")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderLine {
+
+    // Sequence (pooled, 50-lik blok): bir sifarişin sətirləri bir JDBC batch-də yazılır
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_line_seq")
+    @SequenceGenerator(name = "order_line_seq", sequenceName = "order_lines_id_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Order order;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", nullable = false)
+    private Product product;
+
+    @Column(nullable = false)
+    private Integer count;
+
+    // sifariş anındakı qiymət
+    @Column(name = "unit_price", nullable = false, precision = 19, scale = 2)
+    private Money unitPrice;
+
+    @Column(name = "line_total", nullable = false, precision = 19, scale = 2)
+    private Money lineTotal;
+}
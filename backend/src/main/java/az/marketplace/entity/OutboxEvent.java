@@ -0,0 +1,52 @@
+package az.marketplace.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Commit-dən sonra emal olunacaq hadisə (bir handler üçün); uğurla emal olunduqda silinir
+@Entity
+@Table(name = "outbox_events")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String eventType;
+
+    @Column(nullable = false, length = 100)
+    private String handler;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    // max-attempts dolub: hadisə artıq götürülmür (dead letter)
+    @Column(name = "dead_at")
+    private LocalDateTime deadAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    private void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (availableAt == null) availableAt = createdAt;
+        if (attempts == null) attempts = 0;
+    }
+}
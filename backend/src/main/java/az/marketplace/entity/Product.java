@@ -1,9 +1,12 @@
 package az.marketplace.entity;
 
+import az.marketplace.util.Money;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Formula;
 import java.time.LocalDateTime;
-import java.math.BigDecimal;
 import java.util.List;
 
 @Entity
@@ -14,8 +17,10 @@ import java.util.List;
 @AllArgsConstructor
 public class Product {
 
+    // Sequence (pooled, 50-lik blok): IDENTITY insert-ləri JDBC batch-i söndürür
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "products_id_seq", allocationSize = 50)
     private Long id;
 
     // Hansi kateqoriyadadir
@@ -35,19 +40,35 @@ public class Product {
     private String details;
 
     @Column(nullable = false, precision = 19, scale = 2)
-    private BigDecimal price;
+    private Money price;
 
     @Column(nullable = false)
     private Integer stockCount;
 
+    // Səbət rezervləri; yalnız InventoryService-in şərtli SQL-i ilə dəyişir (entity save onu yazmır)
+    @Column(name = "reserved_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private Integer reservedCount;
+
+    // > 1 → stok product_stock_buckets-dədir (stock_count/reserved_count burada 0 qalır); InventoryService dəyişir
+    @Column(name = "stock_shards", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private Integer stockShards;
+
+    // Bucket-lərdəki stok (adi rejimdə 0); göstərilən stok = stockCount + shardedStock
+    @Formula("(CASE WHEN stock_shards > 1 THEN (SELECT COALESCE(SUM(b.stock_count), 0) "
+            + "FROM product_stock_buckets b WHERE b.product_id = id) ELSE 0 END)")
+    private Integer shardedStock;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
-    // Şəkillər
+    // Şəkillər (siyahı səhifələrində bir neçə məhsul üçün bir sorğu ilə yüklənir)
     @OneToMany(mappedBy = "product", fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
     private List<ProductPhoto> photos;
@@ -12,8 +12,10 @@ import lombok.*;
 @AllArgsConstructor
 public class ProductPhoto {
 
+    // Sequence (pooled, 50-lik blok): IDENTITY insert-ləri JDBC batch-i söndürür
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_photo_seq")
+    @SequenceGenerator(name = "product_photo_seq", sequenceName = "product_photos_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
@@ -0,0 +1,32 @@
+package az.marketplace.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Sharded stock rejimində məhsul stokunun bir hissəsi
+@Entity
+@Table(name = "product_stock_buckets",
+        uniqueConstraints = @UniqueConstraint(name = "uk_product_stock_buckets_product_bucket",
+                columnNames = {"product_id", "bucket_no"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductStockBucket {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "bucket_no", nullable = false)
+    private Integer bucketNo;
+
+    @Column(name = "stock_count", nullable = false)
+    private Integer stockCount;
+
+    @Column(name = "reserved_count", nullable = false)
+    private Integer reservedCount;
+}
@@ -0,0 +1,47 @@
+package az.marketplace.entity;
+
+import az.marketplace.util.Money;
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+// Siyahı səhifələri üçün denormalizə olunmuş oxuma modeli (products ilə eyni id)
+@Entity
+@Table(name = "product_summary")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSummary {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "merchant_id", nullable = false)
+    private Long merchantId;
+
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private Money price;
+
+    @Column(name = "merchant_company_name", nullable = false)
+    private String merchantCompanyName;
+
+    @Column(name = "category_name", nullable = false)
+    private String categoryName;
+
+    @Column(name = "first_photo_url", length = 500)
+    private String firstPhotoUrl;
+
+    @Column(name = "photo_count", nullable = false)
+    private Integer photoCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,41 @@
+package az.marketplace.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Səbətdəki məhsul üçün müvəqqəti stok rezervi (cart + product üzrə bir sətir)
+@Entity
+@Table(name = "stock_holds",
+        uniqueConstraints = @UniqueConstraint(name = "uk_stock_holds_cart_product", columnNames = {"cart_id", "product_id"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockHold {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "cart_id", nullable = false)
+    private Long cartId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    private void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,9 @@
+package az.marketplace.entity.enums;
+
+public enum BalanceEntryType {
+    // köhnə birmərhələli checkout (hold-lardan əvvəlki sifarişlər)
+    ORDER_DEBIT,
+    HOLD,
+    HOLD_RELEASE,
+    REFUND
+}
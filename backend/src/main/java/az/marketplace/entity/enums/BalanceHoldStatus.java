@@ -0,0 +1,7 @@
+package az.marketplace.entity.enums;
+
+public enum BalanceHoldStatus {
+    AUTHORIZED,
+    CAPTURED,
+    RELEASED
+}
@@ -0,0 +1,9 @@
+package az.marketplace.exception;
+
+// Idempotency-Key əvvəl başqa body ilə istifadə olunub → 422
+public class IdempotencyKeyReuseException extends RuntimeException {
+
+    public IdempotencyKeyReuseException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,76 @@
+package az.marketplace.repository;
+
+import az.marketplace.entity.BalanceEntry;
+import az.marketplace.util.Money;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface BalanceEntryRepository extends JpaRepository<BalanceEntry, Long> {
+
+    /*
+     * Bir şərti INSERT: cari balans = snapshot + quyruq (seq > balance_seq), yeni seq = son seq + 1.
+     * Məxaric (amount < 0) yalnız balans çatırsa yazılır. Eyni seq-i paralel transaction tutubsa
+     * ON CONFLICT onun commit-ini gözləyir və 0 qaytarır → çağıran yenidən cəhd edir.
+     * 1 → yazıldı, 0 → balans çatmır və ya seq toqquşması.
+     */
+    default int append(Long customerId, Money amount, String entryType, String reference, LocalDateTime now) {
+        return appendMinor(customerId, amount.minorUnits(), entryType, reference, now);
+    }
+
+    // Məbləğ qəpiklə (Money.minorUnits) gedir: BigDecimal yaradılmır, NUMERIC-ə SQL-də çevrilir
+    @Modifying
+    @Query(value = """
+        INSERT INTO balance_entries (customer_id, seq, amount, entry_type, reference, created_at)
+        SELECT s.customer_id, s.last_seq + 1, CAST(:amountMinor AS BIGINT) * 0.01, :entryType, :reference, :now
+        FROM (
+            SELECT c.id AS customer_id,
+                   c.balance + COALESCE(SUM(e.amount), 0) AS balance,
+                   GREATEST(c.balance_seq, COALESCE(MAX(e.seq), 0)) AS last_seq
+            FROM customers c
+            LEFT JOIN balance_entries e ON e.customer_id = c.id AND e.seq > c.balance_seq
+            WHERE c.id = :customerId
+            GROUP BY c.id, c.balance, c.balance_seq
+        ) s
+        WHERE CAST(:amountMinor AS BIGINT) >= 0 OR s.balance + CAST(:amountMinor AS BIGINT) * 0.01 >= 0
+        ON CONFLICT (customer_id, seq) DO NOTHING
+    """, nativeQuery = true)
+    int appendMinor(@Param("customerId") Long customerId, @Param("amountMinor") long amountMinor,
+                    @Param("entryType") String entryType, @Param("reference") String reference,
+                    @Param("now") LocalDateTime now);
+
+    @Query(value = """
+        SELECT c.balance + COALESCE((
+            SELECT SUM(e.amount) FROM balance_entries e
+            WHERE e.customer_id = c.id AND e.seq > c.balance_seq), 0)
+        FROM customers c
+        WHERE c.id = :customerId
+    """, nativeQuery = true)
+    Optional<BigDecimal> currentBalance(@Param("customerId") Long customerId);
+
+    /*
+     * Snapshot/compaction: quyruğu minTail-dən uzun olan müştərilər üçün quyruq snapshot-a köçürülür.
+     * Sətirlər silinmir (audit). "balance_seq = base_seq" şərti paralel compaction-un ikiqat saymasının qarşısını alır.
+     */
+    @Modifying
+    @Query(value = """
+        UPDATE customers c
+        SET balance = c.balance + t.total, balance_seq = t.last_seq
+        FROM (
+            SELECT c2.id AS customer_id, c2.balance_seq AS base_seq,
+                   SUM(e.amount) AS total, MAX(e.seq) AS last_seq
+            FROM customers c2
+            JOIN balance_entries e ON e.customer_id = c2.id AND e.seq > c2.balance_seq
+            GROUP BY c2.id, c2.balance_seq
+            HAVING COUNT(*) >= :minTail
+            LIMIT :batchSize
+        ) t
+        WHERE c.id = t.customer_id AND c.balance_seq = t.base_seq
+    """, nativeQuery = true)
+    int compact(@Param("minTail") int minTail, @Param("batchSize") int batchSize);
+}
@@ -0,0 +1,46 @@
+package az.marketplace.repository;
+
+import az.marketplace.entity.BalanceHold;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface BalanceHoldRepository extends JpaRepository<BalanceHold, Long> {
+
+    // Rədd olunan sifarişlərin açıq hold-ları; kilid capture batch-ı ilə yarışı bağlayır (o SKIP LOCKED istifadə edir)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+        SELECT h FROM BalanceHold h
+        WHERE h.orderId IN :orderIds
+          AND h.status = az.marketplace.entity.enums.BalanceHoldStatus.AUTHORIZED
+        ORDER BY h.id
+    """)
+    List<BalanceHold> lockAuthorized(@Param("orderIds") Collection<Long> orderIds);
+
+    /*
+     * Capture batch-ı: merchant qəbul edib/çatdırıb və ya hold autoCaptureBefore-dan köhnədir.
+     * Pul artıq HOLD sətri ilə çıxılıb → yalnız status dəyişir, jurnala yazı yoxdur.
+     */
+    @Modifying
+    @Query(value = """
+        UPDATE balance_holds SET status = 'CAPTURED', settled_at = :now
+        WHERE id IN (
+            SELECT h.id FROM balance_holds h
+            JOIN orders o ON o.id = h.order_id
+            WHERE h.status = 'AUTHORIZED'
+              AND (o.status IN ('ACCEPTED', 'DELIVERED') OR h.created_at < :autoCaptureBefore)
+            ORDER BY h.id
+            LIMIT :batchSize
+            FOR UPDATE OF h SKIP LOCKED
+        )
+    """, nativeQuery = true)
+    int captureBatch(@Param("autoCaptureBefore") LocalDateTime autoCaptureBefore,
+                     @Param("now") LocalDateTime now, @Param("batchSize") int batchSize);
+}
@@ -1,16 +1,34 @@
 package az.marketplace.repository;
 
+import az.marketplace.dto.cart.CartLineRow;
 import az.marketplace.entity.CartItem;
 import az.marketplace.entity.Cart;
 import az.marketplace.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
-public interface CartItemRepository extends JpaRepository<CartItem, Long> {
+public interface CartItemRepository extends JpaRepository<CartItem, Long>, CartItemRepositoryCustom {
 
     Optional<CartItem> findByCartAndProduct(Cart cart, Product product);
 
     List<CartItem> findByCart(Cart cart);
-}
\ No newline at end of file
+
+    // in-memory səbətin yüklənməsi: məhsul entity-ləri yüklənmir
+    @Query("""
+        SELECT new az.marketplace.dto.cart.CartLineRow(i.id, i.product.id, i.count)
+        FROM CartItem i
+        WHERE i.cart.id = :cartId
+        ORDER BY i.id
+    """)
+    List<CartLineRow> findLineRows(@Param("cartId") Long cartId);
+
+    @Modifying
+    @Query("DELETE FROM CartItem i WHERE i.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+}
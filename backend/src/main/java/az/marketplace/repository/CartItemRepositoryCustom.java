@@ -0,0 +1,12 @@
+package az.marketplace.repository;
+
+import java.util.Map;
+
+public interface CartItemRepositoryCustom {
+
+    // Bir UPDATE ... FROM (VALUES ...) ilə: item id → yeni say. Qaytarır: yenilənən sətir sayı
+    int updateCounts(Map<Long, Integer> countsByItemId);
+
+    // Bir multi-row INSERT ... RETURNING ilə yeni sətirlər: məhsul id → say. Qaytarır: məhsul id → item id
+    Map<Long, Long> insertLines(Long cartId, Map<Long, Integer> countsByProductId);
+}
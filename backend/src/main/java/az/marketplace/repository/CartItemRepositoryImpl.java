@@ -0,0 +1,87 @@
+package az.marketplace.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CartItemRepositoryImpl implements CartItemRepositoryCustom {
+
+    // hər statement-də 2 parametr/sətir; Postgres limiti 65535
+    private static final int CHUNK = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int updateCounts(Map<Long, Integer> countsByItemId) {
+        if (countsByItemId.isEmpty()) return 0;
+
+        List<Map.Entry<Long, Integer>> rows = new ArrayList<>(countsByItemId.entrySet());
+        int updated = 0;
+        for (int from = 0; from < rows.size(); from += CHUNK) {
+            updated += updateChunk(rows.subList(from, Math.min(from + CHUNK, rows.size())));
+        }
+        return updated;
+    }
+
+    // bulk PATCH /cart-dan gəlir (ən çox 100 sətir) - bir statement
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<Long, Long> insertLines(Long cartId, Map<Long, Integer> countsByProductId) {
+        if (countsByProductId.isEmpty()) return Map.of();
+
+        List<Map.Entry<Long, Integer>> rows = new ArrayList<>(countsByProductId.entrySet());
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < rows.size(); i++) {
+            if (i > 0) values.append(", ");
+            values.append("(CAST(:product").append(i).append(" AS BIGINT), ")
+                    .append("CAST(:count").append(i).append(" AS INTEGER))");
+        }
+
+        Query insert = entityManager.createNativeQuery("""
+                INSERT INTO cart_items (cart_id, product_id, count)
+                SELECT :cartId, v.product_id, v.count
+                FROM (VALUES %s) AS v(product_id, count)
+                RETURNING id, product_id
+                """.formatted(values));
+
+        insert.setParameter("cartId", cartId);
+        for (int i = 0; i < rows.size(); i++) {
+            insert.setParameter("product" + i, rows.get(i).getKey());
+            insert.setParameter("count" + i, rows.get(i).getValue());
+        }
+
+        Map<Long, Long> itemIds = new HashMap<>();
+        for (Object[] row : (List<Object[]>) insert.getResultList()) {
+            itemIds.put(((Number) row[1]).longValue(), ((Number) row[0]).longValue());
+        }
+        return itemIds;
+    }
+
+    private int updateChunk(List<Map.Entry<Long, Integer>> rows) {
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < rows.size(); i++) {
+            if (i > 0) values.append(", ");
+            values.append("(CAST(:id").append(i).append(" AS BIGINT), ")
+                    .append("CAST(:count").append(i).append(" AS INTEGER))");
+        }
+
+        Query update = entityManager.createNativeQuery("""
+                UPDATE cart_items i
+                SET count = v.count
+                FROM (VALUES %s) AS v(id, count)
+                WHERE i.id = v.id
+                """.formatted(values));
+
+        for (int i = 0; i < rows.size(); i++) {
+            update.setParameter("id" + i, rows.get(i).getKey());
+            update.setParameter("count" + i, rows.get(i).getValue());
+        }
+        return update.executeUpdate();
+    }
+}
@@ -3,10 +3,20 @@ package az.marketplace.repository;
 import az.marketplace.entity.Cart;
 import az.marketplace.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
 
     Optional<Cart> findByUser(User user);
-}
\ No newline at end of file
+
+    // write-behind: dəyişən səbətlərin updated_at-i bir sorğu ilə
+    @Modifying
+    @Query("UPDATE Cart c SET c.updatedAt = :now WHERE c.id IN :ids")
+    int touchAll(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+}
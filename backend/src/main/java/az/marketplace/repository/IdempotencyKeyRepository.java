@@ -0,0 +1,44 @@
+package az.marketplace.repository;
+
+import az.marketplace.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    // Açarı tutmaq: 1 → bu sorğu icra edir, 0 → açar artıq var (icra olunur və ya cavabı hazırdır)
+    @Modifying
+    @Query(value = """
+        INSERT INTO idempotency_keys (key_hash, request_hash, created_at, expires_at)
+        VALUES (:keyHash, :requestHash, :now, :expiresAt)
+        ON CONFLICT (key_hash) DO NOTHING
+    """, nativeQuery = true)
+    int claim(@Param("keyHash") String keyHash, @Param("requestHash") String requestHash,
+              @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("""
+        UPDATE IdempotencyKey k
+        SET k.statusCode = :status, k.contentType = :contentType, k.responseBody = :body, k.expiresAt = :expiresAt
+        WHERE k.keyHash = :keyHash
+    """)
+    int complete(@Param("keyHash") String keyHash, @Param("status") int status,
+                 @Param("contentType") String contentType, @Param("body") String body,
+                 @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.keyHash = :keyHash")
+    int release(@Param("keyHash") String keyHash);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.keyHash = :keyHash AND k.expiresAt < :now")
+    int deleteIfExpired(@Param("keyHash") String keyHash, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
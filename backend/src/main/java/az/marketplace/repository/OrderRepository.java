@@ -1,28 +1,89 @@
 package az.marketplace.repository;
 
-import az.marketplace.entity.Customer;
-import az.marketplace.entity.Merchant;
+import az.marketplace.dto.order.OrderHeaderRow;
+import az.marketplace.dto.order.OrderLineRow;
 import az.marketplace.entity.Order;
+import az.marketplace.entity.enums.OrderStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
-    // Müştərinin öz sifarişləri
-    List<Order> findByCustomer(Customer customer);
+    // Müştəri tarixçəsi: başlıqlar (DTO), created_at desc + id desc keyset.
+    // (createdAt, id) < (afterCreatedAt, afterId); ilk şərt indeksdə range scan üçündür. idx_orders_customer_created_at_id
+    @Query("""
+        SELECT new az.marketplace.dto.order.OrderHeaderRow(
+            o.id, m.id, m.companyName, o.totalAmount, o.status, o.createdAt)
+        FROM Order o
+        JOIN o.merchant m
+        WHERE o.customer.id = :customerId
+          AND (:status IS NULL OR o.status = :status)
+          AND (:afterCreatedAt IS NULL
+               OR (o.createdAt <= :afterCreatedAt
+                   AND (o.createdAt < :afterCreatedAt OR o.id < :afterId)))
+        ORDER BY o.createdAt DESC, o.id DESC
+    """)
+    List<OrderHeaderRow> findCustomerHistory(@Param("customerId") Long customerId,
+                                             @Param("status") OrderStatus status,
+                                             @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                             @Param("afterId") Long afterId,
+                                             Pageable pageable);
+
+    // Bulk status dəyişikliyi: sətirlər id sırası ilə kilidlənir (deadlock olmasın); lines lazy (@BatchSize)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids ORDER BY o.id")
+    List<Order> lockAllById(@Param("ids") Collection<Long> ids);
 
     // Product silmə üçün istifadə olunur
-    boolean existsByProduct_Id(Long productId);
+    @Query("SELECT CASE WHEN COUNT(l) > 0 THEN true ELSE false END FROM OrderLine l WHERE l.product.id = :productId")
+    boolean existsByProductId(@Param("productId") Long productId);
 
-    // Merchant-ın məhsullarına verilmiş sifarişlər (customer rədd etdiyi sifarişləri gizlədirik)
+    // Merchant inbox: yalnız başlıqlar (DTO), ən yenilər əvvəl, keyset (afterId); customer rədd etdiyi sifarişlər gizlidir.
+    // idx_orders_merchant_status_id / idx_orders_merchant_id
     @Query("""
-        SELECT o
+        SELECT new az.marketplace.dto.order.OrderHeaderRow(
+            o.id, m.id, m.companyName, o.totalAmount, o.status, o.createdAt)
         FROM Order o
-        JOIN o.product p
-        WHERE p.merchant = :merchant
+        JOIN o.merchant m
+        WHERE o.merchant.id = :merchantId
           AND o.status <> az.marketplace.entity.enums.OrderStatus.REJECT_BY_CUSTOMER
+          AND (:status IS NULL OR o.status = :status)
+          AND (:from IS NULL OR o.createdAt >= :from)
+          AND (:to IS NULL OR o.createdAt < :to)
+          AND (:afterId IS NULL OR o.id < :afterId)
+        ORDER BY o.id DESC
     """)
-    List<Order> findOrdersForMerchant(Merchant merchant);
-}
\ No newline at end of file
+    List<OrderHeaderRow> findMerchantInbox(@Param("merchantId") Long merchantId,
+                                           @Param("status") OrderStatus status,
+                                           @Param("from") LocalDateTime from,
+                                           @Param("to") LocalDateTime to,
+                                           @Param("afterId") Long afterId,
+                                           Pageable pageable);
+
+    @Query("""
+        SELECT new az.marketplace.dto.order.OrderLineRow(
+            l.order.id, p.id, p.name, l.count, l.unitPrice, l.lineTotal)
+        FROM OrderLine l
+        JOIN l.product p
+        WHERE l.order.id IN :orderIds
+        ORDER BY l.id
+    """)
+    List<OrderLineRow> findLineRows(@Param("orderIds") Collection<Long> orderIds);
+
+    // Metriklər (outbox): 0 → bu sifariş artıq sayılıb (təkrar gələn hadisə)
+    @Modifying
+    @Query(value = """
+        UPDATE orders SET metrics_recorded_at = :now
+        WHERE id = :id AND metrics_recorded_at IS NULL
+    """, nativeQuery = true)
+    int markMetricsRecorded(@Param("id") Long id, @Param("now") LocalDateTime now);
+}
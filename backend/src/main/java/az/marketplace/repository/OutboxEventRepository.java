@@ -0,0 +1,40 @@
+package az.marketplace.repository;
+
+import az.marketplace.entity.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // -2 = SKIP LOCKED: paralel dispatcher-lər (bir neçə instance) eyni hadisəni götürmür
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OutboxEvent e WHERE e.deadAt IS NULL AND e.availableAt <= :now ORDER BY e.id")
+    List<OutboxEvent> lockAvailable(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Modifying
+    @Query("""
+        UPDATE OutboxEvent e
+        SET e.attempts = e.attempts + 1, e.availableAt = :retryAt, e.lastError = :error
+        WHERE e.id = :id
+    """)
+    int markFailed(@Param("id") Long id, @Param("retryAt") LocalDateTime retryAt, @Param("error") String error);
+
+    @Modifying
+    @Query("""
+        UPDATE OutboxEvent e
+        SET e.attempts = e.attempts + 1, e.deadAt = :now, e.lastError = :error
+        WHERE e.id = :id
+    """)
+    int markDead(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("error") String error);
+}
@@ -0,0 +1,7 @@
+package az.marketplace.repository;
+
+import java.math.BigDecimal;
+
+// null sahə = dəyişmir; stockCount və stockDelta eyni anda verilmir
+public record ProductBulkUpdate(Long productId, BigDecimal price, Integer stockCount, Integer stockDelta) {
+}
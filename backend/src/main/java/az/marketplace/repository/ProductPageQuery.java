@@ -0,0 +1,21 @@
+package az.marketplace.repository;
+
+import az.marketplace.dto.product.ProductSortField;
+
+import java.math.BigDecimal;
+
+/**
+ * Keyset (seek) query for the product catalog.
+ * {@code afterValue}/{@code afterId} come from the decoded cursor and are null for the first page.
+ */
+public record ProductPageQuery(
+        Long categoryId,
+        Long merchantId,
+        BigDecimal minPrice,
+        BigDecimal maxPrice,
+        ProductSortField sort,
+        boolean ascending,
+        Comparable<?> afterValue,
+        Long afterId,
+        int limit
+) {}
@@ -3,9 +3,13 @@ package az.marketplace.repository;
 import az.marketplace.entity.ProductPhoto;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ProductPhotoRepository extends JpaRepository<ProductPhoto, Long> {
 
     List<ProductPhoto> findAllByProductId(Long productId);
-}
\ No newline at end of file
+
+    // bir neçə məhsulun şəkilləri bir sorğu ilə
+    List<ProductPhoto> findAllByProductIdInOrderByIdAsc(Collection<Long> productIds);
+}
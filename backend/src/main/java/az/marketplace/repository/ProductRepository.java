@@ -1,14 +1,128 @@
 package az.marketplace.repository;
 
+import az.marketplace.dto.product.ProductStockLevel;
+import az.marketplace.dto.product.ProductVersionInfo;
 import az.marketplace.entity.Product;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
 
-    // Bu annotasiya ilə Hibernate artıq lazy kolleksiyaları birbaşa join edib gətirəcək
+    // cache-ə yükləmək üçün: transaction-dan kənarda da map oluna bilsin deyə hər şey birdən
     @EntityGraph(attributePaths = {"photos", "merchant", "category"})
-    List<Product> findAll();
-}
\ No newline at end of file
+    Optional<Product> findWithDetailsById(Long id);
+
+    @EntityGraph(attributePaths = {"photos", "merchant", "category"})
+    List<Product> findAllWithDetailsByIdIn(Collection<Long> ids);
+
+    // sharded məhsulda satış products sətrinə toxunmur → versiyaya stok da daxildir
+    @Query("""
+        SELECT new az.marketplace.dto.product.ProductVersionInfo(p.updatedAt, p.stockCount + p.shardedStock)
+        FROM Product p WHERE p.id = :id
+    """)
+    Optional<ProductVersionInfo> findVersionById(@Param("id") Long id);
+
+    @Query("SELECT p.stockShards FROM Product p WHERE p.id = :id")
+    Optional<Integer> findStockShards(@Param("id") Long id);
+
+    @Query("SELECT p.id FROM Product p WHERE p.id IN :ids AND p.stockShards > 1")
+    List<Long> findShardedIds(@Param("ids") Collection<Long> ids);
+
+    // Rejim dəyişikliyi (reshard) üçün: paralel reshard-lar bir-birini gözləyir
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> lockById(@Param("id") Long id);
+
+    // Sweeper: adi (sharded olmayan) məhsul sətirləri, gözləmədən - kilidli olanlar qaytarılmır (növbəti tick)
+    @Query(value = """
+        SELECT id FROM products
+        WHERE id IN (:ids) AND COALESCE(stock_shards, 0) <= 1
+        ORDER BY id
+        FOR UPDATE SKIP LOCKED
+    """, nativeQuery = true)
+    List<Long> lockPlainStock(@Param("ids") Collection<Long> ids);
+
+    // clearAutomatically: yüklənmiş Product köhnə stok/rejim dəyərləri ilə qalmasın
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+        UPDATE products
+        SET stock_count = :stock, reserved_count = :reserved, stock_shards = :shards, updated_at = :now
+        WHERE id = :id
+    """, nativeQuery = true)
+    int setStockState(@Param("id") Long id, @Param("stock") int stock, @Param("reserved") int reserved,
+                      @Param("shards") int shards, @Param("now") LocalDateTime now);
+
+    // Adi rejimin UPDATE-ləri stock_shards <= 1 şərti ilə: reshard rejimi arada dəyişibsə 0 qaytarır
+    // (stok və rezervlər artıq bucket-lərdədir), InventoryService yeni rejimdə davam edir.
+    // Səbət rezervi: tək şərtli UPDATE (SELECT ... FOR UPDATE yoxdur); 0 → mövcud stok çatmır
+    @Modifying
+    @Query(value = """
+        UPDATE products SET reserved_count = reserved_count + :qty
+        WHERE id = :id AND COALESCE(stock_shards, 0) <= 1 AND stock_count - reserved_count >= :qty
+    """, nativeQuery = true)
+    int reserveStock(@Param("id") Long id, @Param("qty") int qty);
+
+    @Modifying
+    @Query(value = """
+        UPDATE products SET reserved_count = GREATEST(reserved_count - :qty, 0)
+        WHERE id = :id AND COALESCE(stock_shards, 0) <= 1
+    """, nativeQuery = true)
+    int releaseReserved(@Param("id") Long id, @Param("qty") int qty);
+
+    // Checkout: səbətin öz rezervi (held) mövcud stoka əlavə sayılır və satışa çevrilir; 0 → stok çatmır.
+    // updated_at də yenilənir (ETag)
+    @Modifying
+    @Query(value = """
+        UPDATE products
+        SET stock_count = stock_count - :qty,
+            reserved_count = reserved_count - :held,
+            updated_at = :now
+        WHERE id = :id AND COALESCE(stock_shards, 0) <= 1 AND stock_count - reserved_count + :held >= :qty
+    """, nativeQuery = true)
+    int sellStock(@Param("id") Long id, @Param("qty") int qty, @Param("held") int held,
+                  @Param("now") LocalDateTime now);
+
+    @Query("SELECT p.stockCount - p.reservedCount FROM Product p WHERE p.id = :id")
+    Optional<Integer> findAvailableStock(@Param("id") Long id);
+
+    @Modifying
+    @Query("""
+        UPDATE Product p
+        SET p.stockCount = p.stockCount + :qty, p.updatedAt = :now
+        WHERE p.id = :id AND COALESCE(p.stockShards, 0) <= 1
+    """)
+    int incrementStock(@Param("id") Long id, @Param("qty") int qty, @Param("now") LocalDateTime now);
+
+    // bulk əməliyyatlar üçün sahiblik yoxlaması - bir sorğu
+    @Query("SELECT p.id FROM Product p WHERE p.id IN :ids AND p.merchant.id = :merchantId")
+    List<Long> findIdsOwnedBy(@Param("ids") Collection<Long> ids, @Param("merchantId") Long merchantId);
+
+    @Query("""
+        SELECT new az.marketplace.dto.product.ProductStockLevel(p.id, p.stockCount + p.shardedStock)
+        FROM Product p WHERE p.id IN :ids
+    """)
+    List<ProductStockLevel> findStockLevels(@Param("ids") Collection<Long> ids);
+
+    // Export üçün: forward-only cursor, sətirlər fetch size qədər hissə-hissə oxunur.
+    // Stream açıq transaction daxilində istifadə olunmalı və bağlanmalıdır.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Product p JOIN FETCH p.merchant JOIN FETCH p.category ORDER BY p.id")
+    Stream<Product> streamAllForExport();
+}
@@ -0,0 +1,15 @@
+package az.marketplace.repository;
+
+import az.marketplace.entity.Product;
+
+import java.util.List;
+
+public interface ProductRepositoryCustom {
+
+    // limit qədər sətir qaytarır (merchant və category join fetch ilə)
+    List<Product> findPage(ProductPageQuery query);
+
+    // Bir UPDATE ... FROM (VALUES ...) ilə; stoku mənfiyə düşəcək sətirlər yenilənmir.
+    // Qaytarır: yenilənən sətir sayı
+    int bulkUpdate(List<ProductBulkUpdate> updates);
+}
@@ -0,0 +1,136 @@
+package az.marketplace.repository;
+
+import az.marketplace.dto.product.ProductSortField;
+import az.marketplace.entity.Product;
+import az.marketplace.util.Money;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.criteria.*;
+import org.hibernate.query.TypedParameterValue;
+import org.hibernate.type.StandardBasicTypes;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Product> findPage(ProductPageQuery query) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Product> cq = cb.createQuery(Product.class);
+        Root<Product> p = cq.from(Product.class);
+
+        // ManyToOne fetch-lər sətir sayını artırmır; photos @BatchSize ilə ayrıca yüklənir
+        p.fetch("merchant");
+        p.fetch("category");
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (query.categoryId() != null) {
+            predicates.add(cb.equal(p.get("category").get("id"), query.categoryId()));
+        }
+        if (query.merchantId() != null) {
+            predicates.add(cb.equal(p.get("merchant").get("id"), query.merchantId()));
+        }
+        if (query.minPrice() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(p.<Money>get("price"), Money.of(query.minPrice())));
+        }
+        if (query.maxPrice() != null) {
+            predicates.add(cb.lessThanOrEqualTo(p.<Money>get("price"), Money.of(query.maxPrice())));
+        }
+        if (query.afterId() != null) {
+            predicates.add(afterCursor(cb, p, query));
+        }
+        cq.where(predicates.toArray(new Predicate[0]));
+
+        Path<Long> id = p.get("id");
+        if (query.sort() == ProductSortField.ID) {
+            cq.orderBy(order(cb, id, query.ascending()));
+        } else {
+            cq.orderBy(order(cb, sortPath(p, query), query.ascending()), order(cb, id, query.ascending()));
+        }
+
+        return entityManager.createQuery(cq)
+                .setMaxResults(query.limit())
+                .getResultList();
+    }
+
+    @Override
+    public int bulkUpdate(List<ProductBulkUpdate> updates) {
+        if (updates.isEmpty()) return 0;
+
+        // CAST: null dəyərli VALUES sütunlarının tipi Postgres-də başqa cür təyin olunmur
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < updates.size(); i++) {
+            if (i > 0) values.append(", ");
+            values.append("(CAST(:id").append(i).append(" AS BIGINT), ")
+                    .append("CAST(:price").append(i).append(" AS NUMERIC(19,2)), ")
+                    .append("CAST(:stock").append(i).append(" AS INTEGER), ")
+                    .append("CAST(:delta").append(i).append(" AS INTEGER))");
+        }
+
+        Query update = entityManager.createNativeQuery("""
+                UPDATE products p
+                SET price = COALESCE(v.price, p.price),
+                    stock_count = COALESCE(v.stock, p.stock_count + COALESCE(v.delta, 0)),
+                    updated_at = :now
+                FROM (VALUES %s) AS v(id, price, stock, delta)
+                WHERE p.id = v.id
+                  AND COALESCE(v.stock, p.stock_count + COALESCE(v.delta, 0)) >= 0
+                """.formatted(values));
+
+        update.setParameter("now", LocalDateTime.now());
+        for (int i = 0; i < updates.size(); i++) {
+            ProductBulkUpdate u = updates.get(i);
+            update.setParameter("id" + i, u.productId());
+            update.setParameter("price" + i, new TypedParameterValue<>(StandardBasicTypes.BIG_DECIMAL, u.price()));
+            update.setParameter("stock" + i, new TypedParameterValue<>(StandardBasicTypes.INTEGER, u.stockCount()));
+            update.setParameter("delta" + i, new TypedParameterValue<>(StandardBasicTypes.INTEGER, u.stockDelta()));
+        }
+        return update.executeUpdate();
+    }
+
+    private Path<?> sortPath(Root<Product> p, ProductPageQuery query) {
+        return switch (query.sort()) {
+            case CREATED_AT -> p.get("createdAt");
+            case PRICE -> p.get("price");
+            case ID -> p.get("id");
+        };
+    }
+
+    private Predicate afterCursor(CriteriaBuilder cb, Root<Product> p, ProductPageQuery query) {
+        Path<Long> id = p.get("id");
+        return switch (query.sort()) {
+            case CREATED_AT -> seek(cb, p.<LocalDateTime>get("createdAt"),
+                    (LocalDateTime) query.afterValue(), id, query.afterId(), query.ascending());
+            case PRICE -> seek(cb, p.<Money>get("price"),
+                    (Money) query.afterValue(), id, query.afterId(), query.ascending());
+            case ID -> query.ascending()
+                    ? cb.greaterThan(id, query.afterId())
+                    : cb.lessThan(id, query.afterId());
+        };
+    }
+
+    // (value, id) > (afterValue, afterId); ilk şərt indeksdə range scan üçün əlavə olunub
+    private <T extends Comparable<? super T>> Predicate seek(CriteriaBuilder cb, Path<T> path, T value,
+                                                            Path<Long> id, Long afterId, boolean ascending) {
+        if (ascending) {
+            return cb.and(
+                    cb.greaterThanOrEqualTo(path, value),
+                    cb.or(cb.greaterThan(path, value), cb.greaterThan(id, afterId))
+            );
+        }
+        return cb.and(
+                cb.lessThanOrEqualTo(path, value),
+                cb.or(cb.lessThan(path, value), cb.lessThan(id, afterId))
+        );
+    }
+
+    private Order order(CriteriaBuilder cb, Expression<?> expression, boolean ascending) {
+        return ascending ? cb.asc(expression) : cb.desc(expression);
+    }
+}
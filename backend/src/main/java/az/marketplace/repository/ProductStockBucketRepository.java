@@ -0,0 +1,64 @@
+package az.marketplace.repository;
+
+import az.marketplace.entity.ProductStockBucket;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ProductStockBucketRepository extends JpaRepository<ProductStockBucket, Long> {
+
+    // Sürətli yol: bir bucket-də şərtli UPDATE; 0 → bu bucket çatmır, növbətisi yoxlanır
+
+    @Modifying
+    @Query(value = """
+        UPDATE product_stock_buckets SET reserved_count = reserved_count + :qty
+        WHERE product_id = :productId AND bucket_no = :bucket AND stock_count - reserved_count >= :qty
+    """, nativeQuery = true)
+    int reserve(@Param("productId") Long productId, @Param("bucket") int bucket, @Param("qty") int qty);
+
+    @Modifying
+    @Query(value = """
+        UPDATE product_stock_buckets SET reserved_count = reserved_count - :qty
+        WHERE product_id = :productId AND bucket_no = :bucket AND reserved_count >= :qty
+    """, nativeQuery = true)
+    int release(@Param("productId") Long productId, @Param("bucket") int bucket, @Param("qty") int qty);
+
+    // Checkout: səbətin bu bucket-dəki rezervi (held) satışa çevrilir; held = 0 → sadəcə mövcud stokdan
+    @Modifying
+    @Query(value = """
+        UPDATE product_stock_buckets
+        SET stock_count = stock_count - :qty, reserved_count = reserved_count - :held
+        WHERE product_id = :productId AND bucket_no = :bucket
+          AND reserved_count >= :held AND stock_count - reserved_count + :held >= :qty
+    """, nativeQuery = true)
+    int sell(@Param("productId") Long productId, @Param("bucket") int bucket,
+             @Param("qty") int qty, @Param("held") int held);
+
+    @Modifying
+    @Query(value = """
+        UPDATE product_stock_buckets SET stock_count = stock_count + :qty
+        WHERE product_id = :productId AND bucket_no = :bucket
+    """, nativeQuery = true)
+    int add(@Param("productId") Long productId, @Param("bucket") int bucket, @Param("qty") int qty);
+
+    // Yavaş yol (miqdar bir bucket-ə sığmır): məhsulun bütün bucket-ləri sabit sıra ilə kilidlənir
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM ProductStockBucket b WHERE b.productId = :productId ORDER BY b.bucketNo")
+    List<ProductStockBucket> lockAll(@Param("productId") Long productId);
+
+    // Sweeper: yalnız hazırda kilidsiz bucket-lər (-2 = SKIP LOCKED), satışları gözləmir
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT b FROM ProductStockBucket b WHERE b.productId = :productId ORDER BY b.bucketNo")
+    List<ProductStockBucket> lockUnlocked(@Param("productId") Long productId);
+
+    @Query("SELECT COALESCE(SUM(b.stockCount - b.reservedCount), 0) FROM ProductStockBucket b WHERE b.productId = :productId")
+    long sumAvailable(@Param("productId") Long productId);
+}
@@ -0,0 +1,50 @@
+package az.marketplace.repository;
+
+import az.marketplace.dto.product.ProductSummaryResponse;
+import az.marketplace.entity.ProductSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ProductSummaryRepository extends JpaRepository<ProductSummary, Long> {
+
+    // Managed entity yoxdur: birbaşa DTO; stok isti sütundur, ona görə products-dan oxunur
+    @Query("""
+        SELECT new az.marketplace.dto.product.ProductSummaryResponse(
+            s.productId, s.name, s.price, p.stockCount + p.shardedStock,
+            s.merchantId, s.merchantCompanyName, s.categoryId, s.categoryName,
+            s.firstPhotoUrl, s.photoCount, s.createdAt)
+        FROM ProductSummary s
+        JOIN Product p ON p.id = s.productId
+        WHERE (:categoryId IS NULL OR s.categoryId = :categoryId)
+          AND (:merchantId IS NULL OR s.merchantId = :merchantId)
+          AND (:afterId IS NULL OR s.productId < :afterId)
+        ORDER BY s.productId DESC
+    """)
+    List<ProductSummaryResponse> findPage(@Param("categoryId") Long categoryId,
+                                          @Param("merchantId") Long merchantId,
+                                          @Param("afterId") Long afterId,
+                                          Pageable pageable);
+
+    @Modifying
+    @Query("""
+        UPDATE ProductSummary s
+        SET s.photoCount = s.photoCount + 1,
+            s.firstPhotoUrl = COALESCE(s.firstPhotoUrl, :photoUrl)
+        WHERE s.productId = :productId
+    """)
+    int photoAdded(@Param("productId") Long productId, @Param("photoUrl") String photoUrl);
+
+    @Modifying
+    @Query("""
+        UPDATE ProductSummary s
+        SET s.price = (SELECT p.price FROM Product p WHERE p.id = s.productId)
+        WHERE s.productId IN :ids
+    """)
+    int syncPrices(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,34 @@
+package az.marketplace.repository;
+
+import az.marketplace.entity.StockHold;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface StockHoldRepository extends JpaRepository<StockHold, Long> {
+
+    // Yalnız rezerv sətri kilidlənir (məhsul sətri yox): sweeper ilə eyni rezervi iki dəfə azad etməmək üçün
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM StockHold h WHERE h.cartId = :cartId AND h.productId = :productId")
+    Optional<StockHold> lockByCartAndProduct(@Param("cartId") Long cartId, @Param("productId") Long productId);
+
+    // -2 = SKIP LOCKED: checkout-un kilidlədiyi rezervlərə toxunmur, paralel sweeper-lər bir-birini gözləmir
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT h FROM StockHold h WHERE h.expiresAt < :now ORDER BY h.expiresAt")
+    List<StockHold> lockExpired(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE StockHold h SET h.expiresAt = :expiresAt WHERE h.cartId = :cartId")
+    int extendForCart(@Param("cartId") Long cartId, @Param("expiresAt") LocalDateTime expiresAt);
+}
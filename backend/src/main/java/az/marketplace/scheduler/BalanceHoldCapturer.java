@@ -0,0 +1,39 @@
+package az.marketplace.scheduler;
+
+import az.marketplace.service.BalanceService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class BalanceHoldCapturer {
+
+    private final BalanceService balanceService;
+    private final int batchSize;
+
+    public BalanceHoldCapturer(
+            BalanceService balanceService,
+            @Value("${app.balance.holds.capture-batch-size:500}") int batchSize
+    ) {
+        this.balanceService = balanceService;
+        this.batchSize = batchSize;
+    }
+
+    // Qəbul olunmuş sifarişlərin hold-ları batch-larla capture olunur; hər batch ayrıca qısa transaction-dır
+    @Scheduled(fixedDelayString = "${app.balance.holds.capture-interval-ms:30000}",
+            initialDelayString = "${app.balance.holds.capture-interval-ms:30000}")
+    public void captureHolds() {
+        int total = 0;
+        int captured;
+        do {
+            captured = balanceService.captureBatch(batchSize);
+            total += captured;
+        } while (captured == batchSize);
+
+        if (total > 0) {
+            log.info("Captured {} balance holds", total);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package az.marketplace.scheduler;
+
+import az.marketplace.service.BalanceService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BalanceLedgerCompactor {
+
+    private final BalanceService balanceService;
+
+    // jurnal quyruğu snapshot-a köçürülür ki, balans yoxlaması qısa quyruq oxusun
+    @Scheduled(fixedDelayString = "${app.balance.compaction.interval-ms:60000}",
+            initialDelayString = "${app.balance.compaction.interval-ms:60000}")
+    public void compact() {
+        int customers = balanceService.compact();
+        if (customers > 0) {
+            log.info("Compacted balance ledger for {} customers", customers);
+        }
+    }
+}
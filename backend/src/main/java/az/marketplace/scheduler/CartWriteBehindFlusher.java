@@ -0,0 +1,46 @@
+package az.marketplace.scheduler;
+
+import az.marketplace.service.CartStore;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class CartWriteBehindFlusher {
+
+    private final CartStore cartStore;
+    private final int batchSize;
+
+    public CartWriteBehindFlusher(
+            CartStore cartStore,
+            @Value("${app.cart.flush-batch-size:500}") int batchSize
+    ) {
+        this.cartStore = cartStore;
+        this.batchSize = batchSize;
+    }
+
+    // Səbət dəyişiklikləri cart_items-ə batch-larla yazılır; hər batch ayrıca qısa transaction-dır
+    @Scheduled(fixedDelayString = "${app.cart.flush-interval-ms:1000}",
+            initialDelayString = "${app.cart.flush-interval-ms:1000}")
+    public void flushCarts() {
+        int total = 0;
+        int flushed;
+        do {
+            flushed = cartStore.flushDirty(batchSize);
+            total += flushed;
+        } while (flushed == batchSize);
+
+        if (total > 0) {
+            log.debug("Flushed {} carts", total);
+        }
+    }
+
+    // dayanarkən yaddaşdakı dəyişikliklər itməsin
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushCarts();
+    }
+}
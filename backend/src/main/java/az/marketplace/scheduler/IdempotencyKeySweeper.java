@@ -0,0 +1,25 @@
+package az.marketplace.scheduler;
+
+import az.marketplace.service.IdempotencyService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdempotencyKeySweeper {
+
+    private final IdempotencyService idempotencyService;
+
+    // TTL-i bitmiş açarlar (expires_at indeksi ilə bir DELETE)
+    @Scheduled(fixedDelayString = "${app.idempotency.sweep-interval-ms:600000}",
+            initialDelayString = "${app.idempotency.sweep-interval-ms:600000}")
+    public void purgeExpiredKeys() {
+        int deleted = idempotencyService.purgeExpired();
+        if (deleted > 0) {
+            log.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+}
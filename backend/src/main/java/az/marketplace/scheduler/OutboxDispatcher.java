@@ -0,0 +1,30 @@
+package az.marketplace.scheduler;
+
+import az.marketplace.service.OutboxService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class OutboxDispatcher {
+
+    private final OutboxService outboxService;
+    private final int batchSize;
+
+    public OutboxDispatcher(
+            OutboxService outboxService,
+            @Value("${app.outbox.batch-size:100}") int batchSize
+    ) {
+        this.outboxService = outboxService;
+        this.batchSize = batchSize;
+    }
+
+    // Növbə boşalana qədər batch-lar; hər batch qısa claim transaction-ı + hər hadisə üçün ayrıca transaction
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:500}")
+    public void drain() {
+        int claimed;
+        do {
+            claimed = outboxService.dispatchBatch(batchSize);
+        } while (claimed == batchSize);
+    }
+}
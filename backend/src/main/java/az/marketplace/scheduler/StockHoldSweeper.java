@@ -0,0 +1,39 @@
+package az.marketplace.scheduler;
+
+import az.marketplace.service.InventoryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class StockHoldSweeper {
+
+    private final InventoryService inventoryService;
+    private final int batchSize;
+
+    public StockHoldSweeper(
+            InventoryService inventoryService,
+            @Value("${app.inventory.sweep-batch-size:500}") int batchSize
+    ) {
+        this.inventoryService = inventoryService;
+        this.batchSize = batchSize;
+    }
+
+    // Vaxtı keçmiş rezervləri batch-larla azad edir; hər batch ayrıca qısa transaction-dır
+    @Scheduled(fixedDelayString = "${app.inventory.sweep-interval-ms:30000}",
+            initialDelayString = "${app.inventory.sweep-interval-ms:30000}")
+    public void releaseExpiredHolds() {
+        int total = 0;
+        int released;
+        do {
+            released = inventoryService.releaseExpired(batchSize);
+            total += released;
+        } while (released == batchSize);
+
+        if (total > 0) {
+            log.info("Released {} expired stock holds", total);
+        }
+    }
+}
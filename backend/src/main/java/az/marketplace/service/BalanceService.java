@@ -1,81 +1,231 @@
 package az.marketplace.service;
 
+import az.marketplace.entity.BalanceHold;
 import az.marketplace.entity.Customer;
+import az.marketplace.entity.Order;
+import az.marketplace.entity.enums.BalanceEntryType;
+import az.marketplace.entity.enums.BalanceHoldStatus;
 import az.marketplace.exception.BalanceException;
 import az.marketplace.exception.NotFoundException;
-import az.marketplace.repository.CustomerRepository;
-import lombok.RequiredArgsConstructor;
+import az.marketplace.repository.BalanceEntryRepository;
+import az.marketplace.repository.BalanceHoldRepository;
+import az.marketplace.util.Money;
+import az.marketplace.util.TransactionHooks;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.util.Optional;
-
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Customer balance kept as an append-only ledger ({@code balance_entries}) on top of a
+ * snapshot in {@code customers.balance}. A debit is one conditional INSERT that checks
+ * snapshot + unapplied tail, so checkout no longer locks the customer row; concurrent
+ * movements for the same customer are ordered by the unique (customer_id, seq) key.
+ * Reads go through a short-lived cache that is evicted after every committed movement.
+ * <p>
+ * Checkout pays in two phases: {@link #authorize} places holds, a scheduled batch captures
+ * them once the merchant accepts, and a rejection {@link #release releases} the hold.
+ */
 @Service
-@RequiredArgsConstructor
 public class BalanceService {
 
     private static final String NO_BALANCE_CODE = "NO_BALANCE";
     private static final String INSUFFICIENT_CODE = "INSUFFICIENT_BALANCE";
+    private static final String BUSY_CODE = "BALANCE_BUSY";
+
+    // seq toqquşması yalnız eyni müştərinin paralel ödənişlərində olur
+    private static final int MAX_APPEND_ATTEMPTS = 5;
+
+    private final BalanceEntryRepository balanceEntryRepository;
+    private final BalanceHoldRepository balanceHoldRepository;
+    private final Cache<Long, Money> balances;
+    private final int compactionMinTail;
+    private final int compactionBatchSize;
+    private final Duration autoCaptureAfter;
+
+    public BalanceService(
+            BalanceEntryRepository balanceEntryRepository,
+            BalanceHoldRepository balanceHoldRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.balance.cache-ttl:30s}") Duration cacheTtl,
+            @Value("${app.balance.cache-max-size:10000}") long cacheMaxSize,
+            @Value("${app.balance.compaction.min-tail:20}") int compactionMinTail,
+            @Value("${app.balance.compaction.batch-size:500}") int compactionBatchSize,
+            @Value("${app.balance.holds.auto-capture-after:7d}") Duration autoCaptureAfter
+    ) {
+        this.balanceEntryRepository = balanceEntryRepository;
+        this.balanceHoldRepository = balanceHoldRepository;
+        this.autoCaptureAfter = autoCaptureAfter;
+        this.compactionMinTail = compactionMinTail;
+        this.compactionBatchSize = compactionBatchSize;
+        // digər instansiyaların yazıları ən çox TTL qədər gecikir
+        this.balances = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, balances, "balances");
+    }
 
-    private final CustomerRepository customerRepository;
+    @Transactional(readOnly = true)
+    public Money currentBalance(Long customerId) {
+        return balances.get(customerId, this::loadBalance);
+    }
+
+    // Checkout-un əvvəlində kilidsiz yoxlama: balans çatmırsa sifarişlər ümumiyyətlə yazılmır
+    @Transactional(readOnly = true)
+    public void requireAvailable(Customer customer, Money amount) {
+        Long customerId = requireCustomer(customer);
+        checkSufficient(customerId, requireNonNegative(amount));
+    }
 
+    /**
+     * Places one hold per order: a HOLD ledger entry (so the balance drops right away) and
+     * an AUTHORIZED {@link BalanceHold}. Called as the last step of checkout, so the ledger
+     * seq is held uncommitted only briefly.
+     */
     @Transactional
-    public Customer debitForOrder(Customer customer, BigDecimal amount) {
-        if (customer == null || customer.getId() == null) {
-            throw new IllegalArgumentException("Customer is required");
+    public void authorize(Customer customer, List<Order> orders) {
+        Long customerId = requireCustomer(customer);
+        LocalDateTime now = LocalDateTime.now();
+        List<BalanceHold> holds = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            Money amount = requireNonNegative(order.getTotalAmount());
+            if (amount.isZero()) continue;
+            spend(customerId, amount, BalanceEntryType.HOLD, orderReference(order.getId()));
+            holds.add(BalanceHold.builder()
+                    .customerId(customerId)
+                    .orderId(order.getId())
+                    .amount(amount)
+                    .status(BalanceHoldStatus.AUTHORIZED)
+                    .createdAt(now)
+                    .build());
         }
-        BigDecimal total = requireNonNegative(amount);
+        balanceHoldRepository.saveAll(holds);
+    }
 
-        Customer managed = customerRepository.findByIdForUpdate(customer.getId())
-                .orElseThrow(() -> new NotFoundException("Customer not found"));
+    // Rədd/ləğv: açıq hold buraxılır (HOLD_RELEASE); artıq capture olunubsa (və ya hold-dan əvvəlki sifarişdir) refund
+    @Transactional
+    public void release(List<Order> orders) {
+        if (orders.isEmpty()) return;
+        Map<Long, Order> byId = new TreeMap<>();
+        orders.forEach(o -> byId.put(o.getId(), o));
+
+        LocalDateTime now = LocalDateTime.now();
+        for (BalanceHold hold : balanceHoldRepository.lockAuthorized(byId.keySet())) {
+            hold.setStatus(BalanceHoldStatus.RELEASED);
+            hold.setSettledAt(now);
+            byId.remove(hold.getOrderId());
+            appendOrRetry(hold.getCustomerId(), hold.getAmount(), BalanceEntryType.HOLD_RELEASE,
+                    orderReference(hold.getOrderId()));
+        }
+        for (Order order : byId.values()) {
+            // 0 məbləğli sifarişə hold açılmır, qaytarılacaq pul da yoxdur
+            if (order.getTotalAmount() == null || order.getTotalAmount().signum() <= 0) continue;
+            credit(order.getCustomer(), order.getTotalAmount(), orderReference(order.getId()));
+        }
+    }
 
-        BigDecimal balance = Optional.ofNullable(managed.getBalance()).orElse(BigDecimal.ZERO);
+    // Qəbul olunmuş və ya autoCaptureAfter-dən köhnə hold-lar; pul artıq çıxılıb, yalnız status
+    @Transactional
+    public int captureBatch(int batchSize) {
+        LocalDateTime now = LocalDateTime.now();
+        return balanceHoldRepository.captureBatch(now.minus(autoCaptureAfter), now, batchSize);
+    }
 
-        if (balance.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new BalanceException(NO_BALANCE_CODE, "You have no balance to continue order");
+    @Transactional
+    public void credit(Customer customer, Money amount, String reference) {
+        Long customerId = requireCustomer(customer);
+        Money creditAmount = requirePositive(amount);
+        appendOrRetry(customerId, creditAmount, BalanceEntryType.REFUND, reference);
+    }
+
+    // Uzun quyruqları snapshot-a köçürür; cari balans dəyişmir, cache-ə toxunmuruq
+    @Transactional
+    public int compact() {
+        return balanceEntryRepository.compact(compactionMinTail, compactionBatchSize);
+    }
+
+    // məxaric: balans çatmırsa BalanceException; seq toqquşmasında yenidən cəhd
+    private void spend(Long customerId, Money amount, BalanceEntryType type, String reference) {
+        for (int attempt = 0; attempt < MAX_APPEND_ATTEMPTS; attempt++) {
+            if (append(customerId, amount.negate(), type, reference)) {
+                return;
+            }
+            // yazılmadı: ya balans çatmır, ya da paralel yazı seq-i tutdu (artıq commit olunub, yenidən oxuyuruq)
+            checkSufficient(customerId, amount);
         }
+        throw new BalanceException(BUSY_CODE, "Balance is being updated by another payment, please retry");
+    }
 
-        if (balance.compareTo(total) < 0) {
-            throw new BalanceException(INSUFFICIENT_CODE, "Your balance is not enough to cover this order");
+    // mədaxil yoxlamasız yazılır; 0 yalnız seq toqquşmasıdır
+    private void appendOrRetry(Long customerId, Money amount, BalanceEntryType type, String reference) {
+        for (int attempt = 0; attempt < MAX_APPEND_ATTEMPTS; attempt++) {
+            if (append(customerId, amount, type, reference)) {
+                return;
+            }
         }
+        throw new BalanceException(BUSY_CODE, "Balance is being updated by another payment, please retry");
+    }
 
-        BigDecimal newBalance = balance.subtract(total);
-        if (newBalance.compareTo(BigDecimal.ZERO) < 0) {
+    private void checkSufficient(Long customerId, Money amount) {
+        Money balance = loadBalance(customerId);
+        if (balance.signum() <= 0) {
+            throw new BalanceException(NO_BALANCE_CODE, "You have no balance to continue order");
+        }
+        if (balance.compareTo(amount) < 0) {
             throw new BalanceException(INSUFFICIENT_CODE, "Your balance is not enough to cover this order");
         }
+    }
 
-        managed.setBalance(newBalance);
-        return customerRepository.save(managed);
+    private Money loadBalance(Long customerId) {
+        return balanceEntryRepository.currentBalance(customerId)
+                .map(Money::of)
+                .orElseThrow(() -> new NotFoundException("Customer not found"));
     }
 
-    @Transactional
-    public Customer credit(Customer customer, BigDecimal amount) {
+    private static String orderReference(Long orderId) {
+        return "order:" + orderId;
+    }
+
+    private boolean append(Long customerId, Money amount, BalanceEntryType type, String reference) {
+        boolean appended = balanceEntryRepository.append(
+                customerId, amount, type.name(), reference, LocalDateTime.now()) == 1;
+        if (appended) {
+            TransactionHooks.afterCommit(() -> balances.invalidate(customerId));
+        }
+        return appended;
+    }
+
+    private Long requireCustomer(Customer customer) {
         if (customer == null || customer.getId() == null) {
             throw new IllegalArgumentException("Customer is required");
         }
-        BigDecimal creditAmount = requirePositive(amount);
-
-        Customer managed = customerRepository.findByIdForUpdate(customer.getId())
-                .orElseThrow(() -> new NotFoundException("Customer not found"));
-
-        BigDecimal balance = Optional.ofNullable(managed.getBalance()).orElse(BigDecimal.ZERO);
-        managed.setBalance(balance.add(creditAmount));
-        return customerRepository.save(managed);
+        return customer.getId();
     }
 
-    private BigDecimal requireNonNegative(BigDecimal amount) {
+    private Money requireNonNegative(Money amount) {
         if (amount == null) {
             throw new IllegalArgumentException("Amount must not be null");
         }
-        if (amount.compareTo(BigDecimal.ZERO) < 0) {
+        if (amount.signum() < 0) {
             throw new IllegalArgumentException("Amount must not be negative");
         }
         return amount;
     }
 
-    private BigDecimal requirePositive(BigDecimal amount) {
-        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+    private Money requirePositive(Money amount) {
+        if (amount == null || amount.signum() <= 0) {
             throw new IllegalArgumentException("Amount must be greater than zero");
         }
         return amount;
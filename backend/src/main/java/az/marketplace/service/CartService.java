@@ -1,58 +1,84 @@
 package az.marketplace.service;
 
 import az.marketplace.dto.cart.AddToCartRequest;
+import az.marketplace.dto.cart.CartBulkUpdateRequest;
 import az.marketplace.dto.cart.CartItemResponse;
+import az.marketplace.dto.cart.CartLineRow;
+import az.marketplace.dto.cart.CartViewResponse;
+import az.marketplace.dto.product.ProductResponse;
 import az.marketplace.entity.*;
 import az.marketplace.exception.AccessDeniedException;
 import az.marketplace.exception.NotFoundException;
 import az.marketplace.repository.CartItemRepository;
-import az.marketplace.repository.CartRepository;
-import az.marketplace.repository.ProductRepository;
+import az.marketplace.service.CartStore.CartState;
+import az.marketplace.util.Money;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
 import java.util.stream.Collectors;
 
+// Səbət CartStore-dan (yaddaş) oxunur, məhsullar ProductCache-dən; DB-yə yalnız stok rezervi
+// və yeni sətir üçün gedilir. Ona görə metodlar @Transactional deyil
 @Service
 @RequiredArgsConstructor
 public class CartService {
 
-    private final CartRepository cartRepository;
+    private final CartStore cartStore;
     private final CartItemRepository cartItemRepository;
-    private final ProductRepository productRepository;
-
-    private Cart getOrCreateCart(User user) {
-        return cartRepository.findByUser(user)
-                .orElseGet(() -> {
-                    Cart c = Cart.builder()
-                            .user(user)
-                            .build();
-                    return cartRepository.save(c);
-                });
-    }
+    private final ProductService productService;
+    private final InventoryService inventoryService;
 
-    @Transactional(readOnly = true)
     public List<CartItemResponse> getCartItems(Customer customer) {
-        Cart cart = getOrCreateCart(customer.getUser());
+        List<CartLineRow> lines = cartStore.get(customer.getUser()).lines();
+        if (lines.isEmpty()) return List.of();
+
+        Map<Long, ProductResponse> products = productService.getByIds(
+                        lines.stream().map(CartLineRow::productId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(ProductResponse::getId, Function.identity()));
+
+        // silinmiş məhsulun sətri göstərilmir
+        return lines.stream()
+                .filter(line -> products.containsKey(line.productId()))
+                .map(line -> toCartItemResponse(line, products.get(line.productId())))
+                .collect(Collectors.toList());
+    }
 
-        List<CartItem> items = cartItemRepository.findByCart(cart);
+    // Sətirlər + server tərəfində cəmlər (frontend artıq özü toplamır)
+    public CartViewResponse getCartView(Customer customer) {
+        List<CartItemResponse> items = getCartItems(customer);
+
+        int itemCount = 0;
+        Money grandTotal = Money.ZERO;
+        List<Long> overStock = new ArrayList<>();
+        for (CartItemResponse item : items) {
+            itemCount += item.getCount();
+            grandTotal = grandTotal.plus(item.getTotalPrice());
+            if (item.isExceedsStock()) {
+                overStock.add(item.getItemId());
+            }
+        }
 
-        return items.stream()
-                .map(this::toCartItemResponse)
-                .collect(Collectors.toList());
+        return CartViewResponse.builder()
+                .items(items)
+                .itemCount(itemCount)
+                .grandTotal(grandTotal)
+                .overStockItemIds(overStock)
+                .build();
     }
 
     // UPDATED METHOD: stock-aware addToCart with quantity
-    @Transactional
     public CartItemResponse addToCart(Customer customer, AddToCartRequest req) {
-        Cart cart = getOrCreateCart(customer.getUser());
+        CartState cart = cartStore.get(customer.getUser());
 
-        Product product = productRepository.findById(req.getProductId())
-                .orElseThrow(() -> new NotFoundException("Product not found"));
+        ProductResponse product = productService.getById(req.getProductId());
 
         // 1. count validation
         int addCount = req.getCount();
@@ -60,68 +86,108 @@ public class CartService {
             throw new IllegalArgumentException("Count must be >= 1");
         }
 
-        // 2. find existing cart item OR build new
-        CartItem item = cartItemRepository.findByCartAndProduct(cart, product)
-                .orElse(
-                        CartItem.builder()
-                                .cart(cart)
-                                .product(product)
-                                .count(0)
-                                .build()
+        // 2. stock reservation: mövcud stokdan (stock - reserved) addCount qədər TTL-li rezerv;
+        // yeni sətirdə insert ilə eyni transaction-da (insert alınmasa rezerv də geri qaytarılır)
+        // 3. səbətdə: mövcud sətir yaddaşda artır (write-behind), yeni sətir dərhal yazılır
+        CartLineRow line = cartStore.add(cart, product.getId(), addCount, () -> {
+            if (!inventoryService.tryReserve(cart.cartId(), product.getId(), addCount)) {
+                int available = inventoryService.available(product.getId());
+                throw new IllegalArgumentException(
+                        "Only " + available + " available in stock. " +
+                                "You already have " + cart.countOf(product.getId()) + " in cart. " +
+                                "Cannot add " + addCount + " more."
                 );
+            }
+        });
 
-        int currentCount = (item.getCount() == null) ? 0 : item.getCount();
-        int desiredTotal = currentCount + addCount;
+        return toCartItemResponse(line, product);
+    }
 
-        // 3. stock check
-        Integer stock = product.getStockCount();
-        if (stock == null) {
-            stock = 0;
+    // PATCH /cart: bir neçə sətir atomik (hamısı və ya heç biri). Məhsullar bir dəfə (cache-dən),
+    // stok bütün dəyişikliklər üçün birlikdə yoxlanır, sətirlər batch statement-lərlə yazılır
+    public CartViewResponse updateCart(Customer customer, CartBulkUpdateRequest req) {
+        Map<Long, IntUnaryOperator> changes = new LinkedHashMap<>();
+        List<Long> mustExist = new ArrayList<>();
+        for (CartBulkUpdateRequest.Item item : req.getItems()) {
+            if (changes.containsKey(item.getProductId())) {
+                throw new IllegalArgumentException("Duplicate productId in batch: " + item.getProductId());
+            }
+            changes.put(item.getProductId(), change(item));
+            // silinmiş məhsulun sətri yenə də silinə bilər
+            if (item.getOp() != CartBulkUpdateRequest.Op.REMOVE) {
+                mustExist.add(item.getProductId());
+            }
         }
 
-        if (desiredTotal > stock) {
-            throw new IllegalArgumentException(
-                    "Only " + stock + " left in stock. " +
-                            "You already have " + currentCount + " in cart. " +
-                            "Cannot add " + addCount + " more."
-            );
+        Map<Long, ProductResponse> products = productService.getByIds(new ArrayList<>(changes.keySet()))
+                .stream()
+                .collect(Collectors.toMap(ProductResponse::getId, Function.identity()));
+        for (Long productId : mustExist) {
+            if (!products.containsKey(productId)) {
+                throw new NotFoundException("Product not found: " + productId);
+            }
         }
 
-        // 4. persist
-        item.setCount(desiredTotal);
-        item = cartItemRepository.save(item);
-        cart.setUpdatedAt(LocalDateTime.now());
+        CartState cart = cartStore.get(customer.getUser());
+        cartStore.apply(cart, changes, deltas -> {
+            Set<Long> shortOf = inventoryService.adjustReservations(cart.cartId(), deltas);
+            if (!shortOf.isEmpty()) {
+                // exception → bütün rezervlər və sətir dəyişiklikləri geri qaytarılır
+                throw new IllegalArgumentException("Not enough stock for: " + shortOf.stream()
+                        .map(id -> products.containsKey(id) ? products.get(id).getName() : String.valueOf(id))
+                        .collect(Collectors.joining(", ")));
+            }
+        });
+
+        return getCartView(customer);
+    }
 
-        return toCartItemResponse(item);
+    private static IntUnaryOperator change(CartBulkUpdateRequest.Item item) {
+        if (item.getOp() == CartBulkUpdateRequest.Op.REMOVE) {
+            return current -> 0;
+        }
+        if (item.getCount() == null) {
+            throw new IllegalArgumentException("Count is required for " + item.getOp() + " (product " + item.getProductId() + ")");
+        }
+        int count = item.getCount();
+        if (item.getOp() == CartBulkUpdateRequest.Op.SET) {
+            if (count < 0) {
+                throw new IllegalArgumentException("Count must be >= 0");
+            }
+            return current -> count;
+        }
+        return current -> current + count;
     }
 
-    @Transactional
     public void removeItem(Customer customer, Long itemId) {
-        Cart cart = getOrCreateCart(customer.getUser());
+        CartState cart = cartStore.get(customer.getUser());
 
-        CartItem item = cartItemRepository.findById(itemId)
-                .orElseThrow(() -> new NotFoundException("Cart item not found"));
+        CartLineRow line = cartStore.remove(cart, itemId)
+                .orElseThrow(() -> missingItem(cart, itemId));
 
-        if (!item.getCart().getId().equals(cart.getId())) {
-            throw new AccessDeniedException("Item does not belong to your cart");
-        }
+        inventoryService.release(cart.cartId(), line.productId());
+    }
 
-        cart.setUpdatedAt(LocalDateTime.now());
-        cartItemRepository.delete(item);
+    // Səbətin bütün sətirləri yaddaşdadır; DB-yə yalnız xətanın növü üçün baxılır
+    private RuntimeException missingItem(CartState cart, Long itemId) {
+        if (!cart.isPendingDelete(itemId) && cartItemRepository.existsById(itemId)) {
+            return new AccessDeniedException("Item does not belong to your cart");
+        }
+        return new NotFoundException("Cart item not found");
     }
 
-    private CartItemResponse toCartItemResponse(CartItem item) {
-        BigDecimal unitPrice = item.getProduct().getPrice() != null
-                ? item.getProduct().getPrice()
-                : BigDecimal.ZERO;
-        int count = item.getCount() == null ? 0 : item.getCount();
+    private CartItemResponse toCartItemResponse(CartLineRow line, ProductResponse product) {
+        Money unitPrice = product.getPrice() == null ? Money.ZERO : product.getPrice();
+        int count = line.count() == null ? 0 : line.count();
         return CartItemResponse.builder()
-                .itemId(item.getId())
-                .productId(item.getProduct().getId())
-                .productName(item.getProduct().getName())
+                .itemId(line.itemId())
+                .productId(product.getId())
+                .productName(product.getName())
                 .count(count)
                 .pricePerUnit(unitPrice)
-                .totalPrice(unitPrice.multiply(BigDecimal.valueOf(count)))
+                .totalPrice(unitPrice.times(count))
+                .stockCount(product.getStockCount())
+                .exceedsStock(product.getStockCount() != null && count > product.getStockCount())
                 .build();
     }
 }
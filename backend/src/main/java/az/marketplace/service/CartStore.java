@@ -0,0 +1,444 @@
+package az.marketplace.service;
+
+import az.marketplace.dto.cart.CartLineRow;
+import az.marketplace.entity.Cart;
+import az.marketplace.entity.CartItem;
+import az.marketplace.entity.User;
+import az.marketplace.repository.CartItemRepository;
+import az.marketplace.repository.CartRepository;
+import az.marketplace.repository.ProductRepository;
+import az.marketplace.util.TransactionHooks;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Active carts in memory, keyed by user id (bounded; idle carts expire). A cart is loaded from
+ * cart_items on first access and read from memory afterwards. Count changes and removals only mark
+ * the cart dirty; they are written behind in coalesced batches ({@link #flushDirty}), and checkout
+ * calls {@link #beginCheckout} before reading cart_items. A new line is inserted right away, so the
+ * item id returned to the client is the real row id.
+ * State is per instance: a user's cart requests are expected to reach the same instance.
+ */
+@Component
+public class CartStore {
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<Long, CartState> carts;
+    // yazılmamış dəyişikliyi olan səbətlər; cache-dən çıxarılmış səbət də yazılana qədər burada qalır
+    private final Set<CartState> dirty = ConcurrentHashMap.newKeySet();
+    // cache-dən çıxarılmış, amma hələ yazılmamış (və ya checkout-da olan) səbətlər:
+    // yenidən müraciətdə DB əvəzinə bu götürülür, yazılmamış dəyişiklik itmir
+    private final Map<Long, CartState> evicted = new ConcurrentHashMap<>();
+
+    public CartStore(
+            CartRepository cartRepository,
+            CartItemRepository cartItemRepository,
+            ProductRepository productRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.cart.max-size:100000}") long maxSize,
+            @Value("${app.cart.idle-ttl:30m}") Duration idleTtl
+    ) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.productRepository = productRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.carts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(idleTtl)
+                // çıxarılma ilə atomik, DB-yə getmir: yazılmamış səbət flusher-ə qalır (dirty-dədir)
+                .evictionListener((Long userId, CartState state, RemovalCause cause) -> {
+                    if (userId != null && state != null && (dirty.contains(state) || state.checkingOut)) {
+                        evicted.put(userId, state);
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, carts, "carts");
+    }
+
+    // yoxdursa DB-dən yüklənir (səbət yoxdursa yaradılır)
+    public CartState get(User user) {
+        return carts.get(user.getId(), id -> load(user));
+    }
+
+    // Yeni məhsul: rezerv və sətir bir transaction-da dərhal yazılır; mövcud sətir: rezervdən sonra
+    // yalnız yaddaşda artır. reserve exception atarsa səbət dəyişmir
+    public CartLineRow add(CartState state, Long productId, int count, Runnable reserve) {
+        state.lock.lock();
+        try {
+            requireOpen(state);
+            Line line = state.lines.get(productId);
+            if (line == null) {
+                CartItem saved = transactionTemplate.execute(status -> {
+                    reserve.run();
+                    return cartItemRepository.save(CartItem.builder()
+                            .cart(cartRepository.getReferenceById(state.cartId))
+                            .product(productRepository.getReferenceById(productId))
+                            .count(count)
+                            .build());
+                });
+                line = new Line(saved.getId(), productId, count);
+                state.lines.put(productId, line);
+            } else {
+                reserve.run();
+                line.count += count;
+            }
+            changed(state);
+            return line.row();
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    // empty → bu səbətdə belə sətir yoxdur
+    public Optional<CartLineRow> remove(CartState state, Long itemId) {
+        state.lock.lock();
+        try {
+            requireOpen(state);
+            for (Iterator<Line> it = state.lines.values().iterator(); it.hasNext(); ) {
+                Line line = it.next();
+                if (line.itemId.equals(itemId)) {
+                    it.remove();
+                    state.pendingDeletes.add(itemId);
+                    changed(state);
+                    return Optional.of(line.row());
+                }
+            }
+            return Optional.empty();
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    /**
+     * Changes many lines at once; a target count of 0 removes the line. {@code inTransaction}
+     * gets the per-product deltas (e.g. stock reservations) and runs in the same transaction as the
+     * batched line writes, so either everything commits or nothing does. Memory is updated only
+     * after commit and the cart stays locked throughout. Must be called outside a transaction.
+     */
+    public void apply(CartState state, Map<Long, IntUnaryOperator> changes,
+                      Consumer<Map<Long, Integer>> inTransaction) {
+        state.lock.lock();
+        try {
+            requireOpen(state);
+            Map<Long, Integer> targets = new TreeMap<>();
+            Map<Long, Integer> deltas = new TreeMap<>();
+            changes.forEach((productId, change) -> {
+                Line line = state.lines.get(productId);
+                int current = line == null ? 0 : line.count;
+                int target = change.applyAsInt(current);
+                if (target < 0) {
+                    throw new IllegalArgumentException("Count cannot be negative for product " + productId);
+                }
+                if (target != current) {
+                    targets.put(productId, target);
+                    deltas.put(productId, target - current);
+                }
+            });
+            if (targets.isEmpty()) return;
+
+            Map<Long, Long> inserted = transactionTemplate.execute(status -> {
+                inTransaction.accept(deltas);
+
+                Map<Long, Integer> newLines = new TreeMap<>();
+                Map<Long, Integer> counts = new HashMap<>();
+                List<Long> deletes = new ArrayList<>();
+                targets.forEach((productId, target) -> {
+                    Line line = state.lines.get(productId);
+                    if (line == null) {
+                        newLines.put(productId, target);
+                    } else if (target == 0) {
+                        deletes.add(line.itemId);
+                    } else {
+                        counts.put(line.itemId, target);
+                    }
+                });
+                if (!deletes.isEmpty()) {
+                    cartItemRepository.deleteAllByIdIn(deletes);
+                }
+                cartItemRepository.updateCounts(counts);
+                cartRepository.touchAll(List.of(state.cartId), LocalDateTime.now());
+                return cartItemRepository.insertLines(state.cartId, newLines);
+            });
+
+            // commit olunub: dəyişən sətirlər DB ilə eynidir (write-behind-a ehtiyac yoxdur)
+            targets.forEach((productId, target) -> {
+                Line line = state.lines.get(productId);
+                if (line == null) {
+                    state.lines.put(productId, new Line(inserted.get(productId), productId, target));
+                } else if (target == 0) {
+                    state.lines.remove(productId);
+                } else {
+                    line.count = target;
+                    line.flushedCount = target;
+                }
+            });
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    /**
+     * Checkout: closes the cart for changes until the current transaction ends and writes its
+     * pending changes in that transaction, so cart_items read afterwards is final. Changes in the
+     * meantime fail with "in use" (409) instead of landing on lines the checkout already read.
+     * After commit the cart is dropped (its lines are deleted; the next access reloads it);
+     * after rollback it reopens.
+     */
+    public void beginCheckout(User user) {
+        CartState state = get(user);
+        state.lock.lock();
+        try {
+            requireOpen(state);
+            state.checkingOut = true;
+        } finally {
+            state.lock.unlock();
+        }
+
+        // köhnə referansla gələn dəyişiklik də rədd olunur (checkingOut qalır), təzəsi yenidən yüklənir
+        TransactionHooks.afterCommit(() -> {
+            carts.asMap().remove(state.userId, state);
+            evicted.remove(state.userId, state);
+        });
+        TransactionHooks.afterRollback(() -> {
+            state.lock.lock();
+            try {
+                state.checkingOut = false;
+            } finally {
+                state.lock.unlock();
+            }
+        });
+
+        if (state.isDirty()) {
+            flush(List.of(state));
+        }
+    }
+
+    // Scheduler: ən çox batchSize səbət bir transaction-da. Qaytarır: yazılan səbət sayı
+    public int flushDirty(int batchSize) {
+        List<CartState> batch = new ArrayList<>(batchSize);
+        for (CartState state : dirty) {
+            if (batch.size() == batchSize) break;
+            batch.add(state);
+        }
+        if (batch.isEmpty()) return 0;
+        flush(batch);
+        return batch.size();
+    }
+
+    private CartState load(User user) {
+        CartState kept = evicted.remove(user.getId());
+        if (kept != null) {
+            return kept;
+        }
+        return transactionTemplate.execute(status -> {
+            Cart cart = cartRepository.findByUser(user)
+                    .orElseGet(() -> cartRepository.save(Cart.builder().user(user).build()));
+            CartState state = new CartState(user.getId(), cart.getId());
+            for (CartLineRow row : cartItemRepository.findLineRows(cart.getId())) {
+                Line existing = state.lines.get(row.productId());
+                if (existing == null) {
+                    state.lines.put(row.productId(), new Line(row.itemId(), row.productId(), row.count()));
+                } else {
+                    // eyni məhsulun köhnə dublikat sətri birinciyə birləşdirilir
+                    existing.count += row.count();
+                    state.pendingDeletes.add(row.itemId());
+                    changed(state);
+                }
+            }
+            return state;
+        });
+    }
+
+    private static void requireOpen(CartState state) {
+        if (state.checkingOut) {
+            throw new IllegalArgumentException("Cart is in use by a checkout in progress");
+        }
+    }
+
+    private void changed(CartState state) {
+        state.version++;
+        dirty.add(state);
+    }
+
+    // Kilidlər user id sırası ilə alınır və yazı bitənə qədər saxlanılır:
+    // eyni səbətin iki flush-u (scheduler və checkout) DB-də sıra ilə tətbiq olunur
+    private void flush(List<CartState> states) {
+        List<CartState> ordered = new ArrayList<>(states);
+        ordered.sort(Comparator.comparing(s -> s.userId));
+        List<CartState> locked = new ArrayList<>(ordered.size());
+        try {
+            for (CartState state : ordered) {
+                state.lock.lock();
+                locked.add(state);
+            }
+            transactionTemplate.executeWithoutResult(status -> write(ordered));
+        } finally {
+            locked.forEach(s -> s.lock.unlock());
+        }
+    }
+
+    private void write(List<CartState> states) {
+        Map<Long, Integer> counts = new HashMap<>();
+        List<Long> deletes = new ArrayList<>();
+        List<Long> cartIds = new ArrayList<>();
+        List<Snapshot> snapshots = new ArrayList<>(states.size());
+        for (CartState state : states) {
+            Snapshot snapshot = state.snapshot();
+            snapshots.add(snapshot);
+            snapshot.counts().forEach((line, count) -> counts.put(line.itemId, count));
+            deletes.addAll(snapshot.deletes());
+            if (!snapshot.counts().isEmpty() || !snapshot.deletes().isEmpty()) {
+                cartIds.add(state.cartId);
+            }
+        }
+
+        if (!deletes.isEmpty()) {
+            cartItemRepository.deleteAllByIdIn(deletes);
+        }
+        cartItemRepository.updateCounts(counts);
+        if (!cartIds.isEmpty()) {
+            cartRepository.touchAll(cartIds, LocalDateTime.now());
+        }
+
+        // rollback olsa səbətlər dirty qalır və növbəti flush-da yenidən yazılır
+        TransactionHooks.afterCommit(() -> snapshots.forEach(this::markFlushed));
+    }
+
+    private void markFlushed(Snapshot snapshot) {
+        CartState state = snapshot.state();
+        state.lock.lock();
+        try {
+            snapshot.counts().forEach((line, count) -> line.flushedCount = count);
+            state.pendingDeletes.removeAll(snapshot.deletes());
+            state.flushedVersion = Math.max(state.flushedVersion, snapshot.version());
+            if (!state.isDirty()) {
+                dirty.remove(state);
+                if (!state.checkingOut) {
+                    evicted.remove(state.userId, state);
+                }
+            }
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    private record Snapshot(CartState state, long version, Map<Line, Integer> counts, Set<Long> deletes) {
+    }
+
+    private static final class Line {
+        private final Long itemId;
+        private final Long productId;
+        private int count;
+        // DB-dəki say (son uğurlu flush)
+        private int flushedCount;
+
+        private Line(Long itemId, Long productId, int count) {
+            this.itemId = itemId;
+            this.productId = productId;
+            this.count = count;
+            this.flushedCount = count;
+        }
+
+        private CartLineRow row() {
+            return new CartLineRow(itemId, productId, count);
+        }
+    }
+
+    /**
+     * One user's cart. Read accessors copy under the cart's lock; changes go through {@link CartStore}.
+     */
+    public static final class CartState {
+        private final Long userId;
+        private final Long cartId;
+        private final ReentrantLock lock = new ReentrantLock();
+        // məhsul id → sətir, əlavə olunma sırası ilə
+        private final Map<Long, Line> lines = new LinkedHashMap<>();
+        // yaddaşda silinib, DB-də hələ silinməyib
+        private final Set<Long> pendingDeletes = new HashSet<>();
+        private long version;
+        private long flushedVersion;
+        // checkout cart_items-i oxuyur: dəyişiklik qəbul olunmur (eviction listener kilidsiz oxuyur)
+        private volatile boolean checkingOut;
+
+        CartState(Long userId, Long cartId) {
+            this.userId = userId;
+            this.cartId = cartId;
+        }
+
+        public Long cartId() {
+            return cartId;
+        }
+
+        public List<CartLineRow> lines() {
+            lock.lock();
+            try {
+                List<CartLineRow> rows = new ArrayList<>(lines.size());
+                for (Line line : lines.values()) {
+                    rows.add(line.row());
+                }
+                return rows;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public int countOf(Long productId) {
+            lock.lock();
+            try {
+                Line line = lines.get(productId);
+                return line == null ? 0 : line.count;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public boolean isPendingDelete(Long itemId) {
+            lock.lock();
+            try {
+                return pendingDeletes.contains(itemId);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean isDirty() {
+            lock.lock();
+            try {
+                return version != flushedVersion;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // kilid altında çağırılır
+        private Snapshot snapshot() {
+            Map<Line, Integer> counts = new HashMap<>();
+            for (Line line : lines.values()) {
+                if (line.count != line.flushedCount) {
+                    counts.put(line, line.count);
+                }
+            }
+            return new Snapshot(this, version, counts, Set.copyOf(pendingDeletes));
+        }
+    }
+}
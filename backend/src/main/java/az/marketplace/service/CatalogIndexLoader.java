@@ -0,0 +1,58 @@
+package az.marketplace.service;
+
+import az.marketplace.dto.product.ProductResponse;
+import az.marketplace.entity.Product;
+import az.marketplace.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Startup-da in-memory kataloq indekslərini DB-dən axınla (cursor) yenidən qurur
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CatalogIndexLoader {
+
+    private static final int CLEAR_EVERY = 1000;
+
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        Integer indexed = tx.execute(status -> {
+            int n = 0;
+            try (Stream<Product> products = productRepository.streamAllForExport()) {
+                Iterator<Product> it = products.iterator();
+                while (it.hasNext()) {
+                    ProductResponse product = productService.toProductResponse(it.next(), List.of());
+                    productSearchIndex.index(product);
+                    productFacetIndex.index(product);
+                    if (++n % CLEAR_EVERY == 0) {
+                        entityManager.clear();
+                    }
+                }
+            }
+            return n;
+        });
+
+        log.info("Catalog indexes rebuilt: {} products in {} ms", indexed, System.currentTimeMillis() - started);
+    }
+}
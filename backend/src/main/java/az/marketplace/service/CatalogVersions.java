@@ -0,0 +1,58 @@
+package az.marketplace.service;
+
+import az.marketplace.util.ConditionalGet;
+import az.marketplace.util.TransactionHooks;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catalog-wide versions for list endpoints (products, categories). Bumped only after
+ * the writing transaction commits, so a client can never cache pre-commit data under a
+ * new ETag. The startup epoch is part of the ETag, so counters restarting from zero
+ * never validate a stale copy.
+ */
+@Component
+public class CatalogVersions {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Counter products = new Counter("products");
+    private final Counter categories = new Counter("categories");
+
+    public void productsChanged() {
+        TransactionHooks.afterCommit(products::bump);
+    }
+
+    public void categoriesChanged() {
+        TransactionHooks.afterCommit(categories::bump);
+    }
+
+    public ConditionalGet.Version products() {
+        return products.version();
+    }
+
+    public ConditionalGet.Version categories() {
+        return categories.version();
+    }
+
+    private final class Counter {
+
+        private final String name;
+        private final AtomicLong value = new AtomicLong();
+        private volatile long lastModified = System.currentTimeMillis();
+
+        private Counter(String name) {
+            this.name = name;
+        }
+
+        private void bump() {
+            lastModified = System.currentTimeMillis();
+            value.incrementAndGet();
+        }
+
+        private ConditionalGet.Version version() {
+            long modified = lastModified;
+            return new ConditionalGet.Version("\"" + name + "-" + epoch + "-" + value.get() + "\"", modified);
+        }
+    }
+}
@@ -21,6 +21,7 @@ public class CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final CurrentUserService currentUserService;
+    private final CatalogVersions catalogVersions;
 
     @Transactional
     public CategoryResponse createCategory(CategoryRequest request) {
@@ -41,6 +42,7 @@ public class CategoryService {
                 .build();
 
         category = categoryRepository.save(category);
+        catalogVersions.categoriesChanged();
 
         return toResponse(category);
     }
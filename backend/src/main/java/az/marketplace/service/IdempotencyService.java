@@ -0,0 +1,213 @@
+package az.marketplace.service;
+
+import az.marketplace.entity.IdempotencyKey;
+import az.marketplace.exception.IdempotencyConflictException;
+import az.marketplace.exception.IdempotencyKeyReuseException;
+import az.marketplace.repository.IdempotencyKeyRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Stores responses of requests sent with an {@code Idempotency-Key} header so that a retry
+ * returns the first response instead of running the operation again.
+ * <p>
+ * A key is claimed with a conditional INSERT before the request runs. Duplicates arriving
+ * while it runs wait for it: on this instance on an in-memory future, on other instances
+ * by polling the row. Finished responses are also kept in a small Caffeine cache, so most
+ * retries are answered without touching the database.
+ * <p>
+ * The claim also records a hash of the request body; a request that reuses a key with a
+ * different body is rejected instead of getting the other request's response.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    private static final long POLL_INTERVAL_MS = 50;
+
+    private final IdempotencyKeyRepository repository;
+    private final TransactionTemplate tx;
+    private final Cache<String, Completed> completed;
+    private final Map<String, Claim> inFlight = new ConcurrentHashMap<>();
+    private final Duration ttl;
+    private final Duration lease;
+    private final Duration waitTimeout;
+
+    public IdempotencyService(
+            IdempotencyKeyRepository repository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.idempotency.ttl:24h}") Duration ttl,
+            @Value("${app.idempotency.lease:60s}") Duration lease,
+            @Value("${app.idempotency.wait-timeout:10s}") Duration waitTimeout,
+            @Value("${app.idempotency.cache-max-size:10000}") long cacheMaxSize
+    ) {
+        this.repository = repository;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        this.lease = lease;
+        this.waitTimeout = waitTimeout;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, completed, "idempotency");
+    }
+
+    public record StoredResponse(int status, String contentType, String body) {
+    }
+
+    private record Claim(String requestHash, CompletableFuture<StoredResponse> result) {
+    }
+
+    private record Completed(String requestHash, StoredResponse response) {
+    }
+
+    /**
+     * @return the stored response to replay, or empty when the caller now owns the key and
+     * must finish with {@link #complete} or {@link #abandon}
+     * @throws IdempotencyConflictException when the first request is still running after the wait timeout
+     * @throws IdempotencyKeyReuseException when the key was claimed for a request with another body
+     */
+    public Optional<StoredResponse> acquire(String keyHash, String requestHash) {
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (true) {
+            Completed cached = completed.getIfPresent(keyHash);
+            if (cached != null) {
+                requireSameRequest(cached.requestHash(), requestHash);
+                return Optional.of(cached.response());
+            }
+
+            Claim mine = new Claim(requestHash, new CompletableFuture<>());
+            Claim running = inFlight.putIfAbsent(keyHash, mine);
+            if (running != null) {
+                requireSameRequest(running.requestHash(), requestHash);
+                // bu instance-da eyni açarla sorğu icra olunur → onun nəticəsini gözləyirik
+                StoredResponse result = await(running.result(), deadline);
+                if (result != null) return Optional.of(result);
+                continue; // birinci sorğu uğursuz oldu (abandon) → yenidən cəhd
+            }
+
+            try {
+                Optional<StoredResponse> stored = claimOrWait(keyHash, requestHash, deadline);
+                if (stored.isEmpty()) return stored; // açar bizimdir, future complete/abandon-da bağlanır
+                finish(keyHash, stored.get());
+                return stored;
+            } catch (RuntimeException e) {
+                finish(keyHash, null);
+                throw e;
+            }
+        }
+    }
+
+    // cavab saxlanılır; gözləyənlər onu alır
+    public void complete(String keyHash, String requestHash, StoredResponse response) {
+        try {
+            tx.executeWithoutResult(s -> repository.complete(keyHash, response.status(), response.contentType(),
+                    response.body(), LocalDateTime.now().plus(ttl)));
+            completed.put(keyHash, new Completed(requestHash, response));
+        } finally {
+            finish(keyHash, response);
+        }
+    }
+
+    // sorğu uğursuz oldu (5xx / exception) → açar azad olunur, təkrar sorğu yenidən icra edəcək
+    public void abandon(String keyHash) {
+        try {
+            tx.executeWithoutResult(s -> repository.release(keyHash));
+        } catch (RuntimeException e) {
+            log.warn("Could not release idempotency key, it expires with its lease: {}", e.getMessage());
+        } finally {
+            finish(keyHash, null);
+        }
+    }
+
+    public int purgeExpired() {
+        Integer deleted = tx.execute(s -> repository.deleteExpired(LocalDateTime.now()));
+        return deleted == null ? 0 : deleted;
+    }
+
+    // Başqa instance açarı tutubsa, cavab yazılana qədər sətri yoxlayırıq
+    private Optional<StoredResponse> claimOrWait(String keyHash, String requestHash, long deadline) {
+        while (true) {
+            Boolean claimed = tx.execute(s -> {
+                LocalDateTime now = LocalDateTime.now();
+                repository.deleteIfExpired(keyHash, now);
+                // lease: icra zamanı proses ölsə, açar sonsuza qədər bloklanmasın
+                return repository.claim(keyHash, requestHash, now, now.plus(lease)) > 0;
+            });
+            if (Boolean.TRUE.equals(claimed)) return Optional.empty();
+
+            Optional<IdempotencyKey> row = repository.findById(keyHash);
+            row.ifPresent(key -> requireSameRequest(key.getRequestHash(), requestHash));
+            if (row.isPresent() && row.get().getStatusCode() != null) {
+                IdempotencyKey key = row.get();
+                StoredResponse stored = new StoredResponse(key.getStatusCode(), key.getContentType(), key.getResponseBody());
+                completed.put(keyHash, new Completed(key.getRequestHash(), stored));
+                return Optional.of(stored);
+            }
+            if (row.isPresent()) {
+                pause(deadline);
+            }
+        }
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> running, long deadline) {
+        try {
+            return running.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw inProgress();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw inProgress();
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    private void pause(long deadline) {
+        if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(POLL_INTERVAL_MS) > deadline) {
+            throw inProgress();
+        }
+        try {
+            Thread.sleep(POLL_INTERVAL_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw inProgress();
+        }
+    }
+
+    private void finish(String keyHash, StoredResponse response) {
+        Claim claim = inFlight.remove(keyHash);
+        if (claim != null) claim.result().complete(response);
+    }
+
+    // hash-i olmayan köhnə sətirlər yoxlanmır
+    private static void requireSameRequest(String claimedHash, String requestHash) {
+        if (claimedHash != null && !claimedHash.equals(requestHash)) {
+            throw new IdempotencyKeyReuseException("Idempotency-Key was already used with a different request body");
+        }
+    }
+
+    private static IdempotencyConflictException inProgress() {
+        return new IdempotencyConflictException("A request with this Idempotency-Key is still being processed");
+    }
+}
@@ -0,0 +1,432 @@
+package az.marketplace.service;
+
+import az.marketplace.entity.Product;
+import az.marketplace.entity.ProductStockBucket;
+import az.marketplace.entity.StockHold;
+import az.marketplace.exception.NotFoundException;
+import az.marketplace.repository.ProductRepository;
+import az.marketplace.repository.ProductStockBucketRepository;
+import az.marketplace.repository.StockHoldRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Time-limited cart reservations. Available stock is {@code stock_count - reserved_count};
+ * every check is a single guarded UPDATE on the product row, never a read-then-compare, and
+ * no path locks the product row up front. Hold rows are locked so the same hold is never
+ * released twice. Multi-product paths touch products in id order. The expiry sweeper never
+ * waits for a lock (everything it takes is {@code SKIP LOCKED}), so it cannot deadlock with
+ * checkout or cart changes; whatever is busy is left for its next run.
+ * <p>
+ * Products with {@code stock_shards > 1} keep their stock in N bucket rows instead
+ * (flash sales): each operation starts at a random bucket and falls back to the others,
+ * so concurrent checkouts mostly update different rows and never touch the product row.
+ * Only when no single bucket can cover the quantity are all buckets locked and the quantity
+ * split across them. {@link #reshard} coordinates through the same rows: it locks every
+ * bucket before folding or replacing them, so in-flight bucket updates are counted and later
+ * ones find no row; plain-mode UPDATEs are guarded by {@code stock_shards <= 1}. Releases
+ * and restocks that miss because of a mode switch are retried in the new mode.
+ */
+@Service
+public class InventoryService {
+
+    // reshard arada rejimi dəyişibsə buraxma/restock yeni rejimdə neçə dəfə təkrarlanır
+    private static final int MODE_ATTEMPTS = 3;
+
+    private final ProductRepository productRepository;
+    private final StockHoldRepository stockHoldRepository;
+    private final ProductStockBucketRepository bucketRepository;
+    private final Duration holdTtl;
+
+    public InventoryService(
+            ProductRepository productRepository,
+            StockHoldRepository stockHoldRepository,
+            ProductStockBucketRepository bucketRepository,
+            @Value("${app.inventory.hold-ttl:15m}") Duration holdTtl
+    ) {
+        this.productRepository = productRepository;
+        this.stockHoldRepository = stockHoldRepository;
+        this.bucketRepository = bucketRepository;
+        this.holdTtl = holdTtl;
+    }
+
+    // Səbətə əlavə: false → mövcud stok çatmır. Uğurlu olduqda səbətin bütün rezervləri uzanır
+    @Transactional
+    public boolean tryReserve(Long cartId, Long productId, int qty) {
+        if (!reserve(productId, shards(productId), qty)) {
+            return false;
+        }
+        LocalDateTime expiresAt = LocalDateTime.now().plus(holdTtl);
+        addToHold(cartId, productId, qty, expiresAt);
+        stockHoldRepository.extendForCart(cartId, expiresAt);
+        return true;
+    }
+
+    // Bulk səbət dəyişikliyi: delta > 0 → rezerv, < 0 → rezervin bir hissəsi azad olunur.
+    // Qaytarır: stoku çatmayan məhsullar; boş deyilsə çağıran transaction-ı geri qaytarmalıdır
+    @Transactional
+    public Set<Long> adjustReservations(Long cartId, Map<Long, Integer> deltas) {
+        Set<Long> shortOf = new TreeSet<>();
+        LocalDateTime expiresAt = LocalDateTime.now().plus(holdTtl);
+        for (Map.Entry<Long, Integer> e : new TreeMap<>(deltas).entrySet()) {
+            Long productId = e.getKey();
+            int shards = shards(productId);
+            int delta = e.getValue();
+            if (delta > 0) {
+                if (reserve(productId, shards, delta)) {
+                    addToHold(cartId, productId, delta, expiresAt);
+                } else {
+                    shortOf.add(productId);
+                }
+            } else if (delta < 0) {
+                releaseFromHold(cartId, productId, shards, -delta);
+            }
+        }
+        if (shortOf.isEmpty()) {
+            stockHoldRepository.extendForCart(cartId, expiresAt);
+        }
+        return shortOf;
+    }
+
+    // Səbətdən silinmə
+    @Transactional
+    public void release(Long cartId, Long productId) {
+        stockHoldRepository.lockByCartAndProduct(cartId, productId).ifPresent(hold -> {
+            releaseReserved(productId, shards(productId), hold.getQuantity());
+            stockHoldRepository.delete(hold);
+        });
+    }
+
+    // Checkout: səbətin rezervləri (varsa) satışa çevrilir. Qaytarır: stoku çatmayan ilk məhsul
+    // (çağıran transaction-ı geri qaytarmalıdır). Rezervin vaxtı keçib silinibsə, miqdar sadəcə
+    // mövcud stokdan yoxlanır. Məhsullar id sırası ilə
+    @Transactional
+    public Optional<Long> sell(Long cartId, Map<Long, Integer> quantities) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<Long, Integer> line : new TreeMap<>(quantities).entrySet()) {
+            Long productId = line.getKey();
+            int qty = line.getValue();
+            int shards = shards(productId);
+            Optional<StockHold> hold = stockHoldRepository.lockByCartAndProduct(cartId, productId);
+            int held = hold.map(StockHold::getQuantity).orElse(0);
+            boolean sold = shards > 1
+                    ? sellSharded(productId, shards, qty, held)
+                    : productRepository.sellStock(productId, qty, held, now) > 0;
+            if (!sold) {
+                return Optional.of(productId);
+            }
+            hold.ifPresent(stockHoldRepository::delete);
+        }
+        return Optional.empty();
+    }
+
+    @Transactional(readOnly = true)
+    public int available(Long productId) {
+        if (shards(productId) > 1) {
+            return (int) Math.max(0, bucketRepository.sumAvailable(productId));
+        }
+        return Math.max(0, productRepository.findAvailableStock(productId).orElse(0));
+    }
+
+    // Sifariş ləğvi: stok geri qaytarılır (sharded → təsadüfi bucket). 0 sətir → rejim arada dəyişib
+    @Transactional
+    public void restock(Long productId, int qty) {
+        for (int attempt = 0; attempt < MODE_ATTEMPTS; attempt++) {
+            int shards = shards(productId);
+            int updated = shards > 1
+                    ? bucketRepository.add(productId, randomBucket(shards), qty)
+                    : productRepository.incrementStock(productId, qty, LocalDateTime.now());
+            if (updated > 0) return;
+        }
+    }
+
+    // Bulk delta (sharded məhsul): false → stok (rezervlər çıxılmaqla) çatmır
+    @Transactional
+    public boolean adjustShardedStock(Long productId, int delta) {
+        int shards = shards(productId);
+        if (delta >= 0) {
+            bucketRepository.add(productId, randomBucket(shards), delta);
+            return true;
+        }
+        return sellSharded(productId, shards, -delta, 0);
+    }
+
+    // Mütləq stok dəyəri (sharded məhsul): bucket-lərə bərabər paylanır, rezervlər yerində qalır
+    @Transactional
+    public void setShardedStock(Long productId, int total) {
+        List<ProductStockBucket> buckets = bucketRepository.lockAll(productId);
+        int[] split = split(total, buckets.size());
+        for (int i = 0; i < buckets.size(); i++) {
+            buckets.get(i).setStockCount(split[i]);
+        }
+    }
+
+    /**
+     * Switches a product between plain and sharded stock. {@code shards <= 1} folds the
+     * buckets back into the product row. Stock and outstanding reservations are preserved;
+     * reservations and sales that read the old mode just before the switch may be rejected
+     * once, releases and restocks are redone in the new mode.
+     */
+    @Transactional
+    public void reshard(Long productId, int shards) {
+        Product product = productRepository.lockById(productId)
+                .orElseThrow(() -> new NotFoundException("Product not found"));
+
+        int stock;
+        int reserved;
+        if (product.getStockShards() != null && product.getStockShards() > 1) {
+            List<ProductStockBucket> buckets = bucketRepository.lockAll(productId);
+            stock = buckets.stream().mapToInt(ProductStockBucket::getStockCount).sum();
+            reserved = buckets.stream().mapToInt(ProductStockBucket::getReservedCount).sum();
+            bucketRepository.deleteAllInBatch(buckets);
+        } else {
+            stock = product.getStockCount();
+            reserved = product.getReservedCount();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (shards <= 1) {
+            productRepository.setStockState(productId, stock, reserved, 0, now);
+            return;
+        }
+
+        productRepository.setStockState(productId, 0, 0, shards, now);
+        int[] stockSplit = split(stock, shards);
+        List<ProductStockBucket> buckets = new ArrayList<>(shards);
+        int reservedLeft = reserved;
+        for (int i = 0; i < shards; i++) {
+            // rezerv bucket-in öz stokunu keçməsin; artıq qalan (stock < reserved) sonuncuya düşür
+            int bucketReserved = i == shards - 1 ? reservedLeft : Math.min(reservedLeft, stockSplit[i]);
+            reservedLeft -= bucketReserved;
+            buckets.add(ProductStockBucket.builder()
+                    .productId(productId)
+                    .bucketNo(i)
+                    .stockCount(stockSplit[i])
+                    .reservedCount(bucketReserved)
+                    .build());
+        }
+        bucketRepository.saveAll(buckets);
+    }
+
+    // Sweeper üçün bir batch; qaytarır: tam azad olunan rezerv sayı. Heç bir kilidi gözləmir:
+    // rezervlər, adi məhsul sətirləri və bucket-lər SKIP LOCKED ilə alınır. Məhsulu (və ya bucket-ləri)
+    // hazırda kilidli olan rezervlər növbəti run-a qalır; qismən azad olunan rezervin miqdarı azalır
+    @Transactional
+    public int releaseExpired(int batchSize) {
+        List<StockHold> expired = stockHoldRepository.lockExpired(LocalDateTime.now(), PageRequest.of(0, batchSize));
+        if (expired.isEmpty()) return 0;
+
+        Map<Long, List<StockHold>> byProduct = new TreeMap<>();
+        for (StockHold hold : expired) {
+            byProduct.computeIfAbsent(hold.getProductId(), id -> new ArrayList<>()).add(hold);
+        }
+        Set<Long> plain = new HashSet<>(productRepository.lockPlainStock(byProduct.keySet()));
+
+        List<StockHold> released = new ArrayList<>();
+        for (Map.Entry<Long, List<StockHold>> e : byProduct.entrySet()) {
+            Long productId = e.getKey();
+            List<StockHold> holds = e.getValue();
+            int qty = holds.stream().mapToInt(StockHold::getQuantity).sum();
+            int freed;
+            if (plain.contains(productId)) {
+                // məhsul üzrə bir UPDATE; sətir artıq bizdədir, gözləmə yoxdur
+                productRepository.releaseReserved(productId, qty);
+                freed = qty;
+            } else {
+                int shards = shards(productId);
+                // adi məhsulun sətri başqa transaction-dadır → növbəti run
+                freed = shards > 1 ? releaseFromUnlockedBuckets(productId, shards, qty) : 0;
+            }
+            settle(holds, freed, released);
+        }
+        stockHoldRepository.deleteAllInBatch(released);
+        return released.size();
+    }
+
+    // Sweeper: yalnız hazırda kilidsiz bucket-lərdən; qaytarır: azad olunmuş sayılan miqdar.
+    // Bütün bucket-lər əlimizdədirsə, onlarda olmayan rezerv də azad sayılır (əks halda rezerv heç vaxt silinməz)
+    private int releaseFromUnlockedBuckets(Long productId, int shards, int qty) {
+        List<ProductStockBucket> buckets = bucketRepository.lockUnlocked(productId);
+        int left = qty;
+        for (ProductStockBucket bucket : buckets) {
+            int take = Math.min(left, bucket.getReservedCount());
+            bucket.setReservedCount(bucket.getReservedCount() - take);
+            left -= take;
+        }
+        return buckets.size() >= shards ? qty : qty - left;
+    }
+
+    // azad olunan miqdar rezervlərə paylanır: tam örtülənlər silinir, qismən örtülənin miqdarı azalır
+    private static void settle(List<StockHold> holds, int freed, List<StockHold> released) {
+        int left = freed;
+        for (StockHold hold : holds) {
+            if (left <= 0) return;
+            if (hold.getQuantity() <= left) {
+                left -= hold.getQuantity();
+                released.add(hold);
+            } else {
+                hold.setQuantity(hold.getQuantity() - left);
+                left = 0;
+            }
+        }
+    }
+
+    private boolean reserve(Long productId, int shards, int qty) {
+        return shards > 1
+                ? reserveSharded(productId, shards, qty)
+                : productRepository.reserveStock(productId, qty) > 0;
+    }
+
+    private void addToHold(Long cartId, Long productId, int qty, LocalDateTime expiresAt) {
+        StockHold hold = stockHoldRepository.lockByCartAndProduct(cartId, productId)
+                .orElseGet(() -> StockHold.builder().cartId(cartId).productId(productId).quantity(0).build());
+        hold.setQuantity(hold.getQuantity() + qty);
+        hold.setExpiresAt(expiresAt);
+        stockHoldRepository.save(hold);
+    }
+
+    // rezerv vaxtı keçib silinibsə azad olunacaq heç nə yoxdur
+    private void releaseFromHold(Long cartId, Long productId, int shards, int qty) {
+        stockHoldRepository.lockByCartAndProduct(cartId, productId).ifPresent(hold -> {
+            int released = Math.min(qty, hold.getQuantity());
+            releaseReserved(productId, shards, released);
+            if (released == hold.getQuantity()) {
+                stockHoldRepository.delete(hold);
+            } else {
+                hold.setQuantity(hold.getQuantity() - released);
+                stockHoldRepository.save(hold);
+            }
+        });
+    }
+
+    // Buraxılan rezerv itməməlidir: reshard arada rejimi dəyişibsə (adi UPDATE 0 qaytarır, bucket-lər
+    // silinib) qalan hissə yeni rejimdə azad olunur - reshard rezervləri yeni rejimə köçürüb
+    private void releaseReserved(Long productId, int shards, int qty) {
+        int left = qty;
+        for (int attempt = 1; ; attempt++) {
+            left = shards > 1
+                    ? releaseFromBuckets(productId, shards, left)
+                    : productRepository.releaseReserved(productId, left) > 0 ? 0 : left;
+            if (left == 0 || attempt >= MODE_ATTEMPTS) return;
+            int current = shards(productId);
+            if ((current > 1) == (shards > 1)) return; // rejim eynidir: bu qədər rezerv yoxdur
+            shards = current;
+        }
+    }
+
+    // qaytarır: azad olunmayan miqdar
+    private int releaseFromBuckets(Long productId, int shards, int qty) {
+        int start = randomBucket(shards);
+        for (int i = 0; i < shards; i++) {
+            if (bucketRepository.release(productId, (start + i) % shards, qty) > 0) return 0;
+        }
+        // rezerv bir neçə bucket-ə paylanıb (və ya reshard bucket-ləri dəyişib)
+        int left = qty;
+        for (ProductStockBucket bucket : bucketRepository.lockAll(productId)) {
+            int take = Math.min(left, bucket.getReservedCount());
+            bucket.setReservedCount(bucket.getReservedCount() - take);
+            left -= take;
+        }
+        return left;
+    }
+
+    private boolean reserveSharded(Long productId, int shards, int qty) {
+        int start = randomBucket(shards);
+        for (int i = 0; i < shards; i++) {
+            if (bucketRepository.reserve(productId, (start + i) % shards, qty) > 0) return true;
+        }
+        // heç bir bucket tək başına çatmır → hamısı kilidlənir, miqdar bölünür
+        List<ProductStockBucket> buckets = bucketRepository.lockAll(productId);
+        if (availableIn(buckets) < qty) return false;
+        int left = qty;
+        for (ProductStockBucket bucket : buckets) {
+            int take = Math.min(left, Math.max(0, bucket.getStockCount() - bucket.getReservedCount()));
+            bucket.setReservedCount(bucket.getReservedCount() + take);
+            left -= take;
+        }
+        return true;
+    }
+
+    private boolean sellSharded(Long productId, int shards, int qty, int held) {
+        int start = randomBucket(shards);
+        for (int i = 0; i < shards; i++) {
+            if (bucketRepository.sell(productId, (start + i) % shards, qty, held) > 0) return true;
+        }
+        List<ProductStockBucket> buckets = bucketRepository.lockAll(productId);
+        int n = buckets.size();
+        int[] stock = new int[n];
+        int[] reserved = new int[n];
+        for (int i = 0; i < n; i++) {
+            stock[i] = buckets.get(i).getStockCount();
+            reserved[i] = buckets.get(i).getReservedCount();
+        }
+
+        // Rezervin hansı bucket-də olduğu saxlanılmır. Əvvəl stokla örtülməyən artıq rezerv azad olunur
+        // (reshard onu sonuncu bucket-ə qoyur), sonra qalanı - başqa səbətlərin örtülü rezervinə toxunmamaq üçün
+        int heldLeft = held;
+        for (int i = 0; i < n && heldLeft > 0; i++) {
+            int release = Math.min(heldLeft, Math.max(0, reserved[i] - stock[i]));
+            reserved[i] -= release;
+            heldLeft -= release;
+        }
+        for (int i = 0; i < n && heldLeft > 0; i++) {
+            int release = Math.min(heldLeft, reserved[i]);
+            reserved[i] -= release;
+            heldLeft -= release;
+        }
+
+        // stok yalnız rezerv olunmamış hissədən götürülür; çatmırsa heç nə dəyişmir
+        int left = qty;
+        for (int i = 0; i < n && left > 0; i++) {
+            int take = Math.min(left, Math.max(0, stock[i] - reserved[i]));
+            stock[i] -= take;
+            left -= take;
+        }
+        if (left > 0) return false;
+
+        for (int i = 0; i < n; i++) {
+            buckets.get(i).setStockCount(stock[i]);
+            buckets.get(i).setReservedCount(reserved[i]);
+        }
+        return true;
+    }
+
+    private int shards(Long productId) {
+        return productRepository.findStockShards(productId).orElse(0);
+    }
+
+    private static long availableIn(List<ProductStockBucket> buckets) {
+        long available = 0;
+        for (ProductStockBucket bucket : buckets) {
+            available += Math.max(0, bucket.getStockCount() - bucket.getReservedCount());
+        }
+        return available;
+    }
+
+    private static int randomBucket(int shards) {
+        return ThreadLocalRandom.current().nextInt(shards);
+    }
+
+    // total-u n hissəyə bərabər bölür (qalıq ilk bucket-lərə)
+    static int[] split(int total, int n) {
+        int[] parts = new int[n];
+        for (int i = 0; i < n; i++) {
+            parts[i] = total / n + (i < total % n ? 1 : 0);
+        }
+        return parts;
+    }
+}
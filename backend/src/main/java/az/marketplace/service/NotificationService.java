@@ -3,7 +3,9 @@ package az.marketplace.service;
 import az.marketplace.dto.notification.NotificationResponse;
 import az.marketplace.entity.Notification;
 import az.marketplace.entity.Order;
+import az.marketplace.entity.OrderLine;
 import az.marketplace.repository.NotificationRepository;
+import az.marketplace.util.TransactionHooks;
 import lombok.RequiredArgsConstructor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
@@ -55,8 +57,7 @@ public class NotificationService {
 
     @Transactional
     public NotificationResponse notifyOrderCreated(Order order) {
-        String productName = order.getProduct() != null ? order.getProduct().getName() : "an item";
-        String message = String.format("New order #%d created for %s", order.getId(), productName);
+        String message = String.format("New order #%d created for %s", order.getId(), describeLines(order));
 
         Notification notification = Notification.builder()
                 .message(message)
@@ -67,10 +68,20 @@ public class NotificationService {
 
         notification = notificationRepository.save(notification);
         NotificationResponse response = toResponse(notification);
-        broadcast(response);
+        // rollback olunan transaction-dan broadcast getməsin
+        TransactionHooks.afterCommit(() -> broadcast(response));
         return response;
     }
 
+    // "Phone" / "Phone and 2 more items"
+    private static String describeLines(Order order) {
+        List<OrderLine> lines = order.getLines();
+        if (lines == null || lines.isEmpty()) return "an item";
+        String first = lines.get(0).getProduct().getName();
+        int more = lines.size() - 1;
+        return more == 0 ? first : first + " and " + more + " more item" + (more == 1 ? "" : "s");
+    }
+
     private NotificationResponse toResponse(Notification n) {
         return NotificationResponse.builder()
                 .id(n.getId())
@@ -0,0 +1,25 @@
+package az.marketplace.service;
+
+import az.marketplace.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+// Outbox: yeni sifariş üçün merchant bildirişi (əvvəllər checkout transaction-ının içində idi)
+@Component
+@RequiredArgsConstructor
+public class OrderCreatedNotifier implements OutboxEventHandler {
+
+    private final OrderRepository orderRepository;
+    private final NotificationService notificationService;
+
+    @Override
+    public String eventType() {
+        return OutboxService.ORDER_CREATED;
+    }
+
+    @Override
+    public void handle(Long orderId) {
+        // sifariş sonradan silinibsə bildirişə ehtiyac yoxdur
+        orderRepository.findById(orderId).ifPresent(notificationService::notifyOrderCreated);
+    }
+}
@@ -0,0 +1,47 @@
+package az.marketplace.service;
+
+import az.marketplace.entity.Order;
+import az.marketplace.repository.OrderRepository;
+import az.marketplace.util.TransactionHooks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+// Outbox: satış analitikası üçün Micrometer metrikləri (marketplace.orders.created / .amount)
+@Component
+public class OrderMetricsRecorder implements OutboxEventHandler {
+
+    private final OrderRepository orderRepository;
+    private final Counter created;
+    private final DistributionSummary amount;
+
+    public OrderMetricsRecorder(OrderRepository orderRepository, MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.created = Counter.builder("marketplace.orders.created")
+                .description("Orders created at checkout")
+                .register(meterRegistry);
+        this.amount = DistributionSummary.builder("marketplace.orders.amount")
+                .description("Order totals")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String eventType() {
+        return OutboxService.ORDER_CREATED;
+    }
+
+    @Override
+    public void handle(Long orderId) {
+        // hadisə təkrar gələ bilər: sifariş bir dəfə sayılır. Bayraq outbox transaction-ında qoyulur,
+        // metrik isə commit-dən sonra yazılır (rollback olsa nə bayraq, nə metrik qalır)
+        if (orderRepository.markMetricsRecorded(orderId, LocalDateTime.now()) == 0) return;
+        orderRepository.findById(orderId).map(Order::getTotalAmount).ifPresent(total ->
+                TransactionHooks.afterCommit(() -> {
+                    created.increment();
+                    amount.record(total.toBigDecimal().doubleValue());
+                }));
+    }
+}
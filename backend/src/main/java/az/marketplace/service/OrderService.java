@@ -1,5 +1,13 @@
 package az.marketplace.service;
 
+import az.marketplace.dto.order.CustomerOrderPageRequest;
+import az.marketplace.dto.order.MerchantOrderPageRequest;
+import az.marketplace.dto.order.OrderBulkStatusRequest;
+import az.marketplace.dto.order.OrderBulkStatusResponse;
+import az.marketplace.dto.order.OrderHeaderRow;
+import az.marketplace.dto.order.OrderLineResponse;
+import az.marketplace.dto.order.OrderLineRow;
+import az.marketplace.dto.order.OrderPageResponse;
 import az.marketplace.dto.order.OrderResponse;
 import az.marketplace.dto.order.UpdateOrderStatusRequest;
 import az.marketplace.entity.*;
@@ -9,12 +17,15 @@ import az.marketplace.exception.NotFoundException;
 import az.marketplace.repository.CartItemRepository;
 import az.marketplace.repository.CartRepository;
 import az.marketplace.repository.OrderRepository;
-import az.marketplace.repository.ProductRepository;
+import az.marketplace.util.Money;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
-import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -26,60 +37,83 @@ public class OrderService {
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final OrderRepository orderRepository;
-    private final ProductRepository productRepository;
-    private final NotificationService notificationService;
+    private final OutboxService outboxService;
     private final BalanceService balanceService;
+    private final ProductCatalogSync productCatalogSync;
+    private final InventoryService inventoryService;
+    private final CartStore cartStore;
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
 
     @Transactional
     public List<OrderResponse> createOrdersFromCart(Customer customer) {
 
+        // in-memory səbətin yazılmamış dəyişiklikləri bu transaction-da cart_items-ə;
+        // transaction bitənə qədər səbət dəyişdirilə bilməz
+        cartStore.beginCheckout(customer.getUser());
+
         Cart cart = cartRepository.findByUser(customer.getUser())
                 .orElseThrow(() -> new NotFoundException("Cart not found"));
 
         List<CartItem> items = cartItemRepository.findByCart(cart);
         if (items.isEmpty()) return List.of();
 
-        // validate stock
-        BigDecimal orderTotal = BigDecimal.ZERO;
+        // miqdarları məhsul üzrə topla (id sırası ilə)
+        Map<Long, Integer> quantities = new TreeMap<>();
+        Map<Long, Product> productsById = new HashMap<>();
         for (CartItem item : items) {
             Product product = item.getProduct();
-            int cnt = Optional.ofNullable(item.getCount()).orElse(0);
-            int stock = Optional.ofNullable(product.getStockCount()).orElse(0);
+            int cnt = countOf(item.getCount());
             if (cnt <= 0) throw new IllegalArgumentException("Invalid quantity for " + product.getName());
-            if (cnt > stock) throw new IllegalArgumentException("Product '" + product.getName() + "' only " + stock + " left");
-            BigDecimal price = Optional.ofNullable(product.getPrice()).orElse(BigDecimal.ZERO);
-            orderTotal = orderTotal.add(price.multiply(BigDecimal.valueOf(cnt)));
+            quantities.merge(product.getId(), cnt, Integer::sum);
+            productsById.put(product.getId(), product);
         }
 
-        // Atomic debit before creating orders; rollback will restore if anything fails
-        balanceService.debitForOrder(customer, orderTotal);
-
-        List<Order> createdOrders = new ArrayList<>();
-        LinkedHashSet<Product> touchedProducts = new LinkedHashSet<>();
+        // Səbət rezervləri satışa çevrilir; stok yalnız şərtli UPDATE ilə azalır (Java-dakı köhnə dəyərə baxılmır)
+        sellStock(cart.getId(), quantities, productsById);
 
-        for (CartItem item : items) {
-            Product p = item.getProduct();
-            int cnt = Optional.ofNullable(item.getCount()).orElse(0);
-            BigDecimal price = Optional.ofNullable(p.getPrice()).orElse(BigDecimal.ZERO);
-            BigDecimal total = price.multiply(BigDecimal.valueOf(cnt));
-
-            Order o = Order.builder()
+        // merchant üzrə bir sifariş: sətirlər bir batch-də yazılır, bildiriş merchant-a bir dəfə
+        Map<Long, Order> ordersByMerchant = new TreeMap<>();
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Product p = productsById.get(line.getKey());
+            Money price = p.getPrice() == null ? Money.ZERO : p.getPrice();
+            Order order = ordersByMerchant.computeIfAbsent(p.getMerchant().getId(), id -> Order.builder()
                     .customer(customer)
-                    .product(p)
-                    .count(cnt)
-                    .totalAmount(total)
+                    .merchant(p.getMerchant())
+                    .totalAmount(Money.ZERO)
                     .status(OrderStatus.PAID_FROM_BALANCE)
-                    .build();
+                    .build());
+            Money lineTotal = price.times(line.getValue());
+            order.addLine(OrderLine.builder()
+                    .product(p)
+                    .count(line.getValue())
+                    .unitPrice(price)
+                    .lineTotal(lineTotal)
+                    .build());
+            order.setTotalAmount(order.getTotalAmount().plus(lineTotal));
+        }
 
-            o = orderRepository.save(o);
-            createdOrders.add(o);
-            notificationService.notifyOrderCreated(o);
+        Money orderTotal = Money.ZERO;
+        for (Order order : ordersByMerchant.values()) {
+            orderTotal = orderTotal.plus(order.getTotalAmount());
+        }
 
-            p.setStockCount(Optional.ofNullable(p.getStockCount()).orElse(0) - cnt);
-            touchedProducts.add(p);
+        // kilidsiz yoxlama: balans çatmırsa sifarişlər yazılmır (əsl tutulma aşağıda, hold ilə)
+        balanceService.requireAvailable(customer, orderTotal);
+
+        List<Order> createdOrders = new ArrayList<>(ordersByMerchant.size());
+        for (Order order : ordersByMerchant.values()) {
+            order = orderRepository.save(order);
+            createdOrders.add(order);
+            // bildiriş və analitika commit-dən sonra (OutboxDispatcher)
+            outboxService.publish(OutboxService.ORDER_CREATED, order.getId());
         }
 
-        productRepository.saveAll(touchedProducts);
+        // Ödənişin birinci mərhələsi son addımdır: hold-lar commit-ə qədər qısa müddət açıq qalır.
+        // Paralel xərcləmə balansı bitiribsə BalanceException → hər şey rollback
+        balanceService.authorize(customer, createdOrders);
+
+        productCatalogSync.stockChanged(quantities.keySet());
         cartItemRepository.deleteAll(items);
         cart.setUpdatedAt(LocalDateTime.now());
 
@@ -88,19 +122,55 @@ public class OrderService {
 
     @Transactional(readOnly = true)
     public List<OrderResponse> getOrdersForCustomer(Customer customer) {
-        return orderRepository.findByCustomer(customer)
-                .stream()
-                .map(this::toOrderResponse)
-                .collect(Collectors.toList());
+        return withLines(orderRepository.findCustomerHistory(
+                customer.getId(), null, null, null, Pageable.unpaged()));
     }
 
+    // Ən yenilər əvvəl; cursor = base64url("createdAt|id") - əvvəlki səhifənin son sifarişi
+    @Transactional(readOnly = true)
+    public OrderPageResponse getCustomerOrderPage(Customer customer, CustomerOrderPageRequest req) {
+        int size = req.getLimit() == null ? DEFAULT_PAGE_SIZE : req.getLimit();
+        HistoryCursor after = StringUtils.hasText(req.getCursor())
+                ? decodeHistoryCursor(req.getCursor())
+                : new HistoryCursor(null, null);
+
+        List<OrderHeaderRow> rows = orderRepository.findCustomerHistory(customer.getId(), req.getStatus(),
+                after.createdAt(), after.id(), PageRequest.of(0, size + 1));
+
+        boolean hasMore = rows.size() > size;
+        List<OrderHeaderRow> page = hasMore ? rows.subList(0, size) : rows;
+
+        return OrderPageResponse.builder()
+                .items(withLines(page))
+                .nextCursor(hasMore ? encodeHistoryCursor(page.get(page.size() - 1)) : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    // Köhnə endpoint (səhifəsiz): eyni projection sorğuları, N+1 yoxdur
     @Transactional(readOnly = true)
     public List<OrderResponse> getOrdersForMerchant(Merchant merchant) {
-        return orderRepository.findOrdersForMerchant(merchant)
-                .stream()
-                .filter(o -> o.getStatus() != OrderStatus.REJECT_BY_CUSTOMER) // customer ləğv edibsə merchant görmür
-                .map(this::toOrderResponse)
-                .collect(Collectors.toList());
+        return withLines(orderRepository.findMerchantInbox(
+                merchant.getId(), null, null, null, null, Pageable.unpaged()));
+    }
+
+    // Ən yenilər əvvəl; cursor = əvvəlki səhifənin son order id-si. Bir səhifə = iki sorğu (başlıqlar + sətirlər)
+    @Transactional(readOnly = true)
+    public OrderPageResponse getMerchantOrderPage(Merchant merchant, MerchantOrderPageRequest req) {
+        int size = req.getLimit() == null ? DEFAULT_PAGE_SIZE : req.getLimit();
+        Long afterId = parseCursor(req.getCursor());
+
+        List<OrderHeaderRow> rows = orderRepository.findMerchantInbox(merchant.getId(), req.getStatus(),
+                req.getFrom(), req.getTo(), afterId, PageRequest.of(0, size + 1));
+
+        boolean hasMore = rows.size() > size;
+        List<OrderHeaderRow> page = hasMore ? rows.subList(0, size) : rows;
+
+        return OrderPageResponse.builder()
+                .items(withLines(page))
+                .nextCursor(hasMore ? String.valueOf(page.get(page.size() - 1).orderId()) : null)
+                .hasMore(hasMore)
+                .build();
     }
 
     @Transactional
@@ -112,35 +182,63 @@ public class OrderService {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new NotFoundException("Order not found"));
 
-        Merchant owner = order.getProduct().getMerchant();
+        Merchant owner = order.getMerchant();
         if (!owner.getId().equals(merchant.getId())) {
             throw new AccessDeniedException("You cannot update this order");
         }
 
-        OrderStatus prevStatus = order.getStatus();
-        OrderStatus newStatus = req.getStatus();
-        order.setStatus(newStatus);
-
-        boolean wasPaidFromBalance = isPaidFromBalance(prevStatus);
-        if (newStatus == OrderStatus.REJECT_BY_MERCHANT
-                && prevStatus != OrderStatus.REJECT_BY_MERCHANT
-                && prevStatus != OrderStatus.REJECT_BY_CUSTOMER) {
-            Product product = order.getProduct();
-            int currentStock = Optional.ofNullable(product.getStockCount()).orElse(0);
-            product.setStockCount(currentStock + Optional.ofNullable(order.getCount()).orElse(0));
-            productRepository.save(product);
-        }
-        boolean shouldRefund = newStatus == OrderStatus.REJECT_BY_MERCHANT
-                && !isRejected(prevStatus)
-                && wasPaidFromBalance;
+        SortedMap<Long, Integer> restock = new TreeMap<>();
+        boolean shouldRefund = applyMerchantStatus(order, req.getStatus(), restock);
+        restoreQuantities(restock);
         order = orderRepository.save(order);
 
         if (shouldRefund) {
-            balanceService.credit(order.getCustomer(), order.getTotalAmount());
+            balanceService.release(List.of(order));
         }
         return toOrderResponse(order);
     }
 
+    // Bir sorğu: sifarişlər id sırası ilə kilidlənir, sahiblik yoxlanır. Stok məhsul id sırası ilə,
+    // ödənişlər bir çağırışda buraxılır (hold-lar id sırası ilə kilidlənir).
+    @Transactional
+    public OrderBulkStatusResponse updateOrderStatuses(Merchant merchant, OrderBulkStatusRequest req) {
+        if (req.getStatus() == OrderStatus.REJECT_BY_CUSTOMER) {
+            throw new IllegalArgumentException("Merchant cannot set status to REJECT_BY_CUSTOMER");
+        }
+
+        Set<Long> ids = new TreeSet<>(req.getOrderIds());
+        List<Order> orders = orderRepository.lockAllById(ids);
+        if (orders.size() != ids.size()) {
+            Set<Long> missing = new TreeSet<>(ids);
+            orders.forEach(o -> missing.remove(o.getId()));
+            throw new NotFoundException("Orders not found: " + missing);
+        }
+        List<Long> foreign = orders.stream()
+                .filter(o -> !o.getMerchant().getId().equals(merchant.getId()))
+                .map(Order::getId)
+                .toList();
+        if (!foreign.isEmpty()) {
+            throw new AccessDeniedException("You cannot update orders " + foreign);
+        }
+
+        SortedMap<Long, Integer> restock = new TreeMap<>();
+        List<Order> refunded = new ArrayList<>();
+        for (Order order : orders) {
+            if (applyMerchantStatus(order, req.getStatus(), restock)) {
+                refunded.add(order);
+            }
+        }
+        orderRepository.saveAll(orders);
+        restoreQuantities(restock);
+
+        balanceService.release(refunded);
+
+        return OrderBulkStatusResponse.builder()
+                .updated(orders.size())
+                .refundedCustomers((int) refunded.stream().map(o -> o.getCustomer().getId()).distinct().count())
+                .build();
+    }
+
     @Transactional
     public OrderResponse cancelOrderByCustomer(Customer customer, Long orderId) {
         Order order = orderRepository.findById(orderId)
@@ -169,32 +267,155 @@ public class OrderService {
 
         order.setStatus(OrderStatus.REJECT_BY_CUSTOMER);
         // restore stock because customer cancelled
-        Product product = order.getProduct();
-        int currentStock = Optional.ofNullable(product.getStockCount()).orElse(0);
-        product.setStockCount(currentStock + Optional.ofNullable(order.getCount()).orElse(0));
-        productRepository.save(product);
+        restoreStock(order);
 
         order = orderRepository.save(order);
 
         if (shouldRefund) {
-            balanceService.credit(order.getCustomer(), order.getTotalAmount());
+            balanceService.release(List.of(order));
         }
 
         return toOrderResponse(order);
     }
 
+    // stoku çatmayan məhsul varsa exception → bütün checkout geri qaytarılır
+    private void sellStock(Long cartId, Map<Long, Integer> quantities, Map<Long, Product> productsById) {
+        inventoryService.sell(cartId, quantities).ifPresent(productId -> {
+            int left = inventoryService.available(productId);
+            throw new IllegalArgumentException(
+                    "Product '" + productsById.get(productId).getName() + "' only " + left + " left");
+        });
+    }
+
+    // Oxu-dəyiş-yaz yox: stock_count = stock_count + n (paralel yazılar itmir); sharded məhsulda bucket-ə
+    private void restoreStock(Order order) {
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        collectLines(order, quantities);
+        restoreQuantities(quantities);
+    }
+
+    // Merchant keçidi: stok qaytarılmalıdırsa miqdarlar restock-a yığılır; refund lazımdırsa true
+    private boolean applyMerchantStatus(Order order, OrderStatus newStatus, Map<Long, Integer> restock) {
+        OrderStatus prevStatus = order.getStatus();
+        order.setStatus(newStatus);
+
+        if (newStatus == OrderStatus.REJECT_BY_MERCHANT
+                && prevStatus != OrderStatus.REJECT_BY_MERCHANT
+                && prevStatus != OrderStatus.REJECT_BY_CUSTOMER) {
+            collectLines(order, restock);
+        }
+        return newStatus == OrderStatus.REJECT_BY_MERCHANT
+                && !isRejected(prevStatus)
+                && isPaidFromBalance(prevStatus);
+    }
+
+    private static void collectLines(Order order, Map<Long, Integer> quantities) {
+        for (OrderLine line : order.getLines()) {
+            quantities.merge(line.getProduct().getId(), countOf(line.getCount()), Integer::sum);
+        }
+    }
+
+    // məhsul id sırası ilə - paralel transaction-lar stok sətirlərini eyni sırada kilidləyir
+    private void restoreQuantities(SortedMap<Long, Integer> quantities) {
+        if (quantities.isEmpty()) return;
+        quantities.forEach(inventoryService::restock);
+        productCatalogSync.stockChanged(quantities.keySet());
+    }
+
+    private List<OrderResponse> withLines(List<OrderHeaderRow> headers) {
+        if (headers.isEmpty()) return List.of();
+        Map<Long, List<OrderLineResponse>> linesByOrder = new HashMap<>();
+        List<Long> ids = headers.stream().map(OrderHeaderRow::orderId).toList();
+        for (OrderLineRow row : orderRepository.findLineRows(ids)) {
+            linesByOrder.computeIfAbsent(row.orderId(), k -> new ArrayList<>()).add(OrderLineResponse.builder()
+                    .productId(row.productId())
+                    .productName(row.productName())
+                    .count(row.count())
+                    .unitPrice(row.unitPrice())
+                    .lineTotal(row.lineTotal())
+                    .build());
+        }
+
+        List<OrderResponse> result = new ArrayList<>(headers.size());
+        for (OrderHeaderRow h : headers) {
+            List<OrderLineResponse> lines = linesByOrder.getOrDefault(h.orderId(), List.of());
+            result.add(OrderResponse.builder()
+                    .orderId(h.orderId())
+                    .merchantId(h.merchantId())
+                    .merchantCompanyName(h.merchantCompanyName())
+                    .lines(lines)
+                    .itemCount(itemCount(lines))
+                    .totalAmount(h.totalAmount())
+                    .status(h.status())
+                    .createdAt(h.createdAt())
+                    .build());
+        }
+        return result;
+    }
+
+    private static Long parseCursor(String cursor) {
+        if (!StringUtils.hasText(cursor)) return null;
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private static String encodeHistoryCursor(OrderHeaderRow last) {
+        String raw = last.createdAt() + "|" + last.orderId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static HistoryCursor decodeHistoryCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 2) throw new IllegalArgumentException("Invalid cursor");
+            return new HistoryCursor(LocalDateTime.parse(parts[0]), Long.valueOf(parts[1]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private record HistoryCursor(LocalDateTime createdAt, Long id) {
+    }
+
     private OrderResponse toOrderResponse(Order o) {
+        List<OrderLineResponse> lines = new ArrayList<>(o.getLines().size());
+        int itemCount = 0;
+        for (OrderLine line : o.getLines()) {
+            lines.add(OrderLineResponse.builder()
+                    .productId(line.getProduct().getId())
+                    .productName(line.getProduct().getName())
+                    .count(line.getCount())
+                    .unitPrice(line.getUnitPrice())
+                    .lineTotal(line.getLineTotal())
+                    .build());
+            itemCount += countOf(line.getCount());
+        }
         return OrderResponse.builder()
                 .orderId(o.getId())
-                .productId(o.getProduct().getId())
-                .productName(o.getProduct().getName())
-                .count(o.getCount())
+                .merchantId(o.getMerchant().getId())
+                .merchantCompanyName(o.getMerchant().getCompanyName())
+                .lines(lines)
+                .itemCount(itemCount)
                 .totalAmount(o.getTotalAmount())
                 .status(o.getStatus())
                 .createdAt(o.getCreatedAt())
                 .build();
     }
 
+    private static int itemCount(List<OrderLineResponse> lines) {
+        int count = 0;
+        for (OrderLineResponse line : lines) count += countOf(line.getCount());
+        return count;
+    }
+
+    private static int countOf(Integer count) {
+        return count == null ? 0 : count;
+    }
+
     private boolean isPaidFromBalance(OrderStatus status) {
         return status == OrderStatus.PAID_FROM_BALANCE || status == OrderStatus.ACCEPTED;
     }
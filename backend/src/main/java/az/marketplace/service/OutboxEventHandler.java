@@ -0,0 +1,13 @@
+package az.marketplace.service;
+
+/**
+ * Consumer of outbox events. Runs after the producing transaction has committed, in its
+ * own transaction, at least once per event: a failed run is retried with backoff, so
+ * handlers should tolerate repeats.
+ */
+public interface OutboxEventHandler {
+
+    String eventType();
+
+    void handle(Long aggregateId);
+}
@@ -0,0 +1,131 @@
+package az.marketplace.service;
+
+import az.marketplace.entity.OutboxEvent;
+import az.marketplace.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transactional outbox. Producers call {@link #publish} inside their own transaction, so an
+ * event exists exactly when the change that caused it committed. {@link #dispatchBatch}
+ * (driven by the scheduler) then runs every handler registered for the event type.
+ * Each handler gets its own row and its own transaction, so one failing consumer is retried
+ * with backoff without repeating the others; after {@code app.outbox.max-attempts} failures the
+ * row is dead-lettered and kept for inspection.
+ */
+@Slf4j
+@Service
+public class OutboxService {
+
+    public static final String ORDER_CREATED = "ORDER_CREATED";
+
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionTemplate tx;
+    private final Map<String, List<String>> handlerNamesByType = new HashMap<>();
+    private final Map<String, OutboxEventHandler> handlersByName = new HashMap<>();
+    private final Duration lease;
+    private final int maxAttempts;
+
+    public OutboxService(
+            OutboxEventRepository outboxEventRepository,
+            PlatformTransactionManager transactionManager,
+            List<OutboxEventHandler> handlers,
+            @Value("${app.outbox.lease:5m}") Duration lease,
+            @Value("${app.outbox.max-attempts:15}") int maxAttempts
+    ) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.lease = lease;
+        this.maxAttempts = maxAttempts;
+        for (OutboxEventHandler handler : handlers) {
+            String name = AopUtils.getTargetClass(handler).getSimpleName();
+            handlersByName.put(name, handler);
+            handlerNamesByType.computeIfAbsent(handler.eventType(), k -> new ArrayList<>()).add(name);
+        }
+    }
+
+    // Çağıranın transaction-ı daxilində: rollback olsa hadisə də yoxdur
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String eventType, Long aggregateId) {
+        List<OutboxEvent> events = new ArrayList<>();
+        for (String handler : handlerNamesByType.getOrDefault(eventType, List.of())) {
+            events.add(OutboxEvent.builder()
+                    .eventType(eventType)
+                    .handler(handler)
+                    .aggregateId(aggregateId)
+                    .build());
+        }
+        outboxEventRepository.saveAll(events);
+    }
+
+    /**
+     * Claims up to {@code batchSize} due events and runs them.
+     * @return number of claimed events (successful or not)
+     */
+    public int dispatchBatch(int batchSize) {
+        // qısa transaction: sətirlər götürülür və lease müddətinə "gizlədilir" (emal zamanı kilid saxlanmır)
+        List<OutboxEvent> claimed = tx.execute(s -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxEvent> due = outboxEventRepository.lockAvailable(now, PageRequest.of(0, batchSize));
+            due.forEach(e -> e.setAvailableAt(now.plus(lease)));
+            return due;
+        });
+        if (claimed == null) return 0;
+
+        for (OutboxEvent event : claimed) {
+            run(event);
+        }
+        return claimed.size();
+    }
+
+    private void run(OutboxEvent event) {
+        OutboxEventHandler handler = handlersByName.get(event.getHandler());
+        try {
+            tx.executeWithoutResult(s -> {
+                if (handler != null) {
+                    handler.handle(event.getAggregateId());
+                } else {
+                    log.warn("No outbox handler {} for event {}, dropping it", event.getHandler(), event.getId());
+                }
+                outboxEventRepository.deleteById(event.getId());
+            });
+        } catch (RuntimeException e) {
+            int attempt = event.getAttempts() + 1;
+            String message = String.valueOf(e.getMessage());
+            String error = message.length() > 500 ? message.substring(0, 500) : message;
+            if (attempt >= maxAttempts) {
+                log.error("Outbox event {} ({} → {}) failed {} times, dead-lettering it: {}",
+                        event.getId(), event.getEventType(), event.getHandler(), attempt, message);
+                tx.executeWithoutResult(s -> outboxEventRepository.markDead(event.getId(), LocalDateTime.now(), error));
+                return;
+            }
+            LocalDateTime retryAt = LocalDateTime.now().plus(backoff(event.getAttempts()));
+            log.warn("Outbox event {} ({} → {}) failed, attempt {}: {}",
+                    event.getId(), event.getEventType(), event.getHandler(), attempt, message);
+            tx.executeWithoutResult(s -> outboxEventRepository.markFailed(event.getId(), retryAt, error));
+        }
+    }
+
+    // 1s, 2s, 4s ... ən çox 1 saat
+    static Duration backoff(int attempts) {
+        if (attempts >= 12) return MAX_BACKOFF;
+        Duration delay = Duration.ofSeconds(1L << attempts);
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+}
@@ -0,0 +1,74 @@
+package az.marketplace.service;
+
+import az.marketplace.dto.product.ProductResponse;
+import az.marketplace.util.TransactionHooks;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of ready-built {@link ProductResponse} objects keyed by product id.
+ * Hit/miss/eviction counters are published to Micrometer as {@code cache.*{name=products}}.
+ * Cached responses are shared between requests and must not be modified by callers.
+ */
+@Component
+public class ProductCache {
+
+    private final Cache<Long, ProductResponse> cache;
+
+    public ProductCache(
+            @Value("${app.cache.products.max-size:50000}") long maxSize,
+            @Value("${app.cache.products.ttl:10m}") Duration ttl,
+            MeterRegistry meterRegistry
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "products");
+    }
+
+    public ProductResponse get(Long id, Function<Long, ProductResponse> loader) {
+        return cache.get(id, loader);
+    }
+
+    // yalnız cache-də olmayan id-lər üçün loader bir dəfə çağırılır
+    public Map<Long, ProductResponse> getAll(Collection<Long> ids,
+                                             Function<List<Long>, Map<Long, ProductResponse>> loader) {
+        return cache.getAll(ids, missing -> loader.apply(new ArrayList<>(missing)));
+    }
+
+    public ProductResponse getIfPresent(Long id) {
+        return cache.getIfPresent(id);
+    }
+
+    public void evict(Long id) {
+        if (id != null) {
+            evictAll(List.of(id));
+        }
+    }
+
+    public void evictAll(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) return;
+        List<Long> keys = List.copyOf(ids);
+        cache.invalidateAll(keys);
+        // commit-dən əvvəl paralel oxunuş köhnə sətri cache-ə yenidən yaza bilər → commit-dən sonra bir daha
+        TransactionHooks.afterCommit(() -> cache.invalidateAll(keys));
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,111 @@
+package az.marketplace.service;
+
+import az.marketplace.dto.product.ProductResponse;
+import az.marketplace.dto.product.ProductStockLevel;
+import az.marketplace.repository.ProductRepository;
+import az.marketplace.util.Money;
+import az.marketplace.util.TransactionHooks;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the in-memory catalog structures (response cache, search index, facet index)
+ * in step with product writes. Cache entries are evicted right away; index updates are
+ * applied only after the surrounding transaction commits, so rolled-back writes never leak.
+ * Every change also bumps the catalog version used for conditional GETs on list endpoints.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductCatalogSync {
+
+    private final ProductCache productCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final ProductRepository productRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final CatalogVersions catalogVersions;
+
+    // yaradılma / redaktə
+    public void productSaved(ProductResponse product) {
+        productCache.evict(product.getId());
+        catalogVersions.productsChanged();
+        TransactionHooks.afterCommit(() -> {
+            productSearchIndex.index(product);
+            productFacetIndex.index(product);
+        });
+    }
+
+    // bulk import: yeni id-lər cache-də yoxdur; bir versiya artımı, indekslər commit-dən sonra birdəfəlik
+    public void productsImported(List<ProductResponse> products) {
+        if (products.isEmpty()) return;
+        catalogVersions.productsChanged();
+        TransactionHooks.afterCommit(() -> {
+            for (ProductResponse product : products) {
+                productSearchIndex.index(product);
+                productFacetIndex.index(product);
+            }
+        });
+    }
+
+    public void productDeleted(Long productId) {
+        productCache.evict(productId);
+        catalogVersions.productsChanged();
+        TransactionHooks.afterCommit(() -> {
+            productSearchIndex.remove(productId);
+            productFacetIndex.remove(productId);
+        });
+    }
+
+    // şəkil əlavə olunması və s. - yalnız hazır cavab dəyişir
+    public void productDetailsChanged(Long productId) {
+        productCache.evict(productId);
+        catalogVersions.productsChanged();
+    }
+
+    // Stok dəyişikliyi: commit-dən sonra yeni səviyyələr bir sorğu ilə oxunur
+    public void stockChanged(Collection<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) return;
+        List<Long> ids = List.copyOf(productIds);
+        productCache.evictAll(ids);
+        catalogVersions.productsChanged();
+        TransactionHooks.afterCommit(() -> refreshStock(ids));
+    }
+
+    // Bulk qiymət/stok yeniləməsi: bütün batch üçün bir eviction və bir versiya artımı.
+    // Qiymətlər sorğudan məlumdur; stok delta ilə dəyişə bildiyi üçün commit-dən sonra oxunur.
+    public void bulkUpdated(Map<Long, Money> newPrices, Collection<Long> stockProductIds) {
+        Map<Long, Money> prices = Map.copyOf(newPrices);
+        List<Long> stockIds = List.copyOf(stockProductIds);
+        Set<Long> ids = new HashSet<>(prices.keySet());
+        ids.addAll(stockIds);
+        if (ids.isEmpty()) return;
+
+        productCache.evictAll(ids);
+        catalogVersions.productsChanged();
+        TransactionHooks.afterCommit(() -> {
+            prices.forEach(productFacetIndex::updatePrice);
+            if (!stockIds.isEmpty()) refreshStock(stockIds);
+        });
+    }
+
+    private void refreshStock(List<Long> ids) {
+        // afterCommit-də köhnə transaction hələ bağlıdır → ayrıca (REQUIRES_NEW) oxuyuruq
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        tx.setReadOnly(true);
+        List<ProductStockLevel> levels = tx.execute(status -> productRepository.findStockLevels(ids));
+        if (levels == null) return;
+        for (ProductStockLevel level : levels) {
+            productFacetIndex.updateStock(level.productId(), level.stockCount());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package az.marketplace.service;
+
+import az.marketplace.dto.product.ProductResponse;
+import az.marketplace.entity.Product;
+import az.marketplace.entity.ProductPhoto;
+import az.marketplace.repository.ProductPhotoRepository;
+import az.marketplace.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class ProductExportService {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private final ProductRepository productRepository;
+    private final ProductPhotoRepository productPhotoRepository;
+    private final ProductService productService;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Writes the whole catalog as NDJSON (one ProductResponse per line).
+     * Products are read through a database cursor in chunks; the persistence context
+     * is cleared after each chunk so memory stays flat regardless of catalog size.
+     */
+    @Transactional(readOnly = true)
+    public void exportNdjson(OutputStream target) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(ProductResponse.class);
+        OutputStream out = new BufferedOutputStream(target, 64 * 1024);
+
+        try (Stream<Product> products = productRepository.streamAllForExport()) {
+            List<Product> chunk = new ArrayList<>(CHUNK_SIZE);
+            Iterator<Product> it = products.iterator();
+            while (it.hasNext()) {
+                chunk.add(it.next());
+                if (chunk.size() == CHUNK_SIZE) {
+                    writeChunk(chunk, writer, out);
+                    chunk.clear();
+                    entityManager.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(chunk, writer, out);
+            }
+        }
+        out.flush();
+    }
+
+    private void writeChunk(List<Product> chunk, ObjectWriter writer, OutputStream out) throws IOException {
+        List<Long> ids = chunk.stream().map(Product::getId).toList();
+
+        // şəkillər hər chunk üçün bir sorğu ilə (N+1 olmasın)
+        Map<Long, List<String>> photoUrls = new HashMap<>();
+        for (ProductPhoto photo : productPhotoRepository.findAllByProductIdInOrderByIdAsc(ids)) {
+            photoUrls.computeIfAbsent(photo.getProduct().getId(), k -> new ArrayList<>())
+                    .add(photo.getPhotoUrl());
+        }
+
+        for (Product product : chunk) {
+            ProductResponse response = productService.toProductResponse(
+                    product, photoUrls.getOrDefault(product.getId(), List.of()));
+            out.write(writer.writeValueAsBytes(response));
+            out.write('\n');
+        }
+        out.flush();
+    }
+}
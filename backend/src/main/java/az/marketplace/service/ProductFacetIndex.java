@@ -0,0 +1,379 @@
+package az.marketplace.service;
+
+import az.marketplace.dto.product.ProductFacetResponse;
+import az.marketplace.dto.product.ProductResponse;
+import az.marketplace.util.Money;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Precomputed product-id bitmaps per category, merchant, price bucket and "in stock".
+ * The bitmaps are Roaring-style: ids are split into 65536-wide chunks, each stored as a
+ * sorted array while sparse (a small merchant) or as a plain bitmap while dense, so memory
+ * follows the set size rather than the highest id. Facet counts intersect the filters chunk
+ * by chunk without materialising intermediate bitmaps. Counts use disjunctive faceting:
+ * each facet is counted with every filter applied except its own.
+ */
+@Component
+public class ProductFacetIndex {
+
+    private static final Money[] PRICE_UPPER_BOUNDS = {
+            Money.of("10"), Money.of("50"), Money.of("100"),
+            Money.of("500"), Money.of("1000")
+    };
+    private static final String[] PRICE_BUCKETS = {"0-10", "10-50", "50-100", "100-500", "500-1000", "1000+"};
+
+    private final Bitmap all = new Bitmap();
+    private final Bitmap inStock = new Bitmap();
+    private final Map<Long, Bitmap> byCategory = new HashMap<>();
+    private final Map<Long, Bitmap> byMerchant = new HashMap<>();
+    private final Bitmap[] byPriceBucket = new Bitmap[PRICE_BUCKETS.length];
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ProductFacetIndex() {
+        for (int i = 0; i < byPriceBucket.length; i++) {
+            byPriceBucket[i] = new Bitmap();
+        }
+    }
+
+    public void index(ProductResponse product) {
+        if (product == null || product.getId() == null) return;
+        int bit = bit(product.getId());
+        Entry entry = new Entry(product.getCategoryId(), product.getMerchantId(), priceBucket(product.getPrice()));
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(product.getId());
+            all.set(bit);
+            if (entry.categoryId() != null) byCategory.computeIfAbsent(entry.categoryId(), k -> new Bitmap()).set(bit);
+            if (entry.merchantId() != null) byMerchant.computeIfAbsent(entry.merchantId(), k -> new Bitmap()).set(bit);
+            byPriceBucket[entry.priceBucket()].set(bit);
+            setStock(bit, product.getStockCount());
+            entries.put(product.getId(), entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void updateStock(Long productId, Integer stockCount) {
+        if (productId == null) return;
+        lock.writeLock().lock();
+        try {
+            if (entries.containsKey(productId)) {
+                setStock(bit(productId), stockCount);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // yalnız qiymət dəyişibsə: bucket bitini köçürür, digər facet-lərə toxunmur
+    public void updatePrice(Long productId, Money price) {
+        if (productId == null) return;
+        int bucket = priceBucket(price);
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(productId);
+            if (entry == null || entry.priceBucket() == bucket) return;
+            int bit = bit(productId);
+            byPriceBucket[entry.priceBucket()].clear(bit);
+            byPriceBucket[bucket].set(bit);
+            entries.put(productId, new Entry(entry.categoryId(), entry.merchantId(), bucket));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        if (productId == null) return;
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param priceBucket one of the labels returned in {@link ProductFacetResponse#getPriceBuckets()}, or null
+     * @param idLimit     how many matching product ids (ascending) to return
+     */
+    public ProductFacetResponse query(Long categoryId, Long merchantId, String priceBucket,
+                                      boolean inStockOnly, int idLimit) {
+        int bucket = priceBucket == null ? -1 : priceBucketIndex(priceBucket);
+
+        lock.readLock().lock();
+        try {
+            Bitmap category = categoryId == null ? null : byCategory.getOrDefault(categoryId, Bitmap.EMPTY);
+            Bitmap merchant = merchantId == null ? null : byMerchant.getOrDefault(merchantId, Bitmap.EMPTY);
+            Bitmap price = bucket < 0 ? null : byPriceBucket[bucket];
+            Bitmap stock = inStockOnly ? inStock : null;
+
+            List<Long> productIds = new ArrayList<>(Math.min(idLimit, 64));
+            int total = count(productIds, idLimit, category, merchant, price, stock);
+
+            Map<Long, Integer> categoryCounts = new LinkedHashMap<>();
+            byCategory.forEach((id, bits) -> putIfPositive(categoryCounts, id, count(merchant, price, stock, bits)));
+
+            Map<Long, Integer> merchantCounts = new LinkedHashMap<>();
+            byMerchant.forEach((id, bits) -> putIfPositive(merchantCounts, id, count(category, price, stock, bits)));
+
+            Map<String, Integer> priceCounts = new LinkedHashMap<>();
+            for (int i = 0; i < PRICE_BUCKETS.length; i++) {
+                priceCounts.put(PRICE_BUCKETS[i], count(category, merchant, stock, byPriceBucket[i]));
+            }
+
+            int inStockCount = count(category, merchant, price, inStock);
+
+            return ProductFacetResponse.builder()
+                    .total(total)
+                    .categories(categoryCounts)
+                    .merchants(merchantCounts)
+                    .priceBuckets(priceCounts)
+                    .inStock(inStockCount)
+                    .productIds(productIds)
+                    .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int count(Bitmap... filters) {
+        return count(null, 0, filters);
+    }
+
+    // null filtr tətbiq olunmur; hər bitmap all-un alt çoxluğudur, all yalnız filtr yoxdursa lazımdır
+    private int count(List<Long> ids, int idLimit, Bitmap... filters) {
+        List<Bitmap> applied = new ArrayList<>(filters.length);
+        for (Bitmap filter : filters) {
+            if (filter != null) applied.add(filter);
+        }
+        if (applied.isEmpty()) applied.add(all);
+        return Bitmap.intersect(applied, ids, idLimit);
+    }
+
+    private void setStock(int bit, Integer stockCount) {
+        if (stockCount != null && stockCount > 0) {
+            inStock.set(bit);
+        } else {
+            inStock.clear(bit);
+        }
+    }
+
+    private void removeInternal(Long productId) {
+        Entry previous = entries.remove(productId);
+        if (previous == null) return;
+        int bit = bit(productId);
+        all.clear(bit);
+        inStock.clear(bit);
+        if (previous.categoryId() != null) clearIn(byCategory, previous.categoryId(), bit);
+        if (previous.merchantId() != null) clearIn(byMerchant, previous.merchantId(), bit);
+        byPriceBucket[previous.priceBucket()].clear(bit);
+    }
+
+    private static void clearIn(Map<Long, Bitmap> bitmaps, Long key, int bit) {
+        Bitmap bits = bitmaps.get(key);
+        if (bits == null) return;
+        bits.clear(bit);
+        if (bits.isEmpty()) bitmaps.remove(key);
+    }
+
+    private static void putIfPositive(Map<Long, Integer> counts, Long key, int count) {
+        if (count > 0) counts.put(key, count);
+    }
+
+    private static int bit(Long productId) {
+        if (productId < 0 || productId > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Product id out of facet index range: " + productId);
+        }
+        return productId.intValue();
+    }
+
+    static int priceBucket(Money price) {
+        if (price == null) return 0;
+        for (int i = 0; i < PRICE_UPPER_BOUNDS.length; i++) {
+            if (price.compareTo(PRICE_UPPER_BOUNDS[i]) < 0) return i;
+        }
+        return PRICE_BUCKETS.length - 1;
+    }
+
+    private static int priceBucketIndex(String label) {
+        for (int i = 0; i < PRICE_BUCKETS.length; i++) {
+            if (PRICE_BUCKETS[i].equals(label)) return i;
+        }
+        throw new IllegalArgumentException("Unknown price bucket: " + label);
+    }
+
+    private record Entry(Long categoryId, Long merchantId, int priceBucket) {
+    }
+
+    // Roaring üslubu: id-nin yuxarı 16 biti chunk açarıdır. Kəsişmə chunk-chunk, kopya yaratmadan hesablanır
+    private static final class Bitmap {
+        private static final Bitmap EMPTY = new Bitmap();
+
+        private final TreeMap<Integer, Chunk> chunks = new TreeMap<>();
+
+        void set(int bit) {
+            chunks.computeIfAbsent(bit >>> 16, k -> new Chunk()).add((char) bit);
+        }
+
+        void clear(int bit) {
+            Chunk chunk = chunks.get(bit >>> 16);
+            if (chunk == null) return;
+            chunk.remove((char) bit);
+            if (chunk.cardinality == 0) chunks.remove(bit >>> 16);
+        }
+
+        boolean isEmpty() {
+            return chunks.isEmpty();
+        }
+
+        int cardinality() {
+            int count = 0;
+            for (Chunk chunk : chunks.values()) count += chunk.cardinality;
+            return count;
+        }
+
+        /**
+         * Size of the intersection of all bitmaps; when {@code ids} is given, the first
+         * {@code idLimit} matching ids (ascending) are added to it.
+         */
+        static int intersect(List<Bitmap> bitmaps, List<Long> ids, int idLimit) {
+            Bitmap driver = bitmaps.get(0);
+            for (Bitmap bitmap : bitmaps) {
+                if (bitmap.chunks.size() < driver.chunks.size()) driver = bitmap;
+            }
+            if (bitmaps.size() == 1 && ids == null) return driver.cardinality();
+
+            Chunk[] row = new Chunk[bitmaps.size()];
+            int count = 0;
+            for (Map.Entry<Integer, Chunk> entry : driver.chunks.entrySet()) {
+                boolean present = true;
+                for (int i = 0; i < row.length && present; i++) {
+                    row[i] = bitmaps.get(i).chunks.get(entry.getKey());
+                    present = row[i] != null;
+                }
+                if (present) count += Chunk.intersect(row, (long) entry.getKey() << 16, ids, idLimit);
+            }
+            return count;
+        }
+    }
+
+    // Seyrək chunk: sıralı char[] (≤ 4096 dəyər, ≤ 8 KB); sıx chunk: 1024 sözlük bitmap (8 KB)
+    private static final class Chunk {
+        private static final int WORDS = 1024;
+        private static final int ARRAY_MAX = 4096;
+
+        private char[] values = new char[4];
+        private long[] words; // null → seyrək
+        private int cardinality;
+
+        void add(char value) {
+            if (words == null) {
+                int i = Arrays.binarySearch(values, 0, cardinality, value);
+                if (i >= 0) return;
+                if (cardinality < ARRAY_MAX) {
+                    int at = -i - 1;
+                    if (cardinality == values.length) {
+                        values = Arrays.copyOf(values, Math.min(cardinality * 2, ARRAY_MAX));
+                    }
+                    System.arraycopy(values, at, values, at + 1, cardinality - at);
+                    values[at] = value;
+                    cardinality++;
+                    return;
+                }
+                toWords();
+            }
+            long mask = 1L << value;
+            if ((words[value >>> 6] & mask) == 0) {
+                words[value >>> 6] |= mask;
+                cardinality++;
+            }
+        }
+
+        void remove(char value) {
+            if (words == null) {
+                int i = Arrays.binarySearch(values, 0, cardinality, value);
+                if (i < 0) return;
+                System.arraycopy(values, i + 1, values, i, cardinality - i - 1);
+                cardinality--;
+                return;
+            }
+            long mask = 1L << value;
+            if ((words[value >>> 6] & mask) != 0) {
+                words[value >>> 6] &= ~mask;
+                cardinality--;
+                // yarıya qədər boşalanda geri seyrəyə (sərhəddə add/remove çevirmələri olmasın)
+                if (cardinality <= ARRAY_MAX / 2) toValues();
+            }
+        }
+
+        boolean contains(char value) {
+            return words == null
+                    ? Arrays.binarySearch(values, 0, cardinality, value) >= 0
+                    : (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        // Seyrək chunk varsa ən kiçiyinin dəyərləri digərlərində yoxlanır; hamısı sıxdırsa söz-söz AND
+        static int intersect(Chunk[] row, long base, List<Long> ids, int idLimit) {
+            Chunk driver = null;
+            for (Chunk chunk : row) {
+                if (chunk.words == null && (driver == null || chunk.cardinality < driver.cardinality)) driver = chunk;
+            }
+
+            int count = 0;
+            if (driver != null) {
+                for (int i = 0; i < driver.cardinality; i++) {
+                    char value = driver.values[i];
+                    if (!containedInAll(row, value)) continue;
+                    count++;
+                    if (ids != null && ids.size() < idLimit) ids.add(base + value);
+                }
+                return count;
+            }
+
+            for (int w = 0; w < WORDS; w++) {
+                long word = -1L;
+                for (Chunk chunk : row) word &= chunk.words[w];
+                count += Long.bitCount(word);
+                while (ids != null && word != 0 && ids.size() < idLimit) {
+                    ids.add(base + ((long) w << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return count;
+        }
+
+        private static boolean containedInAll(Chunk[] row, char value) {
+            for (Chunk chunk : row) {
+                if (!chunk.contains(value)) return false;
+            }
+            return true;
+        }
+
+        private void toWords() {
+            words = new long[WORDS];
+            for (int i = 0; i < cardinality; i++) words[values[i] >>> 6] |= 1L << values[i];
+            values = null;
+        }
+
+        private void toValues() {
+            char[] sparse = new char[Math.max(cardinality, 4)];
+            int n = 0;
+            for (int w = 0; w < WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    sparse[n++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            values = sparse;
+            words = null;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package az.marketplace.service;
+
+import az.marketplace.dto.product.ProductImportResponse;
+import az.marketplace.dto.product.ProductImportRow;
+import az.marketplace.dto.product.ProductResponse;
+import az.marketplace.entity.Category;
+import az.marketplace.entity.Merchant;
+import az.marketplace.entity.Product;
+import az.marketplace.repository.CategoryRepository;
+import az.marketplace.util.CsvReader;
+import az.marketplace.util.Money;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Bulk product import from CSV or NDJSON. The body is read row by row, never held in
+ * memory as a whole; valid rows are persisted in chunks, one transaction per chunk, and
+ * inserted through JDBC batches (sequence ids, hibernate.jdbc.batch_size). Invalid rows
+ * are skipped and reported with their row number.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductImportService {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int MAX_NAME_LENGTH = 255;
+    private static final BigDecimal MAX_PRICE = new BigDecimal(Money.MAX);
+
+    private final CategoryRepository categoryRepository;
+    private final ProductService productService;
+    private final ProductSummaryService productSummaryService;
+    private final ProductCatalogSync productCatalogSync;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    public ProductImportResponse importProducts(InputStream body, Format format, Merchant merchant) throws IOException {
+        long started = System.currentTimeMillis();
+        ImportRun run = new ImportRun(merchant, categoryRepository.findAll());
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == Format.CSV) {
+            readCsv(reader, run);
+        } else {
+            readNdjson(reader, run);
+        }
+        run.flush();
+
+        log.info("Product import for merchant {}: {} rows, {} imported, {} failed in {} ms",
+                merchant.getId(), run.totalRows, run.imported, run.failed, System.currentTimeMillis() - started);
+
+        return ProductImportResponse.builder()
+                .totalRows(run.totalRows)
+                .imported(run.imported)
+                .failed(run.failed)
+                .errors(run.errors)
+                .errorsTruncated(run.failed > run.errors.size())
+                .build();
+    }
+
+    private void readCsv(BufferedReader reader, ImportRun run) throws IOException {
+        try (CsvReader csv = new CsvReader(reader)) {
+            List<String> header = csv.next();
+            if (header == null) return;
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                // Excel BOM ilə saxlayır
+                columns.put(header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT), i);
+            }
+            if (!columns.containsKey("name") || !columns.containsKey("price") || !columns.containsKey("stockcount")
+                    || (!columns.containsKey("categoryid") && !columns.containsKey("categoryname"))) {
+                throw new IllegalArgumentException(
+                        "CSV header must contain name, details, price, stockCount and categoryId or categoryName");
+            }
+
+            int row = 0;
+            while (true) {
+                List<String> fields;
+                try {
+                    fields = csv.next();
+                } catch (IOException e) {
+                    // bağlanmamış dırnaq faylın qalanını udur - burada dayanırıq
+                    run.reject(row + 1, e.getMessage());
+                    return;
+                }
+                if (fields == null) return;
+                row++;
+                if (fields.stream().allMatch(f -> f.isBlank())) continue;
+                try {
+                    run.accept(row, ProductImportRow.builder()
+                            .name(field(fields, columns, "name"))
+                            .details(field(fields, columns, "details"))
+                            .price(decimal(field(fields, columns, "price"), "price"))
+                            .stockCount(integer(field(fields, columns, "stockcount"), "stockCount"))
+                            .categoryId(longValue(field(fields, columns, "categoryid"), "categoryId"))
+                            .categoryName(field(fields, columns, "categoryname"))
+                            .build());
+                } catch (IllegalArgumentException e) {
+                    run.reject(row, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void readNdjson(BufferedReader reader, ImportRun run) throws IOException {
+        ObjectReader rowReader = objectMapper.readerFor(ProductImportRow.class);
+        try (reader) {
+            String line;
+            int row = 0;
+            while ((line = reader.readLine()) != null) {
+                row++;
+                if (line.isBlank()) continue;
+                try {
+                    run.accept(row, rowReader.readValue(line));
+                } catch (JsonProcessingException e) {
+                    run.reject(row, "Invalid JSON: " + e.getOriginalMessage());
+                }
+            }
+        }
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) return null;
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static BigDecimal decimal(String value, String column) {
+        if (value == null) return null;
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value);
+        }
+    }
+
+    private static Integer integer(String value, String column) {
+        if (value == null) return null;
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value);
+        }
+    }
+
+    private static Long longValue(String value, String column) {
+        if (value == null) return null;
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value);
+        }
+    }
+
+    // Bir import çağırışının vəziyyəti: kateqoriya cache-i, cari chunk və hesabat
+    private final class ImportRun {
+
+        private final Merchant merchant;
+        private final Map<Long, Category> categoriesById = new HashMap<>();
+        private final Map<String, Category> categoriesByName = new HashMap<>();
+
+        private final List<Product> chunk = new ArrayList<>(CHUNK_SIZE);
+        private final List<Integer> chunkRows = new ArrayList<>(CHUNK_SIZE);
+        private final List<ProductImportResponse.RowError> errors = new ArrayList<>();
+
+        private int totalRows;
+        private int imported;
+        private int failed;
+
+        private ImportRun(Merchant merchant, List<Category> categories) {
+            this.merchant = merchant;
+            for (Category category : categories) {
+                categoriesById.put(category.getId(), category);
+                categoriesByName.put(category.getName().toLowerCase(Locale.ROOT), category);
+            }
+        }
+
+        private void accept(int row, ProductImportRow data) {
+            totalRows++;
+            String error = validate(data);
+            if (error != null) {
+                recordError(row, error);
+                return;
+            }
+            Category category = data.getCategoryId() != null
+                    ? categoriesById.get(data.getCategoryId())
+                    : categoriesByName.get(data.getCategoryName().toLowerCase(Locale.ROOT));
+            if (category == null) {
+                recordError(row, "Category not found");
+                return;
+            }
+
+            chunk.add(Product.builder()
+                    .name(data.getName().trim())
+                    .details(data.getDetails())
+                    .price(Money.of(data.getPrice()))
+                    .stockCount(data.getStockCount())
+                    .category(category)
+                    .merchant(merchant)
+                    .build());
+            chunkRows.add(row);
+            if (chunk.size() >= CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        private void reject(int row, String message) {
+            totalRows++;
+            recordError(row, message);
+        }
+
+        private String validate(ProductImportRow data) {
+            if (!StringUtils.hasText(data.getName())) return "name is required";
+            if (data.getName().trim().length() > MAX_NAME_LENGTH) return "name is too long";
+            if (!StringUtils.hasText(data.getDetails())) return "details is required";
+            if (data.getPrice() == null || data.getPrice().compareTo(BigDecimal.ZERO) < 0) {
+                return "Price cannot be negative";
+            }
+            // Money.of long-a sığmayan məbləğdə ArithmeticException atar - sətir xətası kimi qeyd olunur
+            if (data.getPrice().compareTo(MAX_PRICE) > 0) return "Price is too large";
+            if (data.getStockCount() == null || data.getStockCount() < 0) {
+                return "Stock count cannot be negative";
+            }
+            if (data.getCategoryId() == null && !StringUtils.hasText(data.getCategoryName())) {
+                return "categoryId or categoryName is required";
+            }
+            return null;
+        }
+
+        private void recordError(int row, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ProductImportResponse.RowError(row, message));
+            }
+        }
+
+        // Chunk = bir transaction; DB xətası yalnız həmin chunk-ın sətirlərini uğursuz edir
+        private void flush() {
+            if (chunk.isEmpty()) return;
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            try {
+                tx.executeWithoutResult(status -> {
+                    for (Product product : chunk) {
+                        entityManager.persist(product);
+                    }
+                    // summary FK products-a baxır → əvvəlcə məhsullar yazılır
+                    entityManager.flush();
+                    List<ProductResponse> responses = new ArrayList<>(chunk.size());
+                    for (Product product : chunk) {
+                        entityManager.persist(productSummaryService.toSummary(product));
+                        responses.add(productService.toProductResponse(product, List.of()));
+                    }
+                    entityManager.flush();
+                    entityManager.clear();
+                    productCatalogSync.productsImported(responses);
+                });
+                imported += chunk.size();
+            } catch (DataAccessException | PersistenceException | TransactionException e) {
+                log.warn("Product import chunk of {} rows failed", chunk.size(), e);
+                for (Integer row : chunkRows) {
+                    recordError(row, "Rejected by database");
+                }
+            } finally {
+                chunk.clear();
+                chunkRows.clear();
+            }
+        }
+    }
+}
@@ -16,6 +16,7 @@ import org.springframework.web.multipart.MultipartFile;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Service
@@ -25,6 +26,8 @@ public class ProductPhotoService {
     private final ProductRepository productRepository;
     private final ProductPhotoRepository productPhotoRepository;
     private final CurrentUserService currentUserService;
+    private final ProductCatalogSync productCatalogSync;
+    private final ProductSummaryService productSummaryService;
 
     private static final Path UPLOAD_ROOT = Path.of("/app/uploads");
 
@@ -52,6 +55,10 @@ public class ProductPhotoService {
                 .build();
 
         photo = productPhotoRepository.save(photo);
+        // şəkillər cavabın bir hissəsidir → ETag (updated_at) dəyişməlidir
+        product.setUpdatedAt(LocalDateTime.now());
+        productSummaryService.photoAdded(productId, photo.getPhotoUrl());
+        productCatalogSync.productDetailsChanged(productId);
         return new ProductPhotoResponse(photo.getId(), photo.getPhotoUrl());
     }
 
@@ -0,0 +1,216 @@
+package az.marketplace.service;
+
+import az.marketplace.dto.product.ProductResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process inverted index over product name, details and category name.
+ * Ranking is BM25 over field-weighted term frequencies; every query token also
+ * matches indexed terms it is a prefix of (with a lower weight), so partial words work.
+ * Postings are kept in primitive arrays to keep a large catalog affordable in heap.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double PREFIX_WEIGHT = 0.5;
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+    private static final int MAX_DETAIL_TOKENS = 200;
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DETAILS_WEIGHT = 1;
+
+    private final NavigableMap<String, Postings> postings = new TreeMap<>();
+    private final Map<Long, DocEntry> docs = new HashMap<>();
+    private long totalLength;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Məhsulu əlavə edir və ya köhnə versiyasını əvəz edir
+    public void index(ProductResponse product) {
+        if (product == null || product.getId() == null) return;
+
+        Map<String, Integer> freqs = new HashMap<>();
+        addTokens(freqs, product.getName(), NAME_WEIGHT, Integer.MAX_VALUE);
+        addTokens(freqs, product.getCategoryName(), CATEGORY_WEIGHT, Integer.MAX_VALUE);
+        addTokens(freqs, product.getDetails(), DETAILS_WEIGHT, MAX_DETAIL_TOKENS);
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(product.getId());
+
+            String[] terms = new String[freqs.size()];
+            int length = 0;
+            int i = 0;
+            for (Map.Entry<String, Integer> e : freqs.entrySet()) {
+                Postings list = postings.computeIfAbsent(e.getKey(), Postings::new);
+                list.add(product.getId(), e.getValue());
+                terms[i++] = list.term; // eyni String instance bütün sənədlərdə paylaşılır
+                length += e.getValue();
+            }
+            docs.put(product.getId(), new DocEntry(terms, length));
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        if (productId == null) return;
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Ən uyğun məhsul id-ləri, score-a görə azalan sırada
+    public List<Long> search(String query, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) return List.of();
+
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            if (docs.isEmpty()) return List.of();
+            double avgLength = (double) totalLength / docs.size();
+
+            for (String token : new LinkedHashSet<>(tokens)) {
+                Postings exact = postings.get(token);
+                if (exact != null) {
+                    accumulate(scores, exact, 1.0, avgLength);
+                }
+                int expansions = 0;
+                for (Postings prefixed : postings.subMap(token, false, token + Character.MAX_VALUE, false).values()) {
+                    if (++expansions > MAX_PREFIX_EXPANSIONS) break;
+                    accumulate(scores, prefixed, PREFIX_WEIGHT, avgLength);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(
+                Map.Entry.<Long, Double>comparingByValue()
+                        .thenComparing(Map.Entry.<Long, Double>comparingByKey(Comparator.reverseOrder())));
+        for (Map.Entry<Long, Double> e : scores.entrySet()) {
+            top.offer(e);
+            if (top.size() > limit) top.poll();
+        }
+        List<Long> result = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            result.add(top.poll().getKey());
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void accumulate(Map<Long, Double> scores, Postings list, double weight, double avgLength) {
+        int n = docs.size();
+        double idf = Math.log(1 + (n - list.size + 0.5) / (list.size + 0.5));
+        for (int i = 0; i < list.size; i++) {
+            long docId = list.docIds[i];
+            int tf = list.freqs[i];
+            int docLength = docs.get(docId).length();
+            double norm = tf * (K1 + 1) / (tf + K1 * (1 - B + B * docLength / avgLength));
+            scores.merge(docId, weight * idf * norm, Double::sum);
+        }
+    }
+
+    private void removeInternal(Long productId) {
+        DocEntry previous = docs.remove(productId);
+        if (previous == null) return;
+        totalLength -= previous.length();
+        for (String term : previous.terms()) {
+            Postings list = postings.get(term);
+            if (list != null && list.remove(productId) && list.size == 0) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private static void addTokens(Map<String, Integer> freqs, String text, int weight, int maxTokens) {
+        int added = 0;
+        for (String token : tokenize(text)) {
+            if (added++ >= maxTokens) break;
+            freqs.merge(token, weight, Integer::sum);
+        }
+    }
+
+    // lower-case, hərf/rəqəm olmayan simvollarda bölünür, 1 simvollu tokenlər atılır
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) return List.of();
+        List<String> tokens = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                current.append(Character.toLowerCase(c));
+            } else if (current.length() > 0) {
+                flush(tokens, current);
+            }
+        }
+        flush(tokens, current);
+        return tokens;
+    }
+
+    private static void flush(List<String> tokens, StringBuilder current) {
+        if (current.length() > 1) {
+            tokens.add(current.toString());
+        }
+        current.setLength(0);
+    }
+
+    private record DocEntry(String[] terms, int length) {
+    }
+
+    // Bir termin posting siyahısı: paralel primitive massivlər (sırasız)
+    private static final class Postings {
+        private final String term;
+        private long[] docIds = new long[4];
+        private int[] freqs = new int[4];
+        private int size;
+
+        private Postings(String term) {
+            this.term = term;
+        }
+
+        private void add(long docId, int freq) {
+            if (size == docIds.length) {
+                docIds = Arrays.copyOf(docIds, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docIds[size] = docId;
+            freqs[size] = freq;
+            size++;
+        }
+
+        private boolean remove(long docId) {
+            for (int i = 0; i < size; i++) {
+                if (docIds[i] == docId) {
+                    size--;
+                    docIds[i] = docIds[size];
+                    freqs[i] = freqs[size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
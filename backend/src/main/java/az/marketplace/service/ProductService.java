@@ -1,7 +1,15 @@
 package az.marketplace.service;
 
+import az.marketplace.dto.product.ProductBulkUpdateRequest;
+import az.marketplace.dto.product.ProductBulkUpdateResponse;
+import az.marketplace.dto.product.ProductFacetResponse;
+import az.marketplace.dto.product.ProductPageRequest;
+import az.marketplace.dto.product.ProductPageResponse;
 import az.marketplace.dto.product.ProductRequest;
 import az.marketplace.dto.product.ProductResponse;
+import az.marketplace.dto.product.ProductSortField;
+import az.marketplace.dto.product.ProductVersionInfo;
+import az.marketplace.dto.product.StockShardsRequest;
 import az.marketplace.entity.Category;
 import az.marketplace.entity.Merchant;
 import az.marketplace.entity.Product;
@@ -9,8 +17,12 @@ import az.marketplace.entity.ProductPhoto;
 import az.marketplace.exception.AccessDeniedException;
 import az.marketplace.exception.NotFoundException;
 import az.marketplace.repository.CategoryRepository;
+import az.marketplace.repository.ProductBulkUpdate;
 import az.marketplace.repository.OrderRepository;
+import az.marketplace.repository.ProductPageQuery;
 import az.marketplace.repository.ProductRepository;
+import az.marketplace.util.ConditionalGet;
+import az.marketplace.util.Money;
 import lombok.RequiredArgsConstructor;
 import org.springframework.util.StringUtils;
 import org.springframework.stereotype.Service;
@@ -18,11 +30,19 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.UUID;
 
@@ -34,20 +54,122 @@ public class ProductService {
     private final CategoryRepository categoryRepository;
     private final OrderRepository orderRepository;
     private final CurrentUserService currentUserService;
+    private final ProductCache productCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final ProductCatalogSync productCatalogSync;
+    private final ProductSummaryService productSummaryService;
+    private final InventoryService inventoryService;
 
-    @Transactional(readOnly = true)
-    public List<ProductResponse> getAllProducts() {
-        return productRepository.findAll()
-                .stream()
-                .map(this::toProductResponse)
+    private static final int CACHE_LOAD_CHUNK = 500;
+
+    // Conditional GET üçün: entity yüklənmir - cache-dəki cavab, yoxdursa yalnız updated_at və stok.
+    // Stok ETag-ə daxildir: sharded məhsulda satış products.updated_at-ə toxunmur
+    public ConditionalGet.Version getVersion(Long id) {
+        ProductResponse cached = productCache.getIfPresent(id);
+        ProductVersionInfo info = cached != null && cached.getUpdatedAt() != null
+                ? new ProductVersionInfo(cached.getUpdatedAt(), cached.getStockCount())
+                : productRepository.findVersionById(id)
+                        .orElseThrow(() -> new NotFoundException("Product not found"));
+        String prefix = info.stockCount() == null ? "p" + id : "p" + id + "-s" + info.stockCount();
+        return ConditionalGet.of(prefix, info.updatedAt());
+    }
+
+    private static final int MAX_LOOKUP_IDS = 1000;
+
+    // Sorğu sırası ilə; cache-də olmayanlar bir (və ya bir neçə, 500-lük) sorğu ilə yüklənir.
+    // Tapılmayan id-lər nəticəyə düşmür, təkrarlanan id bir dəfə qaytarılır
+    public List<ProductResponse> getByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) return List.of();
+        List<Long> distinct = ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        if (distinct.size() > MAX_LOOKUP_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_LOOKUP_IDS + " ids per lookup");
+        }
+        Map<Long, ProductResponse> byId = productCache.getAll(distinct, this::loadResponses);
+        return distinct.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
     @Transactional(readOnly = true)
+    public ProductPageResponse getProductPage(ProductPageRequest req) {
+        ProductSortField sort = ProductSortField.from(req.getSort());
+        boolean ascending = resolveDirection(req.getDirection(), sort);
+        int limit = req.getLimit() != null ? req.getLimit() : DEFAULT_PAGE_SIZE;
+
+        Comparable<?> afterValue = null;
+        Long afterId = null;
+        if (StringUtils.hasText(req.getCursor())) {
+            String[] parts = decodeCursor(req.getCursor(), sort, ascending);
+            afterValue = parseCursorValue(sort, parts[2]);
+            afterId = parseCursorId(parts[3]);
+        }
+
+        // bir əlavə sətir gətiririk ki, növbəti səhifənin olub-olmadığını bilək
+        List<Product> rows = productRepository.findPage(new ProductPageQuery(
+                req.getCategoryId(),
+                req.getMerchantId(),
+                req.getMinPrice(),
+                req.getMaxPrice(),
+                sort,
+                ascending,
+                afterValue,
+                afterId,
+                limit + 1
+        ));
+
+        boolean hasMore = rows.size() > limit;
+        List<Product> page = hasMore ? rows.subList(0, limit) : rows;
+
+        return ProductPageResponse.builder()
+                .items(page.stream().map(this::toProductResponse).collect(Collectors.toList()))
+                .nextCursor(hasMore ? encodeCursor(sort, ascending, page.get(page.size() - 1)) : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
     public ProductResponse getById(Long id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException("Product not found"));
-        return toProductResponse(product);
+        return productCache.get(id, key -> productRepository.findWithDetailsById(key)
+                .map(this::toProductResponse)
+                .orElseThrow(() -> new NotFoundException("Product not found")));
+    }
+
+    private static final int MAX_SEARCH_RESULTS = 100;
+
+    // Full-text axtarış: sıralama in-memory indeksdən, məhsullar cache-dən
+    public List<ProductResponse> search(String query, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS));
+        List<Long> ids = productSearchIndex.search(query, size);
+        if (ids.isEmpty()) return List.of();
+
+        Map<Long, ProductResponse> byId = productCache.getAll(ids, this::loadResponses);
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private static final int DEFAULT_FACET_IDS = 50;
+
+    // Facet sayları və filtrə uyğun id-lər bitmap kəsişmələrindən (DB-yə getmir)
+    public ProductFacetResponse getFacets(Long categoryId, Long merchantId, String priceBucket,
+                                          boolean inStockOnly, Integer limit) {
+        int idLimit = limit == null ? DEFAULT_FACET_IDS : Math.max(0, Math.min(limit, MAX_SEARCH_RESULTS));
+        return productFacetIndex.query(categoryId, merchantId, priceBucket, inStockOnly, idLimit);
+    }
+
+    private Map<Long, ProductResponse> loadResponses(List<Long> ids) {
+        Map<Long, ProductResponse> loaded = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += CACHE_LOAD_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + CACHE_LOAD_CHUNK, ids.size()));
+            for (Product product : productRepository.findAllWithDetailsByIdIn(chunk)) {
+                loaded.put(product.getId(), toProductResponse(product));
+            }
+        }
+        return loaded;
     }
 
     private static final Path UPLOAD_ROOT = Path.of("/app/uploads");
@@ -62,7 +184,7 @@ public class ProductService {
         Product product = Product.builder()
                 .name(req.getName())
                 .details(req.getDetails())
-                .price(req.getPrice())
+                .price(Money.of(req.getPrice()))
                 .stockCount(req.getStockCount())
                 .category(category)
                 .merchant(merchant)
@@ -85,7 +207,10 @@ public class ProductService {
         }
 
         product = productRepository.save(product);
-        return toProductResponse(product);
+        productSummaryService.refresh(product);
+        ProductResponse response = toProductResponse(product);
+        productCatalogSync.productSaved(response);
+        return response;
     }
 
     @Transactional
@@ -106,12 +231,21 @@ public class ProductService {
 
         product.setName(req.getName());
         product.setDetails(req.getDetails());
-        product.setPrice(req.getPrice());
-        product.setStockCount(req.getStockCount());
+        product.setPrice(Money.of(req.getPrice()));
         product.setCategory(category);
+        if (isSharded(product)) {
+            // products.stock_count 0 qalır, yeni dəyər bucket-lərə paylanır
+            inventoryService.setShardedStock(productId, req.getStockCount());
+            product.setShardedStock(req.getStockCount());
+        } else {
+            product.setStockCount(req.getStockCount());
+        }
 
         product = productRepository.save(product);
-        return toProductResponse(product);
+        productSummaryService.refresh(product);
+        ProductResponse response = toProductResponse(product);
+        productCatalogSync.productSaved(response);
+        return response;
     }
 
     @Transactional
@@ -125,14 +259,101 @@ public class ProductService {
             throw new AccessDeniedException("You cannot delete this product");
         }
 
-        boolean referencedInOrders = orderRepository.existsByProduct_Id(productId);
+        boolean referencedInOrders = orderRepository.existsByProductId(productId);
         if (referencedInOrders) {
             throw new AccessDeniedException(
                     "This product is already part of existing orders and cannot be deleted"
             );
         }
 
+        productSummaryService.remove(productId);
         productRepository.delete(product);
+        productCatalogSync.productDeleted(productId);
+    }
+
+    // Bir batch: bir sahiblik sorğusu + bir set-based UPDATE; hamısı və ya heç biri
+    @Transactional
+    public ProductBulkUpdateResponse bulkUpdate(ProductBulkUpdateRequest req, Merchant actingMerchant) {
+        List<ProductBulkUpdate> updates = new ArrayList<>(req.getItems().size());
+        Set<Long> ids = new HashSet<>();
+        Map<Long, Money> newPrices = new HashMap<>();
+        List<Long> stockIds = new ArrayList<>();
+
+        for (ProductBulkUpdateRequest.Item item : req.getItems()) {
+            if (!ids.add(item.getProductId())) {
+                throw new IllegalArgumentException("Duplicate productId in batch: " + item.getProductId());
+            }
+            if (item.getStockCount() != null && item.getStockDelta() != null) {
+                throw new IllegalArgumentException("Use either stockCount or stockDelta, not both");
+            }
+            boolean stockTouched = item.getStockCount() != null || item.getStockDelta() != null;
+            if (item.getPrice() == null && !stockTouched) {
+                throw new IllegalArgumentException("Nothing to update for product " + item.getProductId());
+            }
+            if (item.getPrice() != null) newPrices.put(item.getProductId(), Money.of(item.getPrice()));
+            if (stockTouched) stockIds.add(item.getProductId());
+            updates.add(new ProductBulkUpdate(item.getProductId(), item.getPrice(),
+                    item.getStockCount(), item.getStockDelta()));
+        }
+
+        List<Long> owned = productRepository.findIdsOwnedBy(ids, actingMerchant.getId());
+        if (owned.size() != ids.size()) {
+            Set<Long> rejected = new HashSet<>(ids);
+            owned.forEach(rejected::remove);
+            throw new AccessDeniedException("You cannot modify products " + rejected);
+        }
+
+        // sharded məhsulların stoku bucket-lərdədir: onlar ayrıca, set-based UPDATE yalnız qiyməti yazır
+        Set<Long> sharded = stockIds.isEmpty() ? Set.of() : new HashSet<>(productRepository.findShardedIds(stockIds));
+        if (!sharded.isEmpty()) {
+            for (int i = 0; i < updates.size(); i++) {
+                ProductBulkUpdate u = updates.get(i);
+                if (!sharded.contains(u.productId())) continue;
+                if (u.stockCount() != null) {
+                    inventoryService.setShardedStock(u.productId(), u.stockCount());
+                } else if (!inventoryService.adjustShardedStock(u.productId(), u.stockDelta())) {
+                    throw new IllegalArgumentException("Stock count cannot be negative");
+                }
+                updates.set(i, new ProductBulkUpdate(u.productId(), u.price(), null, null));
+            }
+            updates.removeIf(u -> u.price() == null && u.stockCount() == null && u.stockDelta() == null);
+        }
+
+        int updated = updates.isEmpty() ? 0 : productRepository.bulkUpdate(updates);
+        if (updated != updates.size()) {
+            // ən azı bir sətrin stoku mənfiyə düşərdi → bütün batch geri qaytarılır
+            throw new IllegalArgumentException("Stock count cannot be negative");
+        }
+
+        productSummaryService.pricesChanged(newPrices.keySet());
+        productCatalogSync.bulkUpdated(newPrices, stockIds);
+        return ProductBulkUpdateResponse.builder().updated(ids.size()).build();
+    }
+
+    // Flash-sale rejimi: shards > 1 → stok N bucket-ə bölünür, 0/1 → adi rejimə qaytarılır
+    @Transactional
+    public ProductResponse setStockShards(Long productId, StockShardsRequest req, Merchant actingMerchant) {
+        // entity burada yüklənmir: reshard onu kilidlə (təzə vəziyyətdə) özü oxuyur
+        if (productRepository.findIdsOwnedBy(List.of(productId), actingMerchant.getId()).isEmpty()) {
+            if (!productRepository.existsById(productId)) throw new NotFoundException("Product not found");
+            throw new AccessDeniedException("You cannot modify this product");
+        }
+
+        inventoryService.reshard(productId, req.getShards());
+        productCatalogSync.stockChanged(List.of(productId));
+        return productRepository.findWithDetailsById(productId)
+                .map(this::toProductResponse)
+                .orElseThrow(() -> new NotFoundException("Product not found"));
+    }
+
+    // sharded məhsulda products.stock_count 0-dır, stok bucket-lərin cəmidir
+    private static Integer totalStock(Product product) {
+        if (product.getStockCount() == null || product.getShardedStock() == null) return product.getStockCount();
+        return product.getStockCount() + product.getShardedStock();
+    }
+
+    private static boolean isSharded(Product product) {
+        return product.getStockShards() != null && product.getStockShards() > 1;
     }
 
     private void validateProductRequest(ProductRequest req) {
@@ -144,6 +365,62 @@ public class ProductService {
         }
     }
 
+    private boolean resolveDirection(String direction, ProductSortField sort) {
+        if (!StringUtils.hasText(direction)) {
+            return sort.isAscendingByDefault();
+        }
+        if ("asc".equalsIgnoreCase(direction)) return true;
+        if ("desc".equalsIgnoreCase(direction)) return false;
+        throw new IllegalArgumentException("Direction must be asc or desc");
+    }
+
+    // cursor = base64url("SORT|asc|value|id")
+    private String encodeCursor(ProductSortField sort, boolean ascending, Product last) {
+        String value = switch (sort) {
+            case CREATED_AT -> last.getCreatedAt().toString();
+            case PRICE -> last.getPrice().toString();
+            case ID -> "";
+        };
+        String raw = sort.name() + "|" + (ascending ? "asc" : "desc") + "|" + value + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor, ProductSortField sort, boolean ascending) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        String[] parts = raw.split("\\|", -1);
+        if (parts.length != 4
+                || !parts[0].equals(sort.name())
+                || !parts[1].equals(ascending ? "asc" : "desc")) {
+            throw new IllegalArgumentException("Cursor does not match the requested sort");
+        }
+        return parts;
+    }
+
+    private Comparable<?> parseCursorValue(ProductSortField sort, String value) {
+        try {
+            return switch (sort) {
+                case CREATED_AT -> LocalDateTime.parse(value);
+                case PRICE -> Money.of(value);
+                case ID -> null;
+            };
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private Long parseCursorId(String value) {
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
     private String storeImage(MultipartFile file) {
         try {
             Files.createDirectories(UPLOAD_ROOT);
@@ -170,19 +447,24 @@ public class ProductService {
                 if (ph != null && ph.getPhotoUrl() != null) photoUrls.add(ph.getPhotoUrl());
             }
         }
+        return toProductResponse(product, photoUrls);
+    }
 
+    // şəkillər əvvəlcədən (batch) yükləndikdə
+    public ProductResponse toProductResponse(Product product, List<String> photoUrls) {
         return ProductResponse.builder()
                 .id(product.getId())
                 .name(product.getName())
                 .details(product.getDetails())
                 .price(product.getPrice())
-                .stockCount(product.getStockCount())
+                .stockCount(totalStock(product))
                 .merchantId(product.getMerchant().getId())
                 .merchantCompanyName(product.getMerchant().getCompanyName())
                 .categoryId(product.getCategory().getId())
                 .categoryName(product.getCategory().getName())
                 .photoUrls(photoUrls)
                 .createdAt(product.getCreatedAt())   // <<=== ƏSAS SƏTİR
+                .updatedAt(product.getUpdatedAt())
                 .build();
     }
 }
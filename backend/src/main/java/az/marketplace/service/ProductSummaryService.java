@@ -0,0 +1,105 @@
+package az.marketplace.service;
+
+import az.marketplace.dto.product.ProductSummaryPageResponse;
+import az.marketplace.dto.product.ProductSummaryResponse;
+import az.marketplace.entity.Product;
+import az.marketplace.entity.ProductPhoto;
+import az.marketplace.entity.ProductSummary;
+import az.marketplace.repository.ProductSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.util.Collection;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class ProductSummaryService {
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_LIST_SIZE = 200;
+
+    private final ProductSummaryRepository productSummaryRepository;
+
+    // Ən yenilər əvvəl; cursor = əvvəlki səhifənin son product id-si
+    @Transactional(readOnly = true)
+    public ProductSummaryPageResponse getPage(Long categoryId, Long merchantId, String cursor, Integer limit) {
+        int size = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Long afterId = parseCursor(cursor);
+
+        List<ProductSummaryResponse> rows = productSummaryRepository.findPage(
+                categoryId, merchantId, afterId, PageRequest.of(0, size + 1));
+
+        boolean hasMore = rows.size() > size;
+        List<ProductSummaryResponse> page = hasMore ? rows.subList(0, size) : rows;
+
+        return ProductSummaryPageResponse.builder()
+                .items(page)
+                .nextCursor(hasMore ? String.valueOf(page.get(page.size() - 1).id()) : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    // GET /products: eyni read model-dən, ən yeni MAX_LIST_SIZE məhsul (bütün kataloq yüklənmir);
+    // listing səhifələri getPage (cursor) ilə gəzir
+    @Transactional(readOnly = true)
+    public List<ProductSummaryResponse> getAll(Long categoryId, Long merchantId) {
+        return productSummaryRepository.findPage(categoryId, merchantId, null, PageRequest.of(0, MAX_LIST_SIZE));
+    }
+
+    // Product yazıldığı eyni transaction daxilində çağırılır
+    @Transactional
+    public void refresh(Product product) {
+        productSummaryRepository.save(toSummary(product));
+    }
+
+    public ProductSummary toSummary(Product product) {
+        List<ProductPhoto> photos = product.getPhotos() != null ? product.getPhotos() : List.of();
+        String firstPhotoUrl = photos.isEmpty() ? null : photos.get(0).getPhotoUrl();
+
+        return ProductSummary.builder()
+                .productId(product.getId())
+                .merchantId(product.getMerchant().getId())
+                .categoryId(product.getCategory().getId())
+                .name(product.getName())
+                .price(product.getPrice())
+                .merchantCompanyName(product.getMerchant().getCompanyName())
+                .categoryName(product.getCategory().getName())
+                .firstPhotoUrl(firstPhotoUrl)
+                .photoCount(photos.size())
+                .createdAt(product.getCreatedAt())
+                .build();
+    }
+
+    @Transactional
+    public void photoAdded(Long productId, String photoUrl) {
+        productSummaryRepository.photoAdded(productId, photoUrl);
+    }
+
+    // bulk qiymət dəyişikliyi: products-dan bir set-based UPDATE
+    @Transactional
+    public void pricesChanged(Collection<Long> productIds) {
+        if (productIds.isEmpty()) return;
+        productSummaryRepository.syncPrices(productIds);
+    }
+
+    @Transactional
+    public void remove(Long productId) {
+        if (productSummaryRepository.existsById(productId)) {
+            productSummaryRepository.deleteById(productId);
+        }
+    }
+
+    private Long parseCursor(String cursor) {
+        if (!StringUtils.hasText(cursor)) return null;
+        try {
+            return Long.valueOf(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package az.marketplace.util;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+public final class ConditionalGet {
+
+    // saxlamaq olar, amma hər istifadədən əvvəl yoxlanmalıdır (If-None-Match / If-Modified-Since)
+    private static final String CACHE_CONTROL = CacheControl.noCache().cachePublic().getHeaderValue();
+
+    private ConditionalGet() {
+    }
+
+    public record Version(String etag, long lastModified) {
+    }
+
+    // Strong ETag: DB-dəki updated_at dəqiqliyi (mikrosaniyə) ilə
+    public static Version of(String prefix, LocalDateTime updatedAt) {
+        Instant at = updatedAt.truncatedTo(ChronoUnit.MICROS).atZone(ZoneId.systemDefault()).toInstant();
+        String etag = "\"" + prefix + "-" + at.getEpochSecond() + "." + at.getNano() / 1000 + "\"";
+        return new Version(etag, at.toEpochMilli());
+    }
+
+    // true → 304 artıq yazılıb, body yüklənməməlidir; false → ETag/Last-Modified header-ləri qoyulub
+    public static boolean notModified(ServletWebRequest request, Version version) {
+        HttpServletResponse response = request.getResponse();
+        if (response != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        }
+        return request.checkNotModified(version.etag(), version.lastModified());
+    }
+}
@@ -0,0 +1,115 @@
+package az.marketplace.service;
+
+import az.marketplace.entity.BalanceHold;
+import az.marketplace.entity.Customer;
+import az.marketplace.entity.Order;
+import az.marketplace.entity.enums.BalanceHoldStatus;
+import az.marketplace.exception.BalanceException;
+import az.marketplace.repository.BalanceEntryRepository;
+import az.marketplace.repository.BalanceHoldRepository;
+import az.marketplace.util.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BalanceServiceTest {
+
+    @Mock
+    private BalanceEntryRepository balanceEntryRepository;
+    @Mock
+    private BalanceHoldRepository balanceHoldRepository;
+
+    private BalanceService balanceService;
+
+    private final Customer customer = Customer.builder().id(4L).build();
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        balanceService = new BalanceService(balanceEntryRepository, balanceHoldRepository, new SimpleMeterRegistry(),
+                Duration.ofSeconds(30), 100, 20, 500, Duration.ofDays(7));
+    }
+
+    @Test
+    void authorize_shouldAppendHoldEntryAndAuthorizedHoldPerOrder() {
+        when(balanceEntryRepository.append(eq(4L), any(), any(), any(), any())).thenReturn(1);
+        Order order = Order.builder().id(30L).customer(customer).totalAmount(Money.of("50.00")).build();
+
+        balanceService.authorize(customer, List.of(order));
+
+        verify(balanceEntryRepository).append(eq(4L), eq(Money.of("-50.00")), eq("HOLD"), eq("order:30"), any());
+        verify(balanceHoldRepository).saveAll(argThat(holds -> {
+            BalanceHold hold = holds.iterator().next();
+            return hold.getOrderId().equals(30L) && hold.getStatus() == BalanceHoldStatus.AUTHORIZED;
+        }));
+    }
+
+    @Test
+    void authorize_shouldFailWhenBalanceSpentConcurrently() {
+        when(balanceEntryRepository.append(eq(4L), any(), any(), any(), any())).thenReturn(0);
+        when(balanceEntryRepository.currentBalance(4L)).thenReturn(Optional.of(new BigDecimal("20.00")));
+        Order order = Order.builder().id(30L).customer(customer).totalAmount(Money.of("50.00")).build();
+
+        BalanceException ex = assertThrows(BalanceException.class,
+                () -> balanceService.authorize(customer, List.of(order)));
+        assertEquals("INSUFFICIENT_BALANCE", ex.getCode());
+        verify(balanceHoldRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void authorize_shouldRetryAfterConcurrentAppend() {
+        // birinci cəhd seq toqquşması, balans hələ çatır → yenidən
+        when(balanceEntryRepository.append(eq(4L), any(), any(), any(), any())).thenReturn(0, 1);
+        when(balanceEntryRepository.currentBalance(4L)).thenReturn(Optional.of(new BigDecimal("80.00")));
+        Order order = Order.builder().id(30L).customer(customer).totalAmount(Money.of("50.00")).build();
+
+        balanceService.authorize(customer, List.of(order));
+
+        verify(balanceEntryRepository, times(2)).append(eq(4L), any(), any(), any(), any());
+    }
+
+    @Test
+    void release_shouldReleaseOpenHoldAndRefundCapturedOrder() {
+        Order held = Order.builder().id(30L).customer(customer).totalAmount(Money.of("50.00")).build();
+        Order captured = Order.builder().id(31L).customer(customer).totalAmount(Money.of("70.00")).build();
+        BalanceHold hold = BalanceHold.builder().id(1L).customerId(4L).orderId(30L)
+                .amount(Money.of("50.00")).status(BalanceHoldStatus.AUTHORIZED).build();
+        when(balanceHoldRepository.lockAuthorized(any())).thenReturn(List.of(hold));
+        when(balanceEntryRepository.append(eq(4L), any(), any(), any(), any())).thenReturn(1);
+
+        balanceService.release(List.of(held, captured));
+
+        assertEquals(BalanceHoldStatus.RELEASED, hold.getStatus());
+        verify(balanceEntryRepository).append(eq(4L), eq(Money.of("50.00")), eq("HOLD_RELEASE"), eq("order:30"), any());
+        verify(balanceEntryRepository).append(eq(4L), eq(Money.of("70.00")), eq("REFUND"), eq("order:31"), any());
+    }
+
+    @Test
+    void release_shouldSkipZeroAmountOrderWithoutHold() {
+        Order free = Order.builder().id(32L).customer(customer).totalAmount(Money.ZERO).build();
+        when(balanceHoldRepository.lockAuthorized(any())).thenReturn(List.of());
+
+        assertDoesNotThrow(() -> balanceService.release(List.of(free)));
+
+        verify(balanceEntryRepository, never()).append(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void currentBalance_shouldBeCached() {
+        when(balanceEntryRepository.currentBalance(4L)).thenReturn(Optional.of(new BigDecimal("10.00")));
+
+        assertEquals(Money.of("10.00"), balanceService.currentBalance(4L));
+        assertEquals(Money.of("10.00"), balanceService.currentBalance(4L));
+
+        verify(balanceEntryRepository, times(1)).currentBalance(4L);
+    }
+}
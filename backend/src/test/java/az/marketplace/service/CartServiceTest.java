@@ -1,58 +1,197 @@
 package az.marketplace.service;
 
 import az.marketplace.dto.cart.AddToCartRequest;
+import az.marketplace.dto.cart.CartBulkUpdateRequest;
+import az.marketplace.dto.cart.CartBulkUpdateRequest.Op;
+import az.marketplace.dto.cart.CartLineRow;
+import az.marketplace.dto.product.ProductResponse;
 import az.marketplace.entity.*;
+import az.marketplace.exception.AccessDeniedException;
+import az.marketplace.exception.NotFoundException;
 import az.marketplace.repository.*;
+import az.marketplace.service.CartStore.CartState;
+import az.marketplace.util.Money;
 import org.junit.jupiter.api.BeforeEach;
-import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
 
-import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
-@Disabled("Cart service test not finalized yet")
 class CartServiceTest {
 
     @Mock
-    private CartRepository cartRepository;
+    private CartStore cartStore;
     @Mock
     private CartItemRepository cartItemRepository;
     @Mock
-    private ProductRepository productRepository;
+    private ProductService productService;
+    @Mock
+    private InventoryService inventoryService;
 
     @InjectMocks
     private CartService cartService;
 
     private User user;
     private Customer customer;
-    private Cart cart;
-    private Product product;
+    private CartState cart;
+    private ProductResponse product;
 
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
         user = User.builder().id(1L).email("murad@example.com").build();
         customer = Customer.builder().user(user).build();
-        cart = Cart.builder().id(1L).user(user).build();
-        product = Product.builder().id(5L).name("Laptop").price(new BigDecimal("1000.00")).build();
+        cart = new CartState(1L, 1L);
+        product = ProductResponse.builder().id(5L).name("Laptop").price(Money.of("1000.00")).build();
+        when(cartStore.get(user)).thenReturn(cart);
     }
 
     @Test
     void addToCart_shouldIncreaseCountIfExists() {
         AddToCartRequest req = AddToCartRequest.builder().productId(5L).count(2).build();
 
-        when(cartRepository.findByUser(user)).thenReturn(Optional.of(cart));
-        when(productRepository.findById(5L)).thenReturn(Optional.of(product));
-        when(cartItemRepository.findByCartAndProduct(cart, product))
-                .thenReturn(Optional.of(CartItem.builder().cart(cart).product(product).count(1).build()));
+        when(productService.getById(5L)).thenReturn(product);
+        when(inventoryService.tryReserve(1L, 5L, 2)).thenReturn(true);
+        when(cartStore.add(eq(cart), eq(5L), eq(2), any())).thenAnswer(i -> {
+            i.getArgument(3, Runnable.class).run();
+            return new CartLineRow(11L, 5L, 3);
+        });
 
         var response = cartService.addToCart(customer, req);
 
         assertNotNull(response);
         assertEquals(3, response.getCount());
+        assertEquals(Money.of("3000.00"), response.getTotalPrice());
+    }
+
+    @Test
+    void addToCart_shouldNotTouchCartWhenStockIsShort() {
+        AddToCartRequest req = AddToCartRequest.builder().productId(5L).count(2).build();
+
+        when(productService.getById(5L)).thenReturn(product);
+        when(inventoryService.tryReserve(1L, 5L, 2)).thenReturn(false);
+        when(cartStore.add(eq(cart), eq(5L), eq(2), any())).thenAnswer(i -> {
+            i.getArgument(3, Runnable.class).run();
+            return new CartLineRow(11L, 5L, 3);
+        });
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> cartService.addToCart(customer, req));
+        assertTrue(ex.getMessage().startsWith("Only "));
+    }
+
+    @Test
+    void getCartItems_shouldReadLinesWithCachedProducts() {
+        CartState loaded = mock(CartState.class);
+        when(cartStore.get(user)).thenReturn(loaded);
+        when(loaded.lines()).thenReturn(List.of(new CartLineRow(11L, 5L, 2), new CartLineRow(12L, 6L, 1)));
+        // 6 silinib - sətir göstərilmir
+        when(productService.getByIds(List.of(5L, 6L))).thenReturn(List.of(product));
+
+        var items = cartService.getCartItems(customer);
+
+        assertEquals(1, items.size());
+        assertEquals(11L, items.get(0).getItemId());
+        assertEquals(Money.of("2000.00"), items.get(0).getTotalPrice());
+        verifyNoInteractions(cartItemRepository);
+    }
+
+    @Test
+    void getCartView_shouldSumOnServerAndFlagOverStockLines() {
+        CartState loaded = mock(CartState.class);
+        when(cartStore.get(user)).thenReturn(loaded);
+        when(loaded.lines()).thenReturn(List.of(new CartLineRow(11L, 5L, 2), new CartLineRow(12L, 6L, 4)));
+        product.setStockCount(10);
+        ProductResponse cable = ProductResponse.builder().id(6L).name("Cable").price(Money.of("2.50"))
+                .stockCount(3).build();
+        when(productService.getByIds(List.of(5L, 6L))).thenReturn(List.of(product, cable));
+
+        var view = cartService.getCartView(customer);
+
+        assertEquals(2, view.getItems().size());
+        assertEquals(6, view.getItemCount());
+        assertEquals(Money.of("2010.00"), view.getGrandTotal());
+        assertEquals(List.of(12L), view.getOverStockItemIds());
+        assertFalse(view.getItems().get(0).isExceedsStock());
+        verifyNoInteractions(cartItemRepository);
+    }
+
+    @Test
+    void removeItem_shouldRejectForeignItem() {
+        when(cartStore.remove(cart, 99L)).thenReturn(Optional.empty());
+        when(cartItemRepository.existsById(99L)).thenReturn(true);
+
+        assertThrows(AccessDeniedException.class, () -> cartService.removeItem(customer, 99L));
+        verify(inventoryService, never()).release(anyLong(), anyLong());
+    }
+
+    @Test
+    void removeItem_shouldReleaseReservation() {
+        when(cartStore.remove(cart, 11L)).thenReturn(Optional.of(new CartLineRow(11L, 5L, 2)));
+
+        cartService.removeItem(customer, 11L);
+
+        verify(inventoryService).release(1L, 5L);
+    }
+
+    @Test
+    void removeItem_missingItemIsNotFound() {
+        when(cartStore.remove(cart, 99L)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> cartService.removeItem(customer, 99L));
+    }
+
+    @Test
+    void updateCart_shouldRejectDuplicateProducts() {
+        CartBulkUpdateRequest req = CartBulkUpdateRequest.builder().items(List.of(
+                CartBulkUpdateRequest.Item.builder().productId(5L).op(Op.SET).count(1).build(),
+                CartBulkUpdateRequest.Item.builder().productId(5L).op(Op.REMOVE).build())).build();
+
+        assertThrows(IllegalArgumentException.class, () -> cartService.updateCart(customer, req));
+        verifyNoInteractions(inventoryService);
+    }
+
+    @Test
+    void updateCart_shouldFailWhenProductMissing() {
+        CartBulkUpdateRequest req = CartBulkUpdateRequest.builder().items(List.of(
+                CartBulkUpdateRequest.Item.builder().productId(5L).op(Op.INCREMENT).count(1).build(),
+                CartBulkUpdateRequest.Item.builder().productId(6L).op(Op.SET).count(2).build())).build();
+        when(productService.getByIds(List.of(5L, 6L))).thenReturn(List.of(product));
+
+        assertThrows(NotFoundException.class, () -> cartService.updateCart(customer, req));
+        verify(cartStore, never()).apply(any(), any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updateCart_shouldApplyOpsAndFailOnShortStock() {
+        CartBulkUpdateRequest req = CartBulkUpdateRequest.builder().items(List.of(
+                CartBulkUpdateRequest.Item.builder().productId(5L).op(Op.INCREMENT).count(2).build(),
+                CartBulkUpdateRequest.Item.builder().productId(6L).op(Op.REMOVE).build())).build();
+        // 6 artıq silinib - REMOVE üçün məhsul tapılmasa da olar
+        when(productService.getByIds(List.of(5L, 6L))).thenReturn(List.of(product));
+
+        ArgumentCaptor<Map<Long, IntUnaryOperator>> changes = ArgumentCaptor.forClass(Map.class);
+        ArgumentCaptor<Consumer<Map<Long, Integer>>> inTransaction = ArgumentCaptor.forClass(Consumer.class);
+
+        cartService.updateCart(customer, req);
+
+        verify(cartStore).apply(eq(cart), changes.capture(), inTransaction.capture());
+        assertEquals(5, changes.getValue().get(5L).applyAsInt(3));
+        assertEquals(0, changes.getValue().get(6L).applyAsInt(4));
+
+        // rezerv çatmırsa exception → CartStore transaction-ı geri qaytarır
+        when(inventoryService.adjustReservations(1L, Map.of(5L, 2))).thenReturn(Set.of(5L));
+        var error = assertThrows(IllegalArgumentException.class,
+                () -> inTransaction.getValue().accept(Map.of(5L, 2)));
+        assertTrue(error.getMessage().contains("Laptop"));
     }
 }
@@ -0,0 +1,176 @@
+package az.marketplace.service;
+
+import az.marketplace.dto.cart.CartLineRow;
+import az.marketplace.entity.*;
+import az.marketplace.repository.*;
+import az.marketplace.service.CartStore.CartState;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.IntUnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CartStoreTest {
+
+    @Mock
+    private CartRepository cartRepository;
+    @Mock
+    private CartItemRepository cartItemRepository;
+    @Mock
+    private ProductRepository productRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CartStore cartStore;
+    private User user;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        cartStore = new CartStore(cartRepository, cartItemRepository, productRepository,
+                transactionManager, new SimpleMeterRegistry(), 100, Duration.ofMinutes(30));
+        user = User.builder().id(1L).build();
+        when(cartRepository.findByUser(user)).thenReturn(Optional.of(Cart.builder().id(3L).user(user).build()));
+        when(cartItemRepository.findLineRows(3L)).thenReturn(List.of(new CartLineRow(7L, 5L, 1)));
+    }
+
+    @Test
+    void get_shouldLoadOnceAndServeFromMemory() {
+        CartState first = cartStore.get(user);
+        CartState second = cartStore.get(user);
+
+        assertSame(first, second);
+        assertEquals(List.of(new CartLineRow(7L, 5L, 1)), second.lines());
+        verify(cartItemRepository, times(1)).findLineRows(3L);
+    }
+
+    @Test
+    void add_existingLine_shouldCoalesceIntoOneBatchedUpdate() {
+        CartState cart = cartStore.get(user);
+
+        cartStore.add(cart, 5L, 2, () -> { });
+        cartStore.add(cart, 5L, 3, () -> { });
+        verify(cartItemRepository, never()).updateCounts(any());
+
+        assertEquals(1, cartStore.flushDirty(500));
+        verify(cartItemRepository).updateCounts(Map.of(7L, 6));
+        verify(cartRepository).touchAll(eq(List.of(3L)), any());
+
+        // yazılıb - növbəti flush-da heç nə yoxdur
+        assertEquals(0, cartStore.flushDirty(500));
+        verify(cartItemRepository, never()).save(any());
+    }
+
+    @Test
+    void add_newProduct_shouldInsertRightAway() {
+        CartState cart = cartStore.get(user);
+        when(cartItemRepository.save(any(CartItem.class))).thenAnswer(i -> {
+            CartItem item = i.getArgument(0);
+            item.setId(8L);
+            return item;
+        });
+
+        CartLineRow line = cartStore.add(cart, 6L, 2, () -> { });
+
+        assertEquals(new CartLineRow(8L, 6L, 2), line);
+        assertEquals(2, cart.countOf(6L));
+    }
+
+    @Test
+    void add_newProduct_shouldRollBackReservationWhenInsertFails() {
+        CartState cart = cartStore.get(user);
+        Runnable reserve = mock(Runnable.class);
+        when(cartItemRepository.save(any(CartItem.class))).thenThrow(new IllegalStateException("insert failed"));
+
+        assertThrows(IllegalStateException.class, () -> cartStore.add(cart, 6L, 2, reserve));
+
+        // rezerv və insert eyni transaction-da: ikisi birlikdə geri qaytarılır
+        verify(reserve).run();
+        verify(transactionManager).rollback(any());
+        assertEquals(0, cart.countOf(6L));
+    }
+
+    @Test
+    void add_existingLine_shouldNotChangeCountWhenReservationFails() {
+        CartState cart = cartStore.get(user);
+
+        assertThrows(IllegalArgumentException.class, () -> cartStore.add(cart, 5L, 2, () -> {
+            throw new IllegalArgumentException("Only 0 available in stock.");
+        }));
+
+        assertEquals(1, cart.countOf(5L));
+        assertEquals(0, cartStore.flushDirty(500));
+    }
+
+    @Test
+    void remove_shouldDeleteOnFlush() {
+        CartState cart = cartStore.get(user);
+
+        assertTrue(cartStore.remove(cart, 7L).isPresent());
+        assertTrue(cartStore.remove(cart, 7L).isEmpty());
+        assertTrue(cart.isPendingDelete(7L));
+        assertTrue(cart.lines().isEmpty());
+
+        cartStore.flushDirty(500);
+
+        verify(cartItemRepository).deleteAllByIdIn(List.of(7L));
+        assertFalse(cart.isPendingDelete(7L));
+    }
+
+    @Test
+    void apply_shouldWriteAllLinesInOneTransactionAndUpdateMemory() {
+        CartState cart = cartStore.get(user);
+        when(cartItemRepository.insertLines(3L, Map.of(6L, 4))).thenReturn(Map.of(6L, 9L));
+
+        Map<Long, IntUnaryOperator> changes = Map.of(5L, current -> current + 2, 6L, current -> 4);
+        cartStore.apply(cart, changes, deltas -> assertEquals(Map.of(5L, 2, 6L, 4), deltas));
+
+        verify(cartItemRepository).updateCounts(Map.of(7L, 3));
+        verify(cartItemRepository).insertLines(3L, Map.of(6L, 4));
+        verify(cartItemRepository, never()).deleteAllByIdIn(any());
+        assertEquals(List.of(new CartLineRow(7L, 5L, 3), new CartLineRow(9L, 6L, 4)), cart.lines());
+
+        // birbaşa yazılıb - write-behind üçün heç nə qalmır
+        cartStore.flushDirty(500);
+        verify(cartItemRepository, times(1)).updateCounts(any());
+    }
+
+    @Test
+    void apply_shouldLeaveCartUntouchedWhenTransactionFails() {
+        CartState cart = cartStore.get(user);
+
+        assertThrows(IllegalArgumentException.class, () -> cartStore.apply(cart,
+                Map.of(5L, current -> 0),
+                deltas -> {
+                    throw new IllegalArgumentException("Not enough stock");
+                }));
+
+        assertEquals(List.of(new CartLineRow(7L, 5L, 1)), cart.lines());
+        verify(cartItemRepository, never()).deleteAllByIdIn(any());
+    }
+
+    @Test
+    void beginCheckout_shouldWritePendingChangesAndCloseTheCart() {
+        CartState cart = cartStore.get(user);
+        cartStore.add(cart, 5L, 2, () -> { });
+
+        cartStore.beginCheckout(user);
+
+        verify(cartItemRepository).updateCounts(Map.of(7L, 3));
+        // checkout-dan sonra köhnə state-ə yazmaq olmaz (409), növbəti müraciət DB-dən yükləyir
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> cartStore.add(cart, 5L, 1, () -> { }));
+        assertTrue(ex.getMessage().contains("in use"));
+        assertNotSame(cart, cartStore.get(user));
+        verify(cartItemRepository, times(2)).findLineRows(3L);
+    }
+}
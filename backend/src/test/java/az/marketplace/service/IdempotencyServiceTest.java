@@ -0,0 +1,101 @@
+package az.marketplace.service;
+
+import az.marketplace.entity.IdempotencyKey;
+import az.marketplace.exception.IdempotencyConflictException;
+import az.marketplace.exception.IdempotencyKeyReuseException;
+import az.marketplace.repository.IdempotencyKeyRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyKeyRepository repository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private IdempotencyService idempotencyService;
+
+    private final IdempotencyService.StoredResponse ok =
+            new IdempotencyService.StoredResponse(200, "application/json", "[{\"orderId\":1}]");
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        idempotencyService = new IdempotencyService(repository, transactionManager, new SimpleMeterRegistry(),
+                Duration.ofHours(24), Duration.ofSeconds(60), Duration.ofMillis(300), 100);
+        when(repository.claim(anyString(), any(), any(), any())).thenReturn(1);
+    }
+
+    @Test
+    void acquire_shouldReplayCompletedResponseWithoutClaimingAgain() {
+        assertTrue(idempotencyService.acquire("k1", "body").isEmpty());
+        idempotencyService.complete("k1", "body", ok);
+
+        Optional<IdempotencyService.StoredResponse> replay = idempotencyService.acquire("k1", "body");
+
+        assertEquals(Optional.of(ok), replay);
+        verify(repository, times(1)).claim(eq("k1"), any(), any(), any());
+    }
+
+    @Test
+    void acquire_shouldMakeConcurrentDuplicateWaitForFirstRequest() throws Exception {
+        assertTrue(idempotencyService.acquire("k2", "body").isEmpty());
+
+        CompletableFuture<Optional<IdempotencyService.StoredResponse>> duplicate =
+                CompletableFuture.supplyAsync(() -> idempotencyService.acquire("k2", "body"));
+        Thread.sleep(50);
+        assertFalse(duplicate.isDone());
+
+        idempotencyService.complete("k2", "body", ok);
+
+        assertEquals(Optional.of(ok), duplicate.get(1, TimeUnit.SECONDS));
+        verify(repository, times(1)).claim(eq("k2"), any(), any(), any());
+    }
+
+    @Test
+    void acquire_shouldFailWithConflictWhenFirstRequestOutlivesWaitTimeout() {
+        assertTrue(idempotencyService.acquire("k3", "body").isEmpty());
+
+        assertThrows(IdempotencyConflictException.class, () -> idempotencyService.acquire("k3", "body"));
+    }
+
+    @Test
+    void acquire_shouldRejectCompletedKeyReusedWithAnotherBody() {
+        assertTrue(idempotencyService.acquire("k4", "body").isEmpty());
+        idempotencyService.complete("k4", "body", ok);
+
+        assertThrows(IdempotencyKeyReuseException.class, () -> idempotencyService.acquire("k4", "other"));
+    }
+
+    @Test
+    void acquire_shouldRejectRunningKeyReusedWithAnotherBodyWithoutWaiting() {
+        assertTrue(idempotencyService.acquire("k5", "body").isEmpty());
+
+        assertThrows(IdempotencyKeyReuseException.class, () -> idempotencyService.acquire("k5", "other"));
+    }
+
+    @Test
+    void acquire_shouldRejectKeyClaimedOnAnotherInstanceWithAnotherBody() {
+        // açar başqa instance-da tutulub və cavabı yazılıb
+        when(repository.claim(eq("k6"), any(), any(), any())).thenReturn(0);
+        when(repository.findById("k6")).thenReturn(Optional.of(IdempotencyKey.builder()
+                .keyHash("k6").requestHash("body").statusCode(200).contentType("application/json").responseBody("[]")
+                .build()));
+
+        assertThrows(IdempotencyKeyReuseException.class, () -> idempotencyService.acquire("k6", "other"));
+        assertEquals(Optional.of(new IdempotencyService.StoredResponse(200, "application/json", "[]")),
+                idempotencyService.acquire("k6", "body"));
+    }
+}
@@ -0,0 +1,276 @@
+package az.marketplace.service;
+
+import az.marketplace.entity.Product;
+import az.marketplace.entity.ProductStockBucket;
+import az.marketplace.entity.StockHold;
+import az.marketplace.repository.ProductRepository;
+import az.marketplace.repository.ProductStockBucketRepository;
+import az.marketplace.repository.StockHoldRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class InventoryServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+    @Mock
+    private StockHoldRepository stockHoldRepository;
+    @Mock
+    private ProductStockBucketRepository bucketRepository;
+
+    private InventoryService inventoryService;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        inventoryService = new InventoryService(productRepository, stockHoldRepository, bucketRepository,
+                Duration.ofMinutes(15));
+    }
+
+    @Test
+    void split_shouldSpreadRemainderOverFirstBuckets() {
+        assertArrayEquals(new int[]{4, 3, 3}, InventoryService.split(10, 3));
+        assertArrayEquals(new int[]{1, 1, 0, 0}, InventoryService.split(2, 4));
+        assertArrayEquals(new int[]{0, 0}, InventoryService.split(0, 2));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reshard_shouldKeepStockAndPutExcessReservationOnLastBucket() {
+        when(productRepository.lockById(5L)).thenReturn(Optional.of(
+                Product.builder().id(5L).stockCount(3).reservedCount(5).stockShards(0).build()));
+
+        inventoryService.reshard(5L, 3);
+
+        verify(productRepository).setStockState(eq(5L), eq(0), eq(0), eq(3), any());
+        ArgumentCaptor<List<ProductStockBucket>> saved = ArgumentCaptor.forClass(List.class);
+        verify(bucketRepository).saveAll(saved.capture());
+        List<ProductStockBucket> buckets = saved.getValue();
+        assertEquals(List.of(1, 1, 1), buckets.stream().map(ProductStockBucket::getStockCount).toList());
+        // stokdan artıq rezerv (5 > 3) sonuncu bucket-də
+        assertEquals(List.of(1, 1, 3), buckets.stream().map(ProductStockBucket::getReservedCount).toList());
+    }
+
+    @Test
+    void reshard_toPlain_shouldFoldBucketsBack() {
+        when(productRepository.lockById(5L)).thenReturn(Optional.of(
+                Product.builder().id(5L).stockCount(0).reservedCount(0).stockShards(2).build()));
+        List<ProductStockBucket> buckets = List.of(bucket(0, 4, 1), bucket(1, 3, 2));
+        when(bucketRepository.lockAll(5L)).thenReturn(buckets);
+
+        inventoryService.reshard(5L, 1);
+
+        verify(bucketRepository).deleteAllInBatch(buckets);
+        verify(productRepository).setStockState(eq(5L), eq(7), eq(3), eq(0), any());
+        verify(bucketRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void tryReserve_shouldReserveWithGuardedUpdateThenRecordHold() {
+        when(productRepository.findStockShards(5L)).thenReturn(Optional.of(0));
+        when(productRepository.reserveStock(5L, 2)).thenReturn(1);
+        when(stockHoldRepository.lockByCartAndProduct(1L, 5L)).thenReturn(Optional.empty());
+
+        assertTrue(inventoryService.tryReserve(1L, 5L, 2));
+
+        InOrder order = inOrder(productRepository, stockHoldRepository);
+        order.verify(productRepository).reserveStock(5L, 2);
+        order.verify(stockHoldRepository).lockByCartAndProduct(1L, 5L);
+        ArgumentCaptor<StockHold> saved = ArgumentCaptor.forClass(StockHold.class);
+        order.verify(stockHoldRepository).save(saved.capture());
+        order.verify(stockHoldRepository).extendForCart(eq(1L), any());
+        assertEquals(2, saved.getValue().getQuantity());
+    }
+
+    @Test
+    void tryReserve_shouldNotTouchHoldsWhenStockIsShort() {
+        when(productRepository.findStockShards(5L)).thenReturn(Optional.of(0));
+        when(productRepository.reserveStock(5L, 2)).thenReturn(0);
+
+        assertFalse(inventoryService.tryReserve(1L, 5L, 2));
+
+        verifyNoInteractions(stockHoldRepository);
+    }
+
+    @Test
+    void release_shouldFreeHeldQuantityAndDeleteHold() {
+        StockHold hold = StockHold.builder().id(9L).cartId(1L).productId(5L).quantity(3).build();
+        when(productRepository.findStockShards(5L)).thenReturn(Optional.of(0));
+        when(productRepository.releaseReserved(5L, 3)).thenReturn(1);
+        when(stockHoldRepository.lockByCartAndProduct(1L, 5L)).thenReturn(Optional.of(hold));
+
+        inventoryService.release(1L, 5L);
+
+        InOrder order = inOrder(productRepository, stockHoldRepository);
+        order.verify(stockHoldRepository).lockByCartAndProduct(1L, 5L);
+        order.verify(productRepository).releaseReserved(5L, 3);
+        order.verify(stockHoldRepository).delete(hold);
+    }
+
+    @Test
+    void release_shouldRedoInBucketsWhenProductWasReshardedMeanwhile() {
+        StockHold hold = StockHold.builder().id(9L).cartId(1L).productId(5L).quantity(3).build();
+        when(stockHoldRepository.lockByCartAndProduct(1L, 5L)).thenReturn(Optional.of(hold));
+        // adi rejim oxundu, UPDATE-dən əvvəl reshard bucket-lərə keçirdi → guard 0 qaytarır
+        when(productRepository.findStockShards(5L)).thenReturn(Optional.of(0), Optional.of(4));
+        when(productRepository.releaseReserved(5L, 3)).thenReturn(0);
+        when(bucketRepository.release(eq(5L), anyInt(), eq(3))).thenReturn(1);
+
+        inventoryService.release(1L, 5L);
+
+        verify(bucketRepository).release(eq(5L), anyInt(), eq(3));
+        verify(stockHoldRepository).delete(hold);
+    }
+
+    @Test
+    void restock_shouldRedoOnPlainRowWhenBucketsWereFoldedMeanwhile() {
+        when(productRepository.findStockShards(5L)).thenReturn(Optional.of(4), Optional.of(0));
+        when(bucketRepository.add(eq(5L), anyInt(), eq(2))).thenReturn(0);
+        when(productRepository.incrementStock(eq(5L), eq(2), any())).thenReturn(1);
+
+        inventoryService.restock(5L, 2);
+
+        verify(productRepository).incrementStock(eq(5L), eq(2), any());
+    }
+
+    @Test
+    void release_withoutHold_shouldDoNothing() {
+        when(stockHoldRepository.lockByCartAndProduct(1L, 5L)).thenReturn(Optional.empty());
+
+        inventoryService.release(1L, 5L);
+
+        verify(productRepository, never()).releaseReserved(anyLong(), anyInt());
+        verify(stockHoldRepository, never()).delete(any());
+    }
+
+    @Test
+    void releaseExpired_shouldLeaveHoldsOfBusyPlainProductForNextRun() {
+        StockHold busy1 = StockHold.builder().id(1L).cartId(1L).productId(7L).quantity(1).build();
+        StockHold free = StockHold.builder().id(2L).cartId(2L).productId(5L).quantity(2).build();
+        StockHold busy2 = StockHold.builder().id(3L).cartId(3L).productId(7L).quantity(4).build();
+        when(stockHoldRepository.lockExpired(any(), any())).thenReturn(List.of(busy1, free, busy2));
+        // 7-nin sətri başqa transaction-dadır → SKIP LOCKED onu qaytarmır
+        when(productRepository.lockPlainStock(Set.of(5L, 7L))).thenReturn(List.of(5L));
+        when(productRepository.findStockShards(7L)).thenReturn(Optional.of(0));
+
+        assertEquals(1, inventoryService.releaseExpired(500));
+
+        verify(productRepository).releaseReserved(5L, 2);
+        verify(productRepository, never()).releaseReserved(eq(7L), anyInt());
+        verify(stockHoldRepository).deleteAllInBatch(List.of(free));
+        verifyNoInteractions(bucketRepository);
+    }
+
+    @Test
+    void releaseExpired_shardedProduct_shouldReleaseOnlyFromUnlockedBuckets() {
+        StockHold first = StockHold.builder().id(1L).cartId(1L).productId(5L).quantity(4).build();
+        StockHold second = StockHold.builder().id(2L).cartId(2L).productId(5L).quantity(2).build();
+        when(stockHoldRepository.lockExpired(any(), any())).thenReturn(List.of(first, second));
+        when(productRepository.lockPlainStock(Set.of(5L))).thenReturn(List.of());
+        when(productRepository.findStockShards(5L)).thenReturn(Optional.of(3));
+        // 3 bucket-dən biri satışda kilidlidir → yalnız 5 vahid azad olunur
+        ProductStockBucket a = bucket(0, 5, 3);
+        ProductStockBucket b = bucket(2, 5, 2);
+        when(bucketRepository.lockUnlocked(5L)).thenReturn(List.of(a, b));
+
+        assertEquals(1, inventoryService.releaseExpired(500));
+
+        assertEquals(0, a.getReservedCount());
+        assertEquals(0, b.getReservedCount());
+        verify(stockHoldRepository).deleteAllInBatch(List.of(first));
+        assertEquals(1, second.getQuantity());
+        verify(productRepository, never()).releaseReserved(anyLong(), anyInt());
+    }
+
+    @Test
+    void releaseExpired_shouldStopWhenNothingExpired() {
+        when(stockHoldRepository.lockExpired(any(), any())).thenReturn(List.of());
+
+        assertEquals(0, inventoryService.releaseExpired(500));
+
+        verify(productRepository, never()).lockPlainStock(any());
+    }
+
+    @Test
+    void sell_shouldSellProductsInIdOrder() {
+        when(productRepository.findStockShards(anyLong())).thenReturn(Optional.of(0));
+        when(productRepository.sellStock(anyLong(), anyInt(), anyInt(), any())).thenReturn(1);
+
+        assertEquals(Optional.empty(), inventoryService.sell(1L, Map.of(7L, 1, 5L, 2)));
+
+        InOrder order = inOrder(productRepository, stockHoldRepository);
+        order.verify(stockHoldRepository).lockByCartAndProduct(1L, 5L);
+        order.verify(productRepository).sellStock(eq(5L), eq(2), eq(0), any());
+        order.verify(stockHoldRepository).lockByCartAndProduct(1L, 7L);
+        order.verify(productRepository).sellStock(eq(7L), eq(1), eq(0), any());
+    }
+
+    @Test
+    void sell_slowPath_shouldFailWhenStockDoesNotCoverQuantity() {
+        // A: stok 2, rezerv 0; B: stok 0, rezerv 3 (bu səbətin rezervi) → cəmi 2 vahid var
+        ProductStockBucket a = bucket(0, 2, 0);
+        ProductStockBucket b = bucket(1, 0, 3);
+        givenShardedSlowPath(List.of(a, b), 3);
+
+        assertEquals(Optional.of(5L), inventoryService.sell(1L, Map.of(5L, 3)));
+
+        assertEquals(2, a.getStockCount());
+        assertEquals(0, a.getReservedCount());
+        assertEquals(0, b.getStockCount());
+        assertEquals(3, b.getReservedCount());
+        verify(stockHoldRepository, never()).delete(any());
+    }
+
+    @Test
+    void sell_slowPath_shouldNotConsumeAnotherCartsReservation() {
+        // A: başqa səbətin stokla örtülü rezervi (3); B: bu səbətin örtülməyən rezervi (2)
+        ProductStockBucket a = bucket(0, 3, 3);
+        ProductStockBucket b = bucket(1, 0, 2);
+        givenShardedSlowPath(List.of(a, b), 2);
+
+        assertEquals(Optional.of(5L), inventoryService.sell(1L, Map.of(5L, 2)));
+
+        assertEquals(3, a.getStockCount());
+        assertEquals(3, a.getReservedCount());
+    }
+
+    @Test
+    void sell_slowPath_shouldSplitQuantityAndReleaseHold() {
+        ProductStockBucket a = bucket(0, 2, 1);
+        ProductStockBucket b = bucket(1, 2, 2);
+        StockHold hold = givenShardedSlowPath(List.of(a, b), 2);
+
+        assertEquals(Optional.empty(), inventoryService.sell(1L, Map.of(5L, 3)));
+
+        // stok 4 → 1, rezerv 3 → 1 (yalnız bu səbətin 2 vahidi azad olunur)
+        assertEquals(1, a.getStockCount() + b.getStockCount());
+        assertEquals(1, a.getReservedCount() + b.getReservedCount());
+        assertTrue(a.getStockCount() >= a.getReservedCount());
+        assertTrue(b.getStockCount() >= b.getReservedCount());
+        verify(stockHoldRepository).delete(hold);
+    }
+
+    private StockHold givenShardedSlowPath(List<ProductStockBucket> buckets, int held) {
+        StockHold hold = StockHold.builder().id(9L).cartId(1L).productId(5L).quantity(held).build();
+        when(productRepository.findStockShards(5L)).thenReturn(Optional.of(buckets.size()));
+        when(stockHoldRepository.lockByCartAndProduct(1L, 5L)).thenReturn(Optional.of(hold));
+        // sürətli yol: heç bir bucket tək başına çatmır
+        when(bucketRepository.sell(eq(5L), anyInt(), anyInt(), anyInt())).thenReturn(0);
+        when(bucketRepository.lockAll(5L)).thenReturn(buckets);
+        return hold;
+    }
+
+    private static ProductStockBucket bucket(int no, int stock, int reserved) {
+        return ProductStockBucket.builder().productId(5L).bucketNo(no).stockCount(stock).reservedCount(reserved).build();
+    }
+}
@@ -0,0 +1,250 @@
+package az.marketplace.service;
+
+import az.marketplace.entity.Category;
+import az.marketplace.entity.Merchant;
+import az.marketplace.entity.Product;
+import az.marketplace.entity.StockHold;
+import az.marketplace.entity.User;
+import az.marketplace.entity.enums.UserType;
+import az.marketplace.repository.CategoryRepository;
+import az.marketplace.repository.MerchantRepository;
+import az.marketplace.repository.ProductRepository;
+import az.marketplace.repository.StockHoldRepository;
+import az.marketplace.repository.UserRepository;
+import az.marketplace.util.Money;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrency benchmark for sharded stock on PostgreSQL (Testcontainers, needs Docker): the
+ * same flash-sale checkout load (one unit per transaction, with a little work after the
+ * decrement so the row lock is held like in a real checkout) against a plain product and a
+ * product split into {@value #SHARDS} buckets. Each product also starts with
+ * {@value #EXPIRED_HOLDS} expired cart holds, and the expiry sweeper runs next to the sales,
+ * so a sweeper run that blocked checkouts would show up in the latency figures.
+ * Only correctness is asserted (every unit sold exactly once, every expired hold released);
+ * throughput and latency are logged, since they depend on the machine.
+ * Opt-in: {@code ./gradlew test --tests '*InventoryShardingBenchmarkTest' -Dbenchmark.inventory=true}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+@EnabledIfSystemProperty(named = "benchmark.inventory", matches = "true")
+class InventoryShardingBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryShardingBenchmarkTest.class);
+
+    private static final int THREADS = 16;
+    private static final int SALES_PER_THREAD = 100;
+    private static final int SHARDS = 16;
+    private static final long WORK_IN_TX_MS = 2;
+    private static final int EXPIRED_HOLDS = 200;
+    private static final int SWEEP_BATCH = 20;
+    private static final long SWEEP_INTERVAL_MS = 5;
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    // test profilinin H2-si əvəzinə; sxemi yenə Hibernate qurur (create-drop)
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driverClassName", postgres::getDriverClassName);
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> THREADS + 4);
+    }
+
+    @Autowired
+    private InventoryService inventoryService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private StockHoldRepository stockHoldRepository;
+    @Autowired
+    private MerchantRepository merchantRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<Runnable> cleanup = new ArrayList<>();
+
+    private Merchant merchant;
+    private Category category;
+
+    @BeforeEach
+    void setup() {
+        User user = userRepository.save(User.builder()
+                .email("bench-merchant@example.com")
+                .password("encodedpass")
+                .name("Bench")
+                .surname("Seller")
+                .type(UserType.MERCHANT)
+                .build());
+        merchant = merchantRepository.save(Merchant.builder().companyName("Bench LLC").user(user).build());
+        category = categoryRepository.save(Category.builder().name("Flash sale").build());
+        cleanup.add(() -> categoryRepository.delete(category));
+        cleanup.add(() -> merchantRepository.delete(merchant));
+        cleanup.add(() -> userRepository.delete(user));
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanup.forEach(Runnable::run);
+    }
+
+    @Test
+    void shardedAndPlainStockShouldSellEveryUnitExactlyOnce() throws Exception {
+        int units = THREADS * SALES_PER_THREAD;
+
+        Long plain = newProduct(units);
+        Result plainRun = run(plain);
+
+        Long sharded = newProduct(units);
+        transactionTemplate.executeWithoutResult(s -> inventoryService.reshard(sharded, SHARDS));
+        Result shardedRun = run(sharded);
+
+        log.info("inventory benchmark on PostgreSQL: {} threads x {} sales, sweeper every {} ms",
+                THREADS, SALES_PER_THREAD, SWEEP_INTERVAL_MS);
+        log.info("  plain row:   {}", plainRun);
+        log.info("  {} buckets: {} (x{} throughput)", SHARDS, shardedRun,
+                String.format("%.1f", shardedRun.salesPerSecond() / plainRun.salesPerSecond()));
+
+        // heç bir vahid itmir və ya artıq satılmır; vaxtı keçmiş rezervlər stoka qayıdır
+        assertThat(inventoryService.available(plain)).isEqualTo(EXPIRED_HOLDS);
+        assertThat(inventoryService.available(sharded)).isEqualTo(EXPIRED_HOLDS);
+    }
+
+    // satış üçün units + vaxtı keçmiş rezervlər (hər biri 1 vahid)
+    private Long newProduct(int units) {
+        Product product = productRepository.save(Product.builder()
+                .name("Flash deal")
+                .details("benchmark")
+                .price(Money.of("9.99"))
+                .stockCount(units + EXPIRED_HOLDS)
+                .reservedCount(EXPIRED_HOLDS)
+                .merchant(merchant)
+                .category(category)
+                .build());
+        LocalDateTime expired = LocalDateTime.now().minusMinutes(1);
+        stockHoldRepository.saveAll(IntStream.range(0, EXPIRED_HOLDS)
+                .mapToObj(i -> StockHold.builder()
+                        .cartId(product.getId() * 100_000 + i)
+                        .productId(product.getId())
+                        .quantity(1)
+                        .expiresAt(expired)
+                        .build())
+                .toList());
+        cleanup.add(0, () -> productRepository.deleteById(product.getId()));
+        return product.getId();
+    }
+
+    // hər satış ayrıca transaction-dır (səbət rezervi yoxdur: cartId -1); sweeper paralel işləyir
+    private Result run(Long productId) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS + 1);
+        AtomicBoolean selling = new AtomicBoolean(true);
+        try {
+            Future<Integer> sweeper = pool.submit(() -> {
+                int released = 0;
+                while (selling.get()) {
+                    released += inventoryService.releaseExpired(SWEEP_BATCH);
+                    sleep(SWEEP_INTERVAL_MS);
+                }
+                return released;
+            });
+
+            List<Future<List<Long>>> results = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(pool.submit(() -> {
+                    List<Long> latencies = new ArrayList<>(SALES_PER_THREAD);
+                    for (int i = 0; i < SALES_PER_THREAD; i++) {
+                        long began = System.nanoTime();
+                        Boolean ok = transactionTemplate.execute(s -> {
+                            boolean result = inventoryService.sell(-1L, Map.of(productId, 1)).isEmpty();
+                            sleep(WORK_IN_TX_MS);
+                            return result;
+                        });
+                        if (Boolean.TRUE.equals(ok)) latencies.add(System.nanoTime() - began);
+                    }
+                    return latencies;
+                }));
+            }
+            List<Long> latencies = new ArrayList<>();
+            for (Future<List<Long>> result : results) latencies.addAll(result.get());
+            double seconds = (System.nanoTime() - start) / 1e9;
+            selling.set(false);
+            int released = sweeper.get();
+
+            // satışdan sonra qalan vaxtı keçmiş rezervlər
+            int more;
+            while ((more = inventoryService.releaseExpired(SWEEP_BATCH)) > 0) released += more;
+
+            assertThat(latencies).hasSize(THREADS * SALES_PER_THREAD);
+            assertThat(released).isEqualTo(EXPIRED_HOLDS);
+            return Result.of(latencies, seconds);
+        } finally {
+            selling.set(false);
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Result(double salesPerSecond, double p50Ms, double p99Ms, double maxMs) {
+
+        static Result of(List<Long> latenciesNanos, double seconds) {
+            List<Long> sorted = new ArrayList<>(latenciesNanos);
+            Collections.sort(sorted);
+            return new Result(sorted.size() / seconds, millis(sorted, 0.50), millis(sorted, 0.99),
+                    sorted.get(sorted.size() - 1) / 1e6);
+        }
+
+        private static double millis(List<Long> sorted, double quantile) {
+            return sorted.get((int) Math.min(sorted.size() - 1, Math.floor(quantile * sorted.size()))) / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.0f sales/s, p50 %.1f ms, p99 %.1f ms, max %.1f ms",
+                    salesPerSecond, p50Ms, p99Ms, maxMs);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package az.marketplace.service;
+
+import az.marketplace.entity.Order;
+import az.marketplace.repository.OrderRepository;
+import az.marketplace.util.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OrderMetricsRecorderTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OrderMetricsRecorder recorder;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        recorder = new OrderMetricsRecorder(orderRepository, meterRegistry);
+        when(orderRepository.findById(7L)).thenReturn(Optional.of(
+                Order.builder().id(7L).totalAmount(Money.of("25.50")).build()));
+    }
+
+    @Test
+    void handle_shouldCountRetriedEventOnce() {
+        when(orderRepository.markMetricsRecorded(eq(7L), any())).thenReturn(1, 0);
+
+        recorder.handle(7L);
+        recorder.handle(7L);
+
+        assertEquals(1.0, meterRegistry.get("marketplace.orders.created").counter().count());
+        assertEquals(1L, meterRegistry.get("marketplace.orders.amount").summary().count());
+        assertEquals(25.5, meterRegistry.get("marketplace.orders.amount").summary().totalAmount());
+    }
+}
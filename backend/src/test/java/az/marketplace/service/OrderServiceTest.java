@@ -3,14 +3,23 @@ package az.marketplace.service;
 import az.marketplace.entity.*;
 import az.marketplace.entity.enums.OrderStatus;
 import az.marketplace.repository.*;
+import az.marketplace.util.Money;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import az.marketplace.exception.AccessDeniedException;
 import az.marketplace.exception.BalanceException;
 import az.marketplace.dto.order.UpdateOrderStatusRequest;
+import az.marketplace.dto.order.CustomerOrderPageRequest;
+import az.marketplace.dto.order.MerchantOrderPageRequest;
+import az.marketplace.dto.order.OrderBulkStatusRequest;
+import az.marketplace.dto.order.OrderHeaderRow;
+import az.marketplace.dto.order.OrderLineRow;
+import org.springframework.data.domain.PageRequest;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -25,11 +34,15 @@ class OrderServiceTest {
     @Mock
     private OrderRepository orderRepository;
     @Mock
-    private ProductRepository productRepository;
-    @Mock
-    private NotificationService notificationService;
+    private OutboxService outboxService;
     @Mock
     private BalanceService balanceService;
+    @Mock
+    private ProductCatalogSync productCatalogSync;
+    @Mock
+    private InventoryService inventoryService;
+    @Mock
+    private CartStore cartStore;
 
     @InjectMocks
     private OrderService orderService;
@@ -45,10 +58,12 @@ class OrderServiceTest {
         MockitoAnnotations.openMocks(this);
         user = User.builder().id(1L).email("murad@example.com").build();
         customer = Customer.builder().id(1L).user(user).build();
-        product = Product.builder().id(5L).price(new BigDecimal("100.00")).name("Phone").build();
+        product = Product.builder().id(5L).price(Money.of("100.00")).name("Phone").build();
         cart = Cart.builder().id(3L).user(user).build();
         merchant = Merchant.builder().id(8L).user(User.builder().id(9L).build()).build();
         product.setMerchant(merchant);
+        // rezerv satışa çevrilir
+        when(inventoryService.sell(anyLong(), anyMap())).thenReturn(Optional.empty());
     }
 
     @Test
@@ -57,15 +72,45 @@ class OrderServiceTest {
         when(cartRepository.findByUser(user)).thenReturn(Optional.of(cart));
         when(cartItemRepository.findByCart(cart)).thenReturn(List.of(item));
         when(orderRepository.save(any(Order.class))).thenAnswer(i -> i.getArguments()[0]);
-        when(balanceService.debitForOrder(customer, new BigDecimal("200.00"))).thenReturn(customer);
 
         var orders = orderService.createOrdersFromCart(customer);
 
         assertEquals(1, orders.size());
-        assertEquals(new BigDecimal("200.00"), orders.get(0).getTotalAmount());
+        assertEquals(Money.of("200.00"), orders.get(0).getTotalAmount());
+        assertEquals(2, orders.get(0).getItemCount());
         assertEquals(OrderStatus.PAID_FROM_BALANCE, orders.get(0).getStatus());
         verify(cartItemRepository, times(1)).deleteAll(any());
-        verify(balanceService, times(1)).debitForOrder(customer, new BigDecimal("200.00"));
+        verify(cartStore).beginCheckout(user);
+        verify(balanceService, times(1)).requireAvailable(customer, Money.of("200.00"));
+        verify(balanceService, times(1)).authorize(eq(customer), argThat(list -> list.size() == 1));
+        verify(outboxService, times(1)).publish(eq(OutboxService.ORDER_CREATED), any());
+    }
+
+    @Test
+    void createOrdersFromCart_shouldCreateOneOrderPerMerchant() {
+        Merchant other = Merchant.builder().id(20L).user(User.builder().id(21L).build()).build();
+        Product phoneCase = Product.builder().id(6L).price(Money.of("10.00")).name("Case").merchant(merchant).build();
+        Product cable = Product.builder().id(7L).price(Money.of("5.00")).name("Cable").merchant(other).build();
+        List<CartItem> items = List.of(
+                CartItem.builder().id(1L).cart(cart).product(product).count(1).build(),
+                CartItem.builder().id(2L).cart(cart).product(phoneCase).count(2).build(),
+                CartItem.builder().id(3L).cart(cart).product(cable).count(3).build());
+        when(cartRepository.findByUser(user)).thenReturn(Optional.of(cart));
+        when(cartItemRepository.findByCart(cart)).thenReturn(items);
+        when(orderRepository.save(any(Order.class))).thenAnswer(i -> i.getArguments()[0]);
+
+        var orders = orderService.createOrdersFromCart(customer);
+
+        assertEquals(2, orders.size());
+        assertEquals(8L, orders.get(0).getMerchantId());
+        assertEquals(2, orders.get(0).getLines().size());
+        assertEquals(Money.of("120.00"), orders.get(0).getTotalAmount());
+        assertEquals(20L, orders.get(1).getMerchantId());
+        assertEquals(Money.of("15.00"), orders.get(1).getTotalAmount());
+        verify(orderRepository, times(2)).save(any(Order.class));
+        verify(outboxService, times(2)).publish(eq(OutboxService.ORDER_CREATED), any());
+        verify(balanceService).requireAvailable(customer, Money.of("135.00"));
+        verify(balanceService).authorize(eq(customer), argThat(list -> list.size() == 2));
     }
 
     @Test
@@ -73,11 +118,28 @@ class OrderServiceTest {
         CartItem item = CartItem.builder().id(7L).cart(cart).product(product).count(2).build();
         when(cartRepository.findByUser(user)).thenReturn(Optional.of(cart));
         when(cartItemRepository.findByCart(cart)).thenReturn(List.of(item));
-        when(balanceService.debitForOrder(customer, new BigDecimal("200.00")))
-                .thenThrow(new BalanceException("INSUFFICIENT_BALANCE", "Your balance is not enough to cover this order"));
+        doThrow(new BalanceException("INSUFFICIENT_BALANCE", "Your balance is not enough to cover this order"))
+                .when(balanceService).requireAvailable(customer, Money.of("200.00"));
 
         assertThrows(BalanceException.class, () -> orderService.createOrdersFromCart(customer));
         verify(orderRepository, never()).save(any());
+        verify(balanceService, never()).authorize(any(), any());
+    }
+
+    @Test
+    void createOrdersFromCart_shouldFailWhenStockCannotBeSold() {
+        CartItem item = CartItem.builder().id(7L).cart(cart).product(product).count(2).build();
+        when(cartRepository.findByUser(user)).thenReturn(Optional.of(cart));
+        when(cartItemRepository.findByCart(cart)).thenReturn(List.of(item));
+        when(inventoryService.sell(3L, Map.of(5L, 2))).thenReturn(Optional.of(5L));
+        when(inventoryService.available(5L)).thenReturn(1);
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> orderService.createOrdersFromCart(customer));
+        assertEquals("Product 'Phone' only 1 left", ex.getMessage());
+        verify(balanceService, never()).requireAvailable(any(), any());
+        verify(balanceService, never()).authorize(any(), any());
+        verify(orderRepository, never()).save(any());
     }
 
     @Test
@@ -85,18 +147,20 @@ class OrderServiceTest {
         Order order = Order.builder()
                 .id(11L)
                 .customer(customer)
-                .product(product)
-                .count(1)
+                .merchant(merchant)
                 .status(OrderStatus.PAID_FROM_BALANCE)
-                .totalAmount(new BigDecimal("100.00"))
+                .totalAmount(Money.of("100.00"))
                 .build();
+        order.addLine(OrderLine.builder().product(product).count(1)
+                .unitPrice(Money.of("100.00")).lineTotal(Money.of("100.00")).build());
 
         when(orderRepository.findById(11L)).thenReturn(Optional.of(order));
         when(orderRepository.save(any(Order.class))).thenAnswer(i -> i.getArguments()[0]);
 
         orderService.cancelOrderByCustomer(customer, 11L);
 
-        verify(balanceService, times(1)).credit(customer, new BigDecimal("100.00"));
+        verify(balanceService, times(1)).release(List.of(order));
+        verify(inventoryService, times(1)).restock(5L, 1);
     }
 
     @Test
@@ -104,11 +168,12 @@ class OrderServiceTest {
         Order order = Order.builder()
                 .id(12L)
                 .customer(customer)
-                .product(product)
-                .count(1)
+                .merchant(merchant)
                 .status(OrderStatus.PAID_FROM_BALANCE)
-                .totalAmount(new BigDecimal("150.00"))
+                .totalAmount(Money.of("150.00"))
                 .build();
+        order.addLine(OrderLine.builder().product(product).count(1)
+                .unitPrice(Money.of("150.00")).lineTotal(Money.of("150.00")).build());
 
         when(orderRepository.findById(12L)).thenReturn(Optional.of(order));
         when(orderRepository.save(any(Order.class))).thenAnswer(i -> i.getArguments()[0]);
@@ -119,6 +184,104 @@ class OrderServiceTest {
 
         orderService.updateOrderStatus(merchant, 12L, req);
 
-        verify(balanceService, times(1)).credit(customer, new BigDecimal("150.00"));
+        verify(balanceService, times(1)).release(List.of(order));
+    }
+
+    @Test
+    void getMerchantOrderPage_shouldReturnCursorAndLinesFromProjections() {
+        LocalDateTime now = LocalDateTime.now();
+        when(orderRepository.findMerchantInbox(8L, OrderStatus.PAID_FROM_BALANCE, null, null, 50L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(
+                        new OrderHeaderRow(40L, 8L, "Shop", Money.of("200.00"), OrderStatus.PAID_FROM_BALANCE, now),
+                        new OrderHeaderRow(30L, 8L, "Shop", Money.of("100.00"), OrderStatus.PAID_FROM_BALANCE, now),
+                        new OrderHeaderRow(20L, 8L, "Shop", Money.of("50.00"), OrderStatus.PAID_FROM_BALANCE, now)));
+        when(orderRepository.findLineRows(List.of(40L, 30L))).thenReturn(List.of(
+                new OrderLineRow(40L, 5L, "Phone", 2, Money.of("100.00"), Money.of("200.00")),
+                new OrderLineRow(30L, 5L, "Phone", 1, Money.of("100.00"), Money.of("100.00"))));
+
+        MerchantOrderPageRequest req = MerchantOrderPageRequest.builder()
+                .status(OrderStatus.PAID_FROM_BALANCE).cursor("50").limit(2).build();
+        var page = orderService.getMerchantOrderPage(merchant, req);
+
+        assertTrue(page.isHasMore());
+        assertEquals("30", page.getNextCursor());
+        assertEquals(2, page.getItems().size());
+        assertEquals(2, page.getItems().get(0).getItemCount());
+        assertEquals("Phone", page.getItems().get(1).getLines().get(0).getProductName());
+        verify(orderRepository, never()).findById(any());
+    }
+
+    @Test
+    void getMerchantOrderPage_shouldRejectInvalidCursor() {
+        MerchantOrderPageRequest req = MerchantOrderPageRequest.builder().cursor("abc").build();
+        assertThrows(IllegalArgumentException.class, () -> orderService.getMerchantOrderPage(merchant, req));
+    }
+
+    @Test
+    void getCustomerOrderPage_shouldSeekFromDecodedCursor() {
+        LocalDateTime t1 = LocalDateTime.of(2024, 5, 2, 10, 0);
+        LocalDateTime t2 = LocalDateTime.of(2024, 5, 1, 9, 30);
+        when(orderRepository.findCustomerHistory(eq(1L), isNull(), isNull(), isNull(), eq(PageRequest.of(0, 2))))
+                .thenReturn(List.of(
+                        new OrderHeaderRow(41L, 8L, "Shop", Money.of("100.00"), OrderStatus.PAID_FROM_BALANCE, t1),
+                        new OrderHeaderRow(39L, 8L, "Shop", Money.of("50.00"), OrderStatus.PAID_FROM_BALANCE, t2)));
+        when(orderRepository.findLineRows(List.of(41L))).thenReturn(List.of(
+                new OrderLineRow(41L, 5L, "Phone", 1, Money.of("100.00"), Money.of("100.00"))));
+
+        var first = orderService.getCustomerOrderPage(customer, CustomerOrderPageRequest.builder().limit(1).build());
+
+        assertTrue(first.isHasMore());
+        assertEquals(41L, first.getItems().get(0).getOrderId());
+
+        orderService.getCustomerOrderPage(customer,
+                CustomerOrderPageRequest.builder().limit(1).cursor(first.getNextCursor()).build());
+        verify(orderRepository).findCustomerHistory(1L, null, t1, 41L, PageRequest.of(0, 2));
+    }
+
+    @Test
+    void getCustomerOrderPage_shouldRejectInvalidCursor() {
+        CustomerOrderPageRequest req = CustomerOrderPageRequest.builder().cursor("not-a-cursor").build();
+        assertThrows(IllegalArgumentException.class, () -> orderService.getCustomerOrderPage(customer, req));
+    }
+
+    @Test
+    void updateOrderStatuses_shouldReleaseHoldsAndRestockPerProduct() {
+        Product cable = Product.builder().id(3L).price(Money.of("5.00")).name("Cable").merchant(merchant).build();
+        Order first = Order.builder().id(21L).customer(customer).merchant(merchant)
+                .status(OrderStatus.PAID_FROM_BALANCE).totalAmount(Money.of("105.00")).build();
+        first.addLine(OrderLine.builder().product(product).count(1)
+                .unitPrice(Money.of("100.00")).lineTotal(Money.of("100.00")).build());
+        first.addLine(OrderLine.builder().product(cable).count(1)
+                .unitPrice(Money.of("5.00")).lineTotal(Money.of("5.00")).build());
+        Order second = Order.builder().id(22L).customer(customer).merchant(merchant)
+                .status(OrderStatus.ACCEPTED).totalAmount(Money.of("200.00")).build();
+        second.addLine(OrderLine.builder().product(product).count(2)
+                .unitPrice(Money.of("100.00")).lineTotal(Money.of("200.00")).build());
+        when(orderRepository.lockAllById(any())).thenReturn(List.of(first, second));
+
+        OrderBulkStatusRequest req = OrderBulkStatusRequest.builder()
+                .orderIds(List.of(22L, 21L)).status(OrderStatus.REJECT_BY_MERCHANT).build();
+        var response = orderService.updateOrderStatuses(merchant, req);
+
+        assertEquals(2, response.getUpdated());
+        assertEquals(1, response.getRefundedCustomers());
+        verify(balanceService).release(List.of(first, second));
+        InOrder inOrder = inOrder(inventoryService);
+        inOrder.verify(inventoryService).restock(3L, 1);
+        inOrder.verify(inventoryService).restock(5L, 3);
+    }
+
+    @Test
+    void updateOrderStatuses_shouldRejectForeignOrders() {
+        Merchant other = Merchant.builder().id(20L).build();
+        Order foreign = Order.builder().id(31L).customer(customer).merchant(other)
+                .status(OrderStatus.PAID_FROM_BALANCE).totalAmount(Money.of("10.00")).build();
+        when(orderRepository.lockAllById(any())).thenReturn(List.of(foreign));
+
+        OrderBulkStatusRequest req = OrderBulkStatusRequest.builder()
+                .orderIds(List.of(31L)).status(OrderStatus.ACCEPTED).build();
+
+        assertThrows(AccessDeniedException.class, () -> orderService.updateOrderStatuses(merchant, req));
+        verify(orderRepository, never()).saveAll(any());
     }
 }
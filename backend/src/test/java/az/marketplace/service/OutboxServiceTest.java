@@ -0,0 +1,117 @@
+package az.marketplace.service;
+
+import az.marketplace.entity.OutboxEvent;
+import az.marketplace.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OutboxServiceTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private RecordingHandler handler;
+    private OutboxService outboxService;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        handler = new RecordingHandler();
+        outboxService = new OutboxService(outboxEventRepository, transactionManager, List.of(handler),
+                Duration.ofMinutes(5), 3);
+    }
+
+    @Test
+    void dispatchBatch_shouldRunHandlerAndDeleteEvent() {
+        OutboxEvent event = givenClaimed(0);
+
+        LocalDateTime before = LocalDateTime.now();
+        assertEquals(1, outboxService.dispatchBatch(10));
+
+        assertEquals(List.of(42L), handler.handled);
+        verify(outboxEventRepository).deleteById(1L);
+        verify(outboxEventRepository, never()).markFailed(any(), any(), any());
+        // emal zamanı başqa dispatcher götürməsin (lease)
+        assertFalse(event.getAvailableAt().isBefore(before.plusMinutes(5)));
+    }
+
+    @Test
+    void dispatchBatch_shouldRetryFailedEventWithBackoff() {
+        givenClaimed(1);
+        handler.failWith = new IllegalStateException("smtp down");
+
+        LocalDateTime before = LocalDateTime.now();
+        assertEquals(1, outboxService.dispatchBatch(10));
+        LocalDateTime after = LocalDateTime.now();
+
+        ArgumentCaptor<LocalDateTime> retryAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(outboxEventRepository).markFailed(eq(1L), retryAt.capture(), eq("smtp down"));
+        // ikinci cəhd → 2s gözləmə
+        assertFalse(retryAt.getValue().isBefore(before.plusSeconds(2)));
+        assertFalse(retryAt.getValue().isAfter(after.plusSeconds(2)));
+        verify(outboxEventRepository, never()).deleteById(any());
+        verify(outboxEventRepository, never()).markDead(any(), any(), any());
+    }
+
+    @Test
+    void dispatchBatch_shouldDeadLetterAfterMaxAttempts() {
+        givenClaimed(2);
+        handler.failWith = new IllegalStateException("smtp down");
+
+        outboxService.dispatchBatch(10);
+
+        verify(outboxEventRepository).markDead(eq(1L), any(), eq("smtp down"));
+        verify(outboxEventRepository, never()).markFailed(any(), any(), any());
+        verify(outboxEventRepository, never()).deleteById(any());
+    }
+
+    @Test
+    void backoff_shouldDoubleUpToOneHour() {
+        assertEquals(Duration.ofSeconds(1), OutboxService.backoff(0));
+        assertEquals(Duration.ofSeconds(8), OutboxService.backoff(3));
+        assertEquals(Duration.ofHours(1), OutboxService.backoff(12));
+        assertEquals(Duration.ofHours(1), OutboxService.backoff(40));
+    }
+
+    private OutboxEvent givenClaimed(int attempts) {
+        OutboxEvent event = OutboxEvent.builder()
+                .id(1L)
+                .eventType(OutboxService.ORDER_CREATED)
+                .handler(RecordingHandler.class.getSimpleName())
+                .aggregateId(42L)
+                .attempts(attempts)
+                .availableAt(LocalDateTime.now())
+                .build();
+        when(outboxEventRepository.lockAvailable(any(), any())).thenReturn(List.of(event));
+        return event;
+    }
+
+    static class RecordingHandler implements OutboxEventHandler {
+
+        final List<Long> handled = new ArrayList<>();
+        RuntimeException failWith;
+
+        @Override
+        public String eventType() {
+            return OutboxService.ORDER_CREATED;
+        }
+
+        @Override
+        public void handle(Long aggregateId) {
+            if (failWith != null) throw failWith;
+            handled.add(aggregateId);
+        }
+    }
+}
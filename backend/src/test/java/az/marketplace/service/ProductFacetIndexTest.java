@@ -0,0 +1,82 @@
+package az.marketplace.service;
+
+import az.marketplace.dto.product.ProductResponse;
+import az.marketplace.util.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductFacetIndexTest {
+
+    private ProductFacetIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new ProductFacetIndex();
+        index.index(product(1L, 10L, 100L, "5.00", 3));
+        index.index(product(2L, 10L, 200L, "250.00", 0));
+        index.index(product(3L, 20L, 100L, "750.00", 1));
+    }
+
+    @Test
+    void query_shouldIntersectFiltersAndCountOtherFacets() {
+        var result = index.query(10L, null, null, true, 10);
+
+        assertEquals(1, result.getTotal());
+        assertEquals(List.of(1L), result.getProductIds());
+        // category facet ignores its own filter: both in-stock products are counted per category
+        assertEquals(1, result.getCategories().get(10L));
+        assertEquals(1, result.getCategories().get(20L));
+        assertEquals(1, result.getInStock());
+        assertEquals(1, result.getPriceBuckets().get("0-10"));
+    }
+
+    @Test
+    void updateStock_shouldMoveProductInAndOutOfStock() {
+        index.updateStock(2L, 5);
+        assertEquals(3, index.query(null, null, null, true, 10).getTotal());
+
+        index.updateStock(1L, 0);
+        index.remove(3L);
+        var result = index.query(null, null, null, true, 10);
+        assertEquals(List.of(2L), result.getProductIds());
+        assertEquals(1, result.getMerchants().get(200L));
+        assertNull(result.getMerchants().get(100L));
+    }
+
+    @Test
+    void query_shouldCountAcrossDenseAndSparseChunks() {
+        // 5000 məhsul bir chunk-da (sıx), hər 7-cisi stokda (seyrək), biri növbəti chunk-da
+        for (long id = 100_000; id < 105_000; id++) {
+            index.index(product(id, 30L, 300L, "20.00", id % 7 == 0 ? 1 : 0));
+        }
+        index.index(product(200_000L, 30L, 300L, "20.00", 1));
+
+        var result = index.query(30L, null, null, true, 3);
+        assertEquals(715, result.getTotal());
+        assertEquals(List.of(100_002L, 100_009L, 100_016L), result.getProductIds());
+        assertEquals(5001, index.query(null, 300L, null, false, 0).getTotal());
+
+        // chunk yenidən seyrəkləşir
+        for (long id = 100_000; id < 104_990; id++) {
+            index.remove(id);
+        }
+        result = index.query(30L, null, null, false, 20);
+        assertEquals(11, result.getTotal());
+        assertEquals(200_000L, result.getProductIds().get(10));
+        assertEquals(2, result.getInStock());
+    }
+
+    private ProductResponse product(Long id, Long categoryId, Long merchantId, String price, int stock) {
+        return ProductResponse.builder()
+                .id(id)
+                .categoryId(categoryId)
+                .merchantId(merchantId)
+                .price(Money.of(price))
+                .stockCount(stock)
+                .build();
+    }
+}
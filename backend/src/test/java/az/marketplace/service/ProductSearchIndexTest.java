@@ -0,0 +1,55 @@
+package az.marketplace.service;
+
+import az.marketplace.dto.product.ProductResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new ProductSearchIndex();
+        index.index(product(1L, "iPhone 15 Pro", "Titanium, 256GB", "Phones"));
+        index.index(product(2L, "Samsung Galaxy S24", "Android phone with 256GB storage", "Phones"));
+        index.index(product(3L, "Phone case", "Silicone case for iPhone", "Accessories"));
+    }
+
+    @Test
+    void search_shouldRankNameMatchesFirst() {
+        var ids = index.search("iphone", 10);
+
+        assertEquals(2, ids.size());
+        assertEquals(1L, ids.get(0));
+        assertEquals(3L, ids.get(1));
+    }
+
+    @Test
+    void search_shouldMatchPrefixes() {
+        assertEquals(1L, index.search("titan", 10).get(0));
+        assertTrue(index.search("gal", 10).contains(2L));
+    }
+
+    @Test
+    void index_shouldReplaceAndRemoveDocuments() {
+        index.index(product(1L, "Pixel 8", "Google phone", "Phones"));
+        assertFalse(index.search("iphone", 10).contains(1L));
+        assertTrue(index.search("pixel", 10).contains(1L));
+
+        index.remove(1L);
+        assertTrue(index.search("pixel", 10).isEmpty());
+        assertEquals(2, index.size());
+    }
+
+    private ProductResponse product(Long id, String name, String details, String category) {
+        return ProductResponse.builder()
+                .id(id)
+                .name(name)
+                .details(details)
+                .categoryName(category)
+                .build();
+    }
+}
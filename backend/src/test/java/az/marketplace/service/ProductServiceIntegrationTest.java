@@ -1,7 +1,12 @@
 package az.marketplace.service;
 
+import az.marketplace.dto.product.ProductImportResponse;
+import az.marketplace.dto.product.ProductPageRequest;
+import az.marketplace.dto.product.ProductPageResponse;
 import az.marketplace.dto.product.ProductRequest;
 import az.marketplace.dto.product.ProductResponse;
+import az.marketplace.dto.product.ProductSummaryPageResponse;
+import az.marketplace.dto.product.ProductSummaryResponse;
 import az.marketplace.entity.Category;
 import az.marketplace.entity.Merchant;
 import az.marketplace.entity.Product;
@@ -11,6 +16,7 @@ import az.marketplace.repository.CategoryRepository;
 import az.marketplace.repository.MerchantRepository;
 import az.marketplace.repository.ProductRepository;
 import az.marketplace.repository.UserRepository;
+import az.marketplace.util.Money;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,7 +25,9 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -36,6 +44,12 @@ public class ProductServiceIntegrationTest {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ProductSummaryService productSummaryService;
+
+    @Autowired
+    private ProductImportService productImportService;
+
     @Autowired
     private MerchantRepository merchantRepository;
 
@@ -97,24 +111,120 @@ public class ProductServiceIntegrationTest {
     }
 
     @Test
-    void getAllProducts_shouldReturnCreatedProducts() {
-        Product p = Product.builder()
-                .name("BMW X5")
-                .details("Black, 2022, full package")
-                .price(new BigDecimal("150000.00"))
-                .stockCount(3)
-                .merchant(merchant)
-                .category(category)
-                .build();
-        productRepository.save(p);
+    void getAll_shouldReturnCreatedProductsFromReadModel() {
+        ProductRequest req = new ProductRequest();
+        req.setName("BMW X5");
+        req.setDetails("Black, 2022, full package");
+        req.setPrice(new BigDecimal("150000.00"));
+        req.setStockCount(3);
+        req.setCategoryId(category.getId());
+        productService.createProduct(req, null, merchant);
 
-        List<ProductResponse> all = productService.getAllProducts();
+        List<ProductSummaryResponse> all = productSummaryService.getAll(null, null);
 
         assertThat(all).hasSize(1);
-        ProductResponse first = all.get(0);
+        ProductSummaryResponse first = all.get(0);
+
+        assertThat(first.name()).isEqualTo("BMW X5");
+        assertThat(first.merchantCompanyName()).isEqualTo("Test Seller LLC");
+        assertThat(first.categoryName()).isEqualTo("Test Category");
+    }
+
+    @Test
+    void getProductPage_shouldWalkCatalogWithCursor() {
+        for (int i = 1; i <= 3; i++) {
+            productRepository.save(Product.builder()
+                    .name("Item " + i)
+                    .details("details " + i)
+                    .price(Money.of(i * 10 + ".00"))
+                    .stockCount(i)
+                    .merchant(merchant)
+                    .category(category)
+                    .build());
+        }
+
+        ProductPageRequest req = ProductPageRequest.builder()
+                .sort("price")
+                .direction("asc")
+                .minPrice(new BigDecimal("15.00"))
+                .limit(1)
+                .build();
+
+        ProductPageResponse first = productService.getProductPage(req);
+        assertThat(first.getItems()).extracting(ProductResponse::getName).containsExactly("Item 2");
+        assertThat(first.isHasMore()).isTrue();
+
+        req.setCursor(first.getNextCursor());
+        ProductPageResponse second = productService.getProductPage(req);
+        assertThat(second.getItems()).extracting(ProductResponse::getName).containsExactly("Item 3");
+        assertThat(second.isHasMore()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+    }
 
-        assertThat(first.getName()).isEqualTo("BMW X5");
-        assertThat(first.getMerchantCompanyName()).isEqualTo("Test Seller LLC");
-        assertThat(first.getCategoryName()).isEqualTo("Test Category");
+    @Test
+    void getSummaryPage_shouldListNewestFirstFromReadModel() {
+        for (int i = 1; i <= 3; i++) {
+            ProductRequest req = new ProductRequest();
+            req.setName("Summary " + i);
+            req.setDetails("details " + i);
+            req.setPrice(new BigDecimal("5.00"));
+            req.setStockCount(i);
+            req.setCategoryId(category.getId());
+            productService.createProduct(req, null, merchant);
+        }
+
+        ProductSummaryPageResponse first = productSummaryService.getPage(category.getId(), null, null, 2);
+        assertThat(first.getItems()).extracting(ProductSummaryResponse::name)
+                .containsExactly("Summary 3", "Summary 2");
+        assertThat(first.getItems().get(0).merchantCompanyName()).isEqualTo("Test Seller LLC");
+        assertThat(first.getItems().get(0).stockCount()).isEqualTo(3);
+        assertThat(first.isHasMore()).isTrue();
+
+        ProductSummaryPageResponse second = productSummaryService.getPage(category.getId(), null, first.getNextCursor(), 2);
+        assertThat(second.getItems()).extracting(ProductSummaryResponse::name).containsExactly("Summary 1");
+        assertThat(second.isHasMore()).isFalse();
+
+        assertThat(productSummaryService.getAll(null, merchant.getId()))
+                .extracting(ProductSummaryResponse::name)
+                .containsExactly("Summary 3", "Summary 2", "Summary 1");
+    }
+
+    @Test
+    void importProducts_shouldInsertValidRowsAndReportBadOnes() throws Exception {
+        String csv = "name,details,price,stockCount,categoryName\n"
+                + "Lamp,\"Desk lamp, LED\",25.50,4,Test Category\n"
+                + "Broken,no price,,1,Test Category\n"
+                + "Chair,Office chair,80,2,test category\n"
+                + "Ghost,unknown category,10,1,Nope\n";
+
+        ProductImportResponse report = productImportService.importProducts(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                ProductImportService.Format.CSV,
+                merchant);
+
+        assertThat(report.getTotalRows()).isEqualTo(4);
+        assertThat(report.getImported()).isEqualTo(2);
+        assertThat(report.getErrors()).extracting(ProductImportResponse.RowError::row).containsExactly(2, 4);
+        assertThat(productRepository.count()).isEqualTo(2);
+        assertThat(productSummaryService.getPage(null, merchant.getId(), null, 10).getItems())
+                .extracting(ProductSummaryResponse::name)
+                .containsExactlyInAnyOrder("Lamp", "Chair");
+    }
+
+    @Test
+    void importProducts_shouldReportPriceTooLargeAsRowError() throws Exception {
+        String ndjson = """
+                {"name":"Yacht","details":"too expensive","price":1e20,"stockCount":1,"categoryName":"Test Category"}
+                {"name":"Boat","details":"fine","price":1500.00,"stockCount":1,"categoryName":"Test Category"}
+                """;
+
+        ProductImportResponse report = productImportService.importProducts(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)),
+                ProductImportService.Format.NDJSON,
+                merchant);
+
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(report.getErrors()).containsExactly(new ProductImportResponse.RowError(1, "Price is too large"));
+        assertThat(productRepository.count()).isEqualTo(1);
     }
 }
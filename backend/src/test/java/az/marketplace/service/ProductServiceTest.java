@@ -1,7 +1,10 @@
 package az.marketplace.service;
 
+import az.marketplace.dto.product.ProductBulkUpdateRequest;
 import az.marketplace.dto.product.ProductRequest;
+import az.marketplace.dto.product.ProductResponse;
 import az.marketplace.entity.*;
+import az.marketplace.exception.AccessDeniedException;
 import az.marketplace.repository.CategoryRepository;
 import az.marketplace.repository.ProductRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,6 +12,9 @@ import org.junit.jupiter.api.Test;
 import org.mockito.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -20,6 +26,18 @@ class ProductServiceTest {
     private ProductRepository productRepository;
     @Mock
     private CategoryRepository categoryRepository;
+    @Mock
+    private ProductCache productCache;
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+    @Mock
+    private ProductFacetIndex productFacetIndex;
+    @Mock
+    private ProductCatalogSync productCatalogSync;
+    @Mock
+    private ProductSummaryService productSummaryService;
+    @Mock
+    private InventoryService inventoryService;
 
     @InjectMocks
     private ProductService productService;
@@ -53,4 +71,79 @@ class ProductServiceTest {
         assertEquals("Phone", result.getName());
         assertEquals(merchant.getCompanyName(), result.getMerchantCompanyName());
     }
+
+    @Test
+    void getVersion_shouldUseCachedResponseWithoutTouchingDb() {
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 5, 1, 12, 0, 0, 123_456_789);
+        when(productCache.getIfPresent(7L))
+                .thenReturn(ProductResponse.builder().id(7L).updatedAt(updatedAt).build());
+
+        var version = productService.getVersion(7L);
+
+        assertTrue(version.etag().startsWith("\"p7-"));
+        assertEquals(version, productService.getVersion(7L));
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void bulkUpdate_shouldRunOneSetBasedUpdateForOwnedProducts() {
+        ProductBulkUpdateRequest req = ProductBulkUpdateRequest.builder()
+                .items(List.of(
+                        ProductBulkUpdateRequest.Item.builder().productId(10L).price(new BigDecimal("9.99")).build(),
+                        ProductBulkUpdateRequest.Item.builder().productId(11L).stockDelta(-2).build()))
+                .build();
+        when(productRepository.findIdsOwnedBy(anyCollection(), eq(1L))).thenReturn(List.of(10L, 11L));
+        when(productRepository.bulkUpdate(anyList())).thenReturn(2);
+
+        var result = productService.bulkUpdate(req, merchant);
+
+        assertEquals(2, result.getUpdated());
+        verify(productRepository, times(1)).bulkUpdate(anyList());
+        verify(productCatalogSync).bulkUpdated(anyMap(), eq(List.of(11L)));
+    }
+
+    @Test
+    void bulkUpdate_shouldRouteShardedStockThroughInventory() {
+        ProductBulkUpdateRequest req = ProductBulkUpdateRequest.builder()
+                .items(List.of(
+                        ProductBulkUpdateRequest.Item.builder().productId(10L).stockDelta(-3).build(),
+                        ProductBulkUpdateRequest.Item.builder().productId(11L).stockDelta(4).build()))
+                .build();
+        when(productRepository.findIdsOwnedBy(anyCollection(), eq(1L))).thenReturn(List.of(10L, 11L));
+        when(productRepository.findShardedIds(anyCollection())).thenReturn(List.of(10L));
+        when(inventoryService.adjustShardedStock(10L, -3)).thenReturn(true);
+        when(productRepository.bulkUpdate(anyList())).thenReturn(1);
+
+        var result = productService.bulkUpdate(req, merchant);
+
+        assertEquals(2, result.getUpdated());
+        verify(inventoryService).adjustShardedStock(10L, -3);
+        verify(productRepository).bulkUpdate(argThat(updates ->
+                updates.size() == 1 && updates.get(0).productId().equals(11L)));
+    }
+
+    @Test
+    void bulkUpdate_shouldRejectBatchWithForeignProduct() {
+        ProductBulkUpdateRequest req = ProductBulkUpdateRequest.builder()
+                .items(List.of(
+                        ProductBulkUpdateRequest.Item.builder().productId(10L).stockCount(5).build(),
+                        ProductBulkUpdateRequest.Item.builder().productId(99L).stockCount(5).build()))
+                .build();
+        when(productRepository.findIdsOwnedBy(anyCollection(), eq(1L))).thenReturn(List.of(10L));
+
+        assertThrows(AccessDeniedException.class, () -> productService.bulkUpdate(req, merchant));
+        verify(productRepository, never()).bulkUpdate(anyList());
+    }
+
+    @Test
+    void getByIds_shouldReturnInRequestOrderSkippingMissing() {
+        when(productCache.getAll(anyCollection(), any())).thenReturn(Map.of(
+                1L, ProductResponse.builder().id(1L).build(),
+                3L, ProductResponse.builder().id(3L).build()));
+
+        var result = productService.getByIds(List.of(3L, 2L, 1L, 3L));
+
+        assertEquals(List.of(3L, 1L), result.stream().map(ProductResponse::getId).toList());
+        verify(productCache).getAll(eq(List.of(3L, 2L, 1L)), any());
+    }
 }
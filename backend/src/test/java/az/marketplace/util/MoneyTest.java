@@ -0,0 +1,47 @@
+package az.marketplace.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void arithmetic_shouldMatchBigDecimal() {
+        Money price = Money.of("19.99");
+
+        assertEquals(new BigDecimal("59.97"), price.times(3).toBigDecimal());
+        assertEquals(new BigDecimal("20.00"), price.plus(Money.of("0.01")).toBigDecimal());
+        assertEquals(new BigDecimal("-19.99"), price.negate().toBigDecimal());
+        assertTrue(price.compareTo(Money.of("20")) < 0);
+    }
+
+    @Test
+    void of_shouldRoundToColumnScale() {
+        assertEquals(Money.ofMinor(1000), Money.of("10"));
+        assertEquals(Money.ofMinor(1001), Money.of("10.005"));
+        assertEquals(Money.ZERO, Money.ofNullable(null));
+    }
+
+    @Test
+    void times_shouldFailOnOverflow() {
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MAX_VALUE / 2).times(3));
+    }
+
+    @Test
+    void of_shouldAcceptMaxAndFailAboveIt() {
+        assertEquals(Money.ofMinor(Long.MAX_VALUE), Money.of(Money.MAX));
+        assertThrows(ArithmeticException.class, () -> Money.of("92233720368547758.08"));
+    }
+
+    @Test
+    void json_shouldKeepDecimalWireFormat() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+
+        assertEquals("200.00", mapper.writeValueAsString(Money.of("200")));
+        assertEquals(Money.of("12.50"), mapper.readValue("12.5", Money.class));
+    }
+}
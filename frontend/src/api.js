@@ -90,7 +90,16 @@ export const getProfile = (auth) =>
 export const getMerchantProfile = (auth) =>
   requestJson("/merchant/me", { token: auth?.token });
 
-export const getProducts = () => requestJson("/products");
+// Listing: product_summary read model (details və photoUrls yoxdur, firstPhotoUrl var),
+// ən yenilər əvvəl, cursor ilə səhifələnir -> { items, nextCursor, hasMore }
+export function getProducts({ categoryId, merchantId, cursor, limit = 24 } = {}) {
+  const params = new URLSearchParams();
+  params.set("limit", limit);
+  if (cursor) params.set("cursor", cursor);
+  if (categoryId) params.set("categoryId", categoryId);
+  if (merchantId) params.set("merchantId", merchantId);
+  return requestJson(`/products/summaries?${params.toString()}`);
+}
 
 export const getProductById = (id) => requestJson(`/products/${id}`);
 
@@ -158,6 +167,10 @@ export const removeFromWishlist = (productId, auth) =>
 export const getCart = (auth) =>
   requestJson("/cart", { token: auth?.token });
 
+// items + server-side totals (itemCount, grandTotal, overStockItemIds)
+export const getCartView = (auth) =>
+  requestJson("/cart/view", { token: auth?.token });
+
 export const addToCart = (productId, count, auth) =>
   requestJson("/cart/items", {
     method: "POST",
@@ -175,13 +188,25 @@ export const deleteCartItem = (itemId, auth) =>
 export const createOrders = (auth) =>
   requestJson("/orders", { method: "POST", token: auth?.token });
 
-// customer: list own
-export const getOrders = (auth) =>
-  requestJson("/orders", { token: auth?.token });
+// customer: own history, cursor ilə səhifələnir -> { items, nextCursor, hasMore }
+export function getOrders(auth, { limit = 20, cursor, status } = {}) {
+  const params = new URLSearchParams();
+  params.set("limit", limit);
+  if (cursor) params.set("cursor", cursor);
+  if (status) params.set("status", status);
+  return requestJson(`/orders?${params.toString()}`, { token: auth?.token });
+}
 
-// merchant: list visible
-export const getMerchantOrders = (auth) =>
-  requestJson("/merchant/orders", { token: auth?.token });
+// merchant: inbox, cursor ilə səhifələnir -> { items, nextCursor, hasMore }
+export function getMerchantOrders(auth, { limit = 20, cursor, status } = {}) {
+  const params = new URLSearchParams();
+  params.set("limit", limit);
+  if (cursor) params.set("cursor", cursor);
+  if (status) params.set("status", status);
+  return requestJson(`/merchant/orders?${params.toString()}`, {
+    token: auth?.token,
+  });
+}
 
 // merchant: update status
 export async function updateOrderStatus(orderId, body, auth) {
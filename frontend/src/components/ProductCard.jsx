@@ -9,8 +9,10 @@ export default function ProductCard({ product, size = "md", isNew }) {
     return `${BASE_URL}/uploads/${cleaned}`;
   };
 
+  // listing-də summary (firstPhotoUrl), digər yerlərdə tam məhsul (photoUrls)
   const firstUrl =
-    product?.photoUrls && product.photoUrls.length > 0 ? product.photoUrls[0] : null;
+    product?.firstPhotoUrl ??
+    (product?.photoUrls && product.photoUrls.length > 0 ? product.photoUrls[0] : null);
   const resolvedFirst = resolvePhoto(firstUrl);
 
   const sizeMap = {
@@ -91,9 +93,11 @@ export default function ProductCard({ product, size = "md", isNew }) {
           {product?.name}
         </h3>
 
-        <p className="line-clamp-2 text-[13px] leading-5 section-meta">
-          {product?.details}
-        </p>
+        {product?.details && (
+          <p className="line-clamp-2 text-[13px] leading-5 section-meta">
+            {product.details}
+          </p>
+        )}
 
         {/* Added date */}
         {createdDateStr && (
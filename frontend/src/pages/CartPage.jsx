@@ -1,26 +1,24 @@
-import { useEffect, useState, useMemo } from "react";
+import { useEffect, useState } from "react";
 import { useAuth } from "../hooks/useAuth";
-import { getCart, deleteCartItem, createOrders } from "../api";
+import { getCartView, deleteCartItem, createOrders } from "../api";
+
+const EMPTY_CART = { items: [], itemCount: 0, grandTotal: 0, overStockItemIds: [] };
 
 export default function CartPage() {
   const { auth, isCustomer } = useAuth();
-  const [items, setItems] = useState([]);
+  const [cart, setCart] = useState(EMPTY_CART);
+  const items = cart.items;
 
   const load = () => {
-    getCart(auth)
-      .then(setItems)
-      .catch(() => setItems([]));
+    getCartView(auth)
+      .then(setCart)
+      .catch(() => setCart(EMPTY_CART));
   };
 
   useEffect(() => {
     if (isCustomer) load();
   }, [isCustomer]);
 
-  const total = useMemo(
-    () => items.reduce((sum, it) => sum + (it.totalPrice || 0), 0),
-    [items]
-  );
-
   const handleDelete = async (itemId) => {
     await deleteCartItem(itemId, auth);
     load();
@@ -56,7 +54,7 @@ export default function CartPage() {
     <div className="max-w-3xl mx-auto px-6 py-8">
       <div className="flex items-center justify-between mb-6">
         <h1 className="text-2xl font-semibold">My Cart</h1>
-        <div className="text-sm section-meta">{items.length} items</div>
+        <div className="text-sm section-meta">{cart.itemCount} items</div>
       </div>
 
       <div className="token-card overflow-hidden">
@@ -82,6 +80,11 @@ export default function CartPage() {
                   <div className="text-sm font-semibold">
                     Total: ${it.totalPrice}
                   </div>
+                  {it.exceedsStock && (
+                    <div className="text-sm text-red-600 dark:text-red-400">
+                      Only {it.stockCount} left in stock
+                    </div>
+                  )}
                 </div>
 
                 <button
@@ -97,11 +100,11 @@ export default function CartPage() {
 
         <div className="flex items-center justify-between p-4 border-t border-[var(--divider)] section-head rounded-b-[inherit]">
           <div className="text-lg font-semibold">
-            Grand Total: ${total}
+            Grand Total: ${cart.grandTotal}
           </div>
 
           <button
-            disabled={items.length === 0}
+            disabled={items.length === 0 || cart.overStockItemIds.length > 0}
             onClick={handleCheckout}
             className="btn btn-primary text-sm"
           >
@@ -61,13 +61,15 @@ function OrderRow({ order, onUpdate, saving, compact = false, lockInitially = fa
       {/* ORDER INFO */}
       <div className="flex-1">
         <div className="flex items-center gap-2 flex-wrap">
-          <div className="font-semibold">{order.productName}</div>
+          <div className="font-semibold">
+            {(order.lines || []).map((l) => `${l.productName} × ${l.count}`).join(", ")}
+          </div>
           <span className="status-pill" data-tone={tone}>
             {order.status.replaceAll("_", " ")}
           </span>
         </div>
         <div className="text-sm section-meta mt-0.5">
-          Count: {order.count} | Total: ${order.totalAmount}
+          Count: {order.itemCount} | Total: ${order.totalAmount}
         </div>
         <div className="text-xs section-meta">Created: {order.createdAt}</div>
 
@@ -133,15 +135,36 @@ function OrderRow({ order, onUpdate, saving, compact = false, lockInitially = fa
 export default function MerchantOrdersPage() {
   const { auth, isMerchant } = useAuth();
   const [orders, setOrders] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [savingId, setSavingId] = useState(null);
 
   const activeOrders = orders.filter((o) => !COMPLETED_STATUSES.has(o.status));
   const completedOrders = orders.filter((o) => COMPLETED_STATUSES.has(o.status));
 
+  // ilk səhifə (yenidən yükləmədə siyahı sıfırlanır)
   const load = () => {
     getMerchantOrders(auth)
-      .then(setOrders)
-      .catch(() => setOrders([]));
+      .then((page) => {
+        setOrders(page.items);
+        setNextCursor(page.hasMore ? page.nextCursor : null);
+      })
+      .catch(() => {
+        setOrders([]);
+        setNextCursor(null);
+      });
+  };
+
+  const loadMore = () => {
+    if (!nextCursor) return;
+    setLoadingMore(true);
+    getMerchantOrders(auth, { cursor: nextCursor })
+      .then((page) => {
+        setOrders((prev) => [...prev, ...page.items]);
+        setNextCursor(page.hasMore ? page.nextCursor : null);
+      })
+      .catch((err) => alert("Failed to load orders: " + err.message))
+      .finally(() => setLoadingMore(false));
   };
 
   useEffect(() => {
@@ -203,6 +226,18 @@ export default function MerchantOrdersPage() {
         subtle
         lockInitially
       />
+
+      {nextCursor && (
+        <div className="mt-4 text-center">
+          <button
+            onClick={loadMore}
+            disabled={loadingMore}
+            className="btn btn-secondary text-sm"
+          >
+            {loadingMore ? "Loading..." : "Load older orders"}
+          </button>
+        </div>
+      )}
     </div>
   );
 }
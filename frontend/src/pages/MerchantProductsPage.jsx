@@ -7,16 +7,37 @@ export default function MerchantProductsPage() {
   const { id } = useParams();
   const merchantId = String(id || "");
   const [allProducts, setAllProducts] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [q, setQ] = useState("");
   const [sort, setSort] = useState("newest");
 
   useEffect(() => {
     setLoading(true);
-    getProducts()
-      .then((res) => setAllProducts(res || []))
+    getProducts({ merchantId })
+      .then((page) => {
+        setAllProducts(page.items || []);
+        setNextCursor(page.hasMore ? page.nextCursor : null);
+      })
+      .catch(() => {
+        setAllProducts([]);
+        setNextCursor(null);
+      })
       .finally(() => setLoading(false));
-  }, []);
+  }, [merchantId]);
+
+  const loadMore = () => {
+    if (!nextCursor) return;
+    setLoadingMore(true);
+    getProducts({ merchantId, cursor: nextCursor })
+      .then((page) => {
+        setAllProducts((prev) => [...prev, ...(page.items || [])]);
+        setNextCursor(page.hasMore ? page.nextCursor : null);
+      })
+      .catch((err) => alert("Failed to load products: " + err.message))
+      .finally(() => setLoadingMore(false));
+  };
 
   const list = useMemo(() => {
     let filtered = (allProducts || []).filter(
@@ -27,7 +48,6 @@ export default function MerchantProductsPage() {
       filtered = filtered.filter(
         (p) =>
           p.name?.toLowerCase().includes(t) ||
-          p.details?.toLowerCase().includes(t) ||
           p.categoryName?.toLowerCase().includes(t)
       );
     }
@@ -109,6 +129,18 @@ export default function MerchantProductsPage() {
           ))}
         </div>
       )}
+
+      {!loading && nextCursor && (
+        <div className="mt-8 text-center">
+          <button
+            onClick={loadMore}
+            disabled={loadingMore}
+            className="btn btn-secondary text-sm"
+          >
+            {loadingMore ? "Loading…" : "Load more listings"}
+          </button>
+        </div>
+      )}
     </div>
   );
 }
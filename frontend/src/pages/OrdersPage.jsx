@@ -12,24 +12,47 @@ const COMPLETED_STATUSES = new Set([
 export default function OrdersPage() {
   const { auth, isCustomer } = useAuth();
   const [orders, setOrders] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
   // UI states: reason text + “expanded” (input açıq?) per order
   const [reasons, setReasons] = useState({});     // { [orderId]: string }
   const [expanded, setExpanded] = useState({});   // { [orderId]: boolean }
   const [sortBy, setSortBy] = useState("newest");
   const [statusFilter, setStatusFilter] = useState("ALL");
 
+  // status filtri serverdədir: ilk səhifə, sonra "Load older orders" ilə cursor üzrə
+  const statusParam = statusFilter === "ALL" ? undefined : statusFilter;
+
   const load = () => {
     setLoading(true);
-    getOrders(auth)
-      .then(setOrders)
-      .catch(() => setOrders([]))
+    getOrders(auth, { status: statusParam })
+      .then((page) => {
+        setOrders(page.items);
+        setNextCursor(page.hasMore ? page.nextCursor : null);
+      })
+      .catch(() => {
+        setOrders([]);
+        setNextCursor(null);
+      })
       .finally(() => setLoading(false));
   };
 
+  const loadMore = () => {
+    if (!nextCursor) return;
+    setLoadingMore(true);
+    getOrders(auth, { cursor: nextCursor, status: statusParam })
+      .then((page) => {
+        setOrders((prev) => [...prev, ...page.items]);
+        setNextCursor(page.hasMore ? page.nextCursor : null);
+      })
+      .catch((err) => alert("Failed to load orders: " + err.message))
+      .finally(() => setLoadingMore(false));
+  };
+
   useEffect(() => {
     if (isCustomer) load();
-  }, [isCustomer]);
+  }, [isCustomer, statusFilter]);
 
   const handleCheckout = async () => {
     try {
@@ -72,11 +95,8 @@ export default function OrdersPage() {
     }
   };
 
-  const filteredAndSorted = useMemo(() => {
-    let list = orders;
-    if (statusFilter !== "ALL") {
-      list = list.filter((o) => o.status === statusFilter);
-    }
+  const sorted = useMemo(() => {
+    const list = orders;
 
     const cmpDateDesc = (a, b) =>
       new Date(b.createdAt).getTime() - new Date(a.createdAt).getTime();
@@ -105,12 +125,12 @@ export default function OrdersPage() {
         break;
     }
     return listCopy;
-  }, [orders, sortBy, statusFilter]);
+  }, [orders, sortBy]);
 
-  const activeOrders = filteredAndSorted.filter(
+  const activeOrders = sorted.filter(
     (o) => !COMPLETED_STATUSES.has(o.status)
   );
-  const historyOrders = filteredAndSorted.filter((o) =>
+  const historyOrders = sorted.filter((o) =>
     COMPLETED_STATUSES.has(o.status)
   );
 
@@ -197,6 +217,18 @@ export default function OrdersPage() {
           items={historyOrders}
           renderItem={(o) => <OrderRow key={o.orderId} order={o} readOnly />}
         />
+
+        {!loading && nextCursor && (
+          <div className="text-center">
+            <button
+              onClick={loadMore}
+              disabled={loadingMore}
+              className="btn btn-secondary text-sm"
+            >
+              {loadingMore ? "Loading…" : "Load older orders"}
+            </button>
+          </div>
+        )}
       </div>
     </div>
   );
@@ -246,13 +278,15 @@ function OrderRow({
         {/* LEFT: info */}
         <div className="min-w-0">
           <div className="flex items-start gap-3">
-            <h3 className="font-medium truncate">{order.productName}</h3>
+            <h3 className="font-medium truncate">
+              {(order.lines || []).map((l) => l.productName).join(", ")}
+            </h3>
             <StatusPill status={order.status} />
           </div>
 
           <div className="mt-1 text-sm section-meta">
             <span className="mr-4">
-              Count: <b>{order.count}</b>
+              Count: <b>{order.itemCount}</b>
             </span>
             <span>
               Total: <b>{formatCurrency(order.totalAmount)}</b>
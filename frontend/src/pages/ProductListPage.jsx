@@ -5,23 +5,48 @@ import ProductCard from "../components/ProductCard";
 
 export default function ProductListPage() {
   const [products, setProducts] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
   const [cats, setCats] = useState([]);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
 
   // Controls
   const [q, setQ] = useState("");
   const [catId, setCatId] = useState("");
   const [sort, setSort] = useState("newest"); // newest|priceAsc|priceDesc|stock
 
+  useEffect(() => {
+    getCategories()
+      .then((cs) => setCats(cs || []))
+      .catch(() => setCats([]));
+  }, []);
+
+  // kateqoriya filtri serverdədir: ilk səhifə, sonra "Load more" ilə cursor üzrə
   useEffect(() => {
     setLoading(true);
-    Promise.all([getProducts(), getCategories().catch(() => [])])
-      .then(([ps, cs]) => {
-        setProducts(ps || []);
-        setCats(cs || []);
+    getProducts({ categoryId: catId })
+      .then((page) => {
+        setProducts(page.items || []);
+        setNextCursor(page.hasMore ? page.nextCursor : null);
+      })
+      .catch(() => {
+        setProducts([]);
+        setNextCursor(null);
       })
       .finally(() => setLoading(false));
-  }, []);
+  }, [catId]);
+
+  const loadMore = () => {
+    if (!nextCursor) return;
+    setLoadingMore(true);
+    getProducts({ categoryId: catId, cursor: nextCursor })
+      .then((page) => {
+        setProducts((prev) => [...prev, ...(page.items || [])]);
+        setNextCursor(page.hasMore ? page.nextCursor : null);
+      })
+      .catch((err) => alert("Failed to load products: " + err.message))
+      .finally(() => setLoadingMore(false));
+  };
 
   // “New” window: 1 day
   const NEW_WINDOW_MS = 24 * 60 * 60 * 1000;
@@ -51,16 +76,11 @@ export default function ProductListPage() {
       list = list.filter(
         (p) =>
           p.name?.toLowerCase().includes(t) ||
-          p.details?.toLowerCase().includes(t) ||
+          p.merchantCompanyName?.toLowerCase().includes(t) ||
           p.categoryName?.toLowerCase().includes(t)
       );
     }
 
-    // category
-    if (catId) {
-      list = list.filter((p) => String(p.categoryId) === String(catId));
-    }
-
     // sort
     switch (sort) {
       case "priceAsc":
@@ -88,7 +108,7 @@ export default function ProductListPage() {
       }
     }
     return list;
-  }, [products, q, catId, sort]);
+  }, [products, q, sort]);
 
   return (
     <div className="mx-auto max-w-7xl px-4 py-8">
@@ -178,6 +198,18 @@ export default function ProductListPage() {
           ))}
         </div>
       )}
+
+      {!loading && nextCursor && (
+        <div className="mt-8 text-center">
+          <button
+            onClick={loadMore}
+            disabled={loadingMore}
+            className="btn btn-secondary text-sm"
+          >
+            {loadingMore ? "Loading…" : "Load more products"}
+          </button>
+        </div>
+      )}
     </div>
   );
 }